@@ -1,11 +1,65 @@
 package test;
 
+import analytics.TreeStatistics;
+import bulk.CsvBulkImporter;
+import composite.PersonNode;
+import core.ComponentIndex;
+import core.DescendantsStandingQuery;
+import core.EdgeType;
 import core.FamilyTree;
+import core.LivingSiblingsStandingQuery;
+import core.MemoryReport;
+import core.RelationshipPath;
+import core.TraversalCursor;
+import core.ValidationReport;
+import dedup.DuplicateFinder;
+import dedup.MatchCandidate;
+import event.ChangeFeed;
+import event.TreeEvent;
 import factory.PersonFactory;
+import gedcom.GedcomReader;
+import gedcom.GedcomWriter;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import model.Gender;
 import model.Person;
+import query.Query;
+import query.QueryParser;
+import query.QueryPlan;
+import query.QueryPlanner;
+import replication.Follower;
+import replication.LogShipper;
+import shard.LocalShard;
+import shard.RemoteShard;
+import shard.ShardServer;
+import shard.ShardedFamilyTree;
+import storage.BufferPool;
+import storage.PagedShard;
+import strategy.DotRenderer;
+import strategy.IndentedTreeRenderer;
+import strategy.JsonGraphRenderer;
+import strategy.LineRenderer;
+import tenant.TreeRegistry;
+import trace.TraceRecorder;
 import util.IdGenerator;
 
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 /**
  * Unit tests for Family Tree functionality.
  */
@@ -28,6 +82,29 @@ public class FamilyTreeTest {
         total++; if (testDescendants()) passed++;
         total++; if (testInvalidYears()) passed++;
         total++; if (testUnknownId()) passed++;
+        total++; if (testShardedTraversal()) passed++;
+        total++; if (testComponents()) passed++;
+        total++; if (testLazyTraversal()) passed++;
+        total++; if (testBatchQueries()) passed++;
+        total++; if (testValidation()) passed++;
+        total++; if (testChangeFeed()) passed++;
+        total++; if (testReplication()) passed++;
+        total++; if (testStandingQueries()) passed++;
+        total++; if (testSubtreeAggregates()) passed++;
+        total++; if (testQueryPlanner()) passed++;
+        total++; if (testDuplicateMerge()) passed++;
+        total++; if (testPathBetween()) passed++;
+        total++; if (testTreeStatistics()) passed++;
+        total++; if (testGraphExport()) passed++;
+        total++; if (testGedcomRoundTrip()) passed++;
+        total++; if (testCousins()) passed++;
+        total++; if (testTreeRegistryEviction()) passed++;
+        total++; if (testMemoryReport()) passed++;
+        total++; if (testCsvBulkImport()) passed++;
+        total++; if (testPagedStorage()) passed++;
+        total++; if (testMemoizedRendering()) passed++;
+        total++; if (testNameStore()) passed++;
+        total++; if (testFlightRecorderEvents()) passed++;
 
         System.out.println("\n" + "=".repeat(50));
         System.out.println("Tests passed: " + passed + "/" + total);
@@ -331,4 +408,1465 @@ public class FamilyTreeTest {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    private static boolean testShardedTraversal() {
+        System.out.print("Test: Sharded Traversal... ");
+        try (ShardServer server = new ShardServer(new LocalShard(), 0).start();
+             RemoteShard remote = new RemoteShard(server.getPort())) {
+            IdGenerator.reset();
+            ShardedFamilyTree tree = new ShardedFamilyTree(Arrays.asList(new LocalShard(), remote));
+
+            Person grandparent = PersonFactory.createPerson("Grandparent", Gender.MALE, 1950, null);
+            Person parent = PersonFactory.createPerson("Parent", Gender.FEMALE, 1975, null);
+            Person child1 = PersonFactory.createPerson("Child1", Gender.MALE, 2000, null);
+            Person child2 = PersonFactory.createPerson("Child2", Gender.FEMALE, 2002, null);
+
+            tree.addPerson(grandparent);
+            tree.addPerson(parent, grandparent.getId());
+            tree.addPerson(child1);
+            tree.addPerson(child2);
+
+            tree.addParentChild(grandparent.getId(), parent.getId());
+            tree.addParentChild(parent.getId(), child1.getId());
+            tree.addParentChild(parent.getId(), child2.getId());
+
+            assert tree.shardIndexOf(child1.getId()) != tree.shardIndexOf(child2.getId());
+            assert tree.ancestorsOf(child2.getId(), 2).size() == 3;
+            assert tree.descendantsOf(grandparent.getId(), 1).size() == 2;
+            assert tree.descendantsOf(grandparent.getId(), 2).size() == 4;
+            assert tree.siblingsOf(child1.getId()).equals(Arrays.asList(child2.getId()));
+
+            // A cross-shard parent and a same-shard parent fill both parent slots
+            String crossChild = tree.shardIndexOf(child1.getId()) != tree.shardIndexOf(parent.getId())
+                    ? child1.getId() : child2.getId();
+            Person local1 = PersonFactory.createPerson("Local1", Gender.MALE, 1970, null);
+            Person local2 = PersonFactory.createPerson("Local2", Gender.MALE, 1971, null);
+            tree.addPerson(local1, crossChild);
+            tree.addPerson(local2, crossChild);
+            tree.addParentChild(local1.getId(), crossChild);
+            try {
+                tree.addParentChild(local2.getId(), crossChild);
+                System.out.println("FAILED: Third parent accepted");
+                return false;
+            } catch (IllegalArgumentException expected) {
+                // two parents at most, wherever they are stored
+            }
+            assert tree.ancestorsOf(crossChild, 1).size() == 3;
+
+            // Separators inside names and IDs survive the wire
+            remote.addPerson("odd,1:a|b", "Tab\tand\nnewline \\ name", Gender.MALE, 1900, null);
+            remote.addPerson("odd,2:c|d", "Second", Gender.FEMALE, 1930, null);
+            remote.linkLocal("odd,1:a|b", "odd,2:c|d");
+            assert remote.childrenOf(List.of("odd,1:a|b")).get("odd,1:a|b").equals(List.of("odd,2:c|d"));
+            assert remote.parentsOf(List.of("odd,2:c|d", "odd,1:a|b")).get("odd,1:a|b").isEmpty();
+            assert remote.describe("odd,1:a|b").contains("Tab\tand\nnewline \\ name");
+
+            try {
+                tree.addParentChild(child2.getId(), grandparent.getId());
+                System.out.println("FAILED: Should have thrown exception");
+                return false;
+            } catch (IllegalArgumentException e) {
+                System.out.println("PASSED");
+                return true;
+            }
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testComponents() {
+        System.out.print("Test: Connected Components... ");
+        try {
+            IdGenerator.reset();
+            FamilyTree tree = new FamilyTree();
+
+            Person parent = PersonFactory.createPerson("Parent", Gender.FEMALE, 1970, null);
+            Person child = PersonFactory.createPerson("Child", Gender.MALE, 2000, null);
+            Person spouse = PersonFactory.createPerson("Spouse", Gender.FEMALE, 2001, null);
+            Person stranger = PersonFactory.createPerson("Stranger", Gender.MALE, 1990, null);
+
+            tree.addPerson(parent);
+            tree.addPerson(child);
+            tree.addPerson(spouse);
+            tree.addPerson(stranger);
+
+            assert !tree.relatedAtAll(parent.getId(), spouse.getId());
+
+            tree.addParentChild(parent.getId(), child.getId());
+            tree.marry(child.getId(), spouse.getId(), 2022);
+
+            assert tree.relatedAtAll(parent.getId(), spouse.getId());
+            assert !tree.relatedAtAll(parent.getId(), stranger.getId());
+            assert tree.componentSizeOf(spouse.getId()) == 3;
+            assert tree.componentIdOf(child.getId()).equals(tree.componentIdOf(spouse.getId()));
+            assert tree.largestFamilies(1).get(0).getValue() == 3;
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testLazyTraversal() {
+        System.out.print("Test: Lazy Traversal and Cursors... ");
+        try {
+            IdGenerator.reset();
+            FamilyTree tree = new FamilyTree();
+
+            Person root = PersonFactory.createPerson("Root", Gender.MALE, 1900, 1970);
+            tree.addPerson(root);
+            for (int i = 0; i < 5; i++) {
+                Person child = PersonFactory.createPerson("Child" + i, Gender.FEMALE, 1930, 2000);
+                tree.addPerson(child);
+                tree.addParentChild(root.getId(), child.getId());
+                for (int j = 0; j < 3; j++) {
+                    Person grandchild = PersonFactory.createPerson("Grandchild" + i + j, Gender.MALE, 1960, null);
+                    tree.addPerson(grandchild);
+                    tree.addParentChild(child.getId(), grandchild.getId());
+                }
+            }
+
+            assert tree.descendantsStream(root.getId(), 2).count() == 21;
+            assert tree.descendantsStream(root.getId(), 1).count() == 6;
+            assert tree.descendantsStream(root.getId(), 2).parallel().distinct().count() == 21;
+            assert tree.descendantsStream(root.getId(), 2).findFirst().get() == root;
+            // A single root is expanded until there is a generation to split
+            assert tree.descendantsStream(root.getId(), 2).spliterator().trySplit() != null;
+            assert tree.descendantsStream(root.getId(), 2).parallel().count() == 21;
+
+            // X is two generations down through B but three through A and M; a split that
+            // reaches X the long way first must not stop Y from being found through B
+            FamilyTree dag = new FamilyTree();
+            Map<String, Person> byName = new HashMap<>();
+            for (String name : new String[]{"R", "A", "B", "M", "X", "Y"}) {
+                Person person = PersonFactory.createPerson(name, Gender.MALE, 1900, null);
+                dag.addPerson(person);
+                byName.put(name, person);
+            }
+            String[][] links = {{"R", "A"}, {"R", "B"}, {"A", "M"}, {"M", "X"}, {"B", "X"}, {"X", "Y"}};
+            for (String[] link : links) {
+                dag.addParentChild(byName.get(link[0]).getId(), byName.get(link[1]).getId());
+            }
+            Spliterator<Person> rest = dag.descendantsStream(byName.get("R").getId(), 3).spliterator();
+            Spliterator<Person> first = rest.trySplit();
+            List<String> names = new ArrayList<>();
+            first.forEachRemaining(person -> names.add(person.getFullName()));
+            rest.forEachRemaining(person -> names.add(person.getFullName()));
+            assert names.size() == 6 && new HashSet<>(names).size() == 6 : names;
+
+            Set<Person> paged = new HashSet<>();
+            TraversalCursor cursor = TraversalCursor.descendants(root.getId(), 2);
+            while (cursor != null) {
+                TraversalCursor.Page page = tree.page(TraversalCursor.decode(cursor.encode()), 4);
+                paged.addAll(page.getItems());
+                cursor = page.getNext();
+            }
+            assert paged.size() == 21;
+
+            // Following returned cursors resumes the walk and matches a replay from tokens
+            List<Person> resumed = new ArrayList<>();
+            cursor = TraversalCursor.descendants(root.getId(), 2);
+            while (cursor != null) {
+                TraversalCursor.Page page = tree.page(cursor, 4);
+                resumed.addAll(page.getItems());
+                cursor = page.getNext();
+            }
+            assert resumed.equals(tree.descendantsStream(root.getId(), 2).collect(Collectors.toList()));
+            TraversalCursor second = tree.page(TraversalCursor.descendants(root.getId(), 2), 4).getNext();
+            List<Person> secondPage = tree.page(second, 4).getItems();
+            assert tree.page(second, 4).getItems().equals(secondPage);
+
+            // Lines meeting many generations apart still produce the person once
+            FamilyTree collapse = new FamilyTree();
+            Person top = PersonFactory.createPerson("Top", Gender.MALE, 1800, null);
+            Person meeting = PersonFactory.createPerson("Meeting", Gender.MALE, 1900, null);
+            collapse.addPerson(top);
+            collapse.addPerson(meeting);
+            collapse.addParentChild(top.getId(), meeting.getId());
+            Person line = top;
+            for (int i = 0; i < 12; i++) {
+                Person next = PersonFactory.createPerson("Line" + i, Gender.MALE, 1805 + i * 5, null);
+                collapse.addPerson(next);
+                collapse.addParentChild(line.getId(), next.getId());
+                line = next;
+            }
+            Person otherParent = PersonFactory.createPerson("Other", Gender.FEMALE, 1870, null);
+            collapse.addPerson(otherParent);
+            collapse.addParentChild(line.getId(), otherParent.getId());
+            collapse.addParentChild(otherParent.getId(), meeting.getId());
+            assert collapse.descendantsStream(top.getId(), 20).count() == 15;
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testBatchQueries() {
+        System.out.print("Test: Batch Ancestor Queries... ");
+        try {
+            IdGenerator.reset();
+            FamilyTree tree = new FamilyTree();
+
+            Person grandparent = PersonFactory.createPerson("Grandparent", Gender.MALE, 1900, 1970);
+            tree.addPerson(grandparent);
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < 70; i++) {
+                Person parent = PersonFactory.createPerson("Parent" + i, Gender.FEMALE, 1930, 2000);
+                Person child = PersonFactory.createPerson("Child" + i, Gender.MALE, 1960, null);
+                tree.addPerson(parent);
+                tree.addPerson(child);
+                tree.addParentChild(grandparent.getId(), parent.getId());
+                tree.addParentChild(parent.getId(), child.getId());
+                ids.add(child.getId());
+            }
+
+            Map<String, List<Person>> ancestors = tree.ancestorsOfAll(ids, 2);
+            Map<String, Integer> counts = tree.ancestorCounts(ids, 1);
+
+            assert ancestors.size() == 70;
+            for (String id : ids) {
+                assert new HashSet<>(ancestors.get(id)).equals(new HashSet<>(tree.ancestorsOf(id, 2)));
+                assert counts.get(id) == 2;
+            }
+            assert tree.descendantCounts(List.of(grandparent.getId()), 2).get(grandparent.getId()) == 141;
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testValidation() {
+        System.out.print("Test: Tree Validation... ");
+        try {
+            IdGenerator.reset();
+            FamilyTree tree = new FamilyTree();
+
+            Person parent = PersonFactory.createPerson("Parent", Gender.FEMALE, 1970, null);
+            Person child = PersonFactory.createPerson("Child", Gender.MALE, 2000, null);
+            Person late = PersonFactory.createPerson("Late", Gender.MALE, 1950, 1990);
+
+            tree.addPerson(parent);
+            tree.addPerson(child);
+            tree.addPerson(late);
+            tree.addParentChild(parent.getId(), child.getId());
+
+            assert tree.validate().isValid();
+
+            // Born after the child and married after death
+            tree.addParentChild(child.getId(), late.getId());
+            tree.marry(late.getId(), parent.getId(), 1995);
+
+            ValidationReport report = tree.revalidate();
+            assert report.getIssues().size() == 2;
+            assert report.getIssues().get(0).getRule() == ValidationReport.Rule.PARENT_BORN_AFTER_CHILD;
+            assert report.getIssues().get(1).getRule() == ValidationReport.Rule.SPOUSE_NOT_ALIVE_AT_MARRIAGE;
+            assert tree.validate().getIssues().size() == 2;
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testChangeFeed() {
+        System.out.print("Test: Change Feed... ");
+        try {
+            IdGenerator.reset();
+            FamilyTree tree = new FamilyTree();
+            List<TreeEvent> received = new ArrayList<>();
+            ChangeFeed.Subscription subscription = tree.changes().subscribe(received::addAll, 0, 2);
+
+            Person parent = PersonFactory.createPerson("Parent", Gender.FEMALE, 1970, null);
+            Person child = PersonFactory.createPerson("Child", Gender.MALE, 2000, null);
+            tree.addPerson(parent);
+            assert received.isEmpty();
+            tree.addPerson(child);
+            assert received.size() == 2;
+
+            tree.addParentChild(parent.getId(), child.getId());
+            tree.setDeathYear(parent.getId(), 2020);
+            tree.marry(parent.getId(), child.getId(), 2019);
+            assert received.size() == 4;
+            subscription.flush();
+            assert received.size() == 5;
+            assert subscription.position() == 5;
+
+            List<TreeEvent> replay = tree.changes().read(2, 10);
+            assert replay.size() == 3;
+            assert replay.get(0).getType() == TreeEvent.Type.PARENT_CHILD_LINKED;
+            assert replay.get(1).getValue().equals("2020");
+            assert replay.get(2).getSequence() == 4;
+
+            // The ring starts small and grows with the events it holds
+            assert new FamilyTree().changes().capacity() < tree.changes().maxCapacity();
+            ChangeFeed feed = new ChangeFeed(4);
+            TreeEvent event = TreeEvent.personAdded("E1", "Event Person", Gender.MALE, 1990, null);
+            int[] failures = {1};
+            List<TreeEvent> delivered = new ArrayList<>();
+            ChangeFeed.Subscription flaky = feed.subscribe(batch -> {
+                if (failures[0]-- > 0) {
+                    throw new IllegalStateException("disk full");
+                }
+                delivered.addAll(batch);
+            }, 0, 1);
+            ChangeFeed.Subscription broken = feed.subscribe(batch -> {
+                throw new IllegalStateException("always");
+            }, 0, 1);
+            feed.publish(event);
+            // A throwing listener neither fails the publish nor loses its batch
+            assert flaky.failure() != null && flaky.position() == 0;
+            for (int i = 0; i < 9; i++) {
+                feed.publish(event);
+            }
+            assert flaky.failure() == null && delivered.size() == 10;
+            assert broken.isDetached();
+            try {
+                feed.subscribe(batch -> { }, 0, 1);
+                assert false;
+            } catch (IllegalArgumentException expected) {
+                // sequence 0 has left the ring
+            }
+            try {
+                feed.subscribe(batch -> { }, feed.lastSequence() + 1, feed.maxCapacity() + 1);
+                assert false;
+            } catch (IllegalArgumentException expected) {
+                // a batch larger than the ring could never be delivered
+            }
+
+            // A listener that publishes sees each event exactly once
+            List<Long> echoed = new ArrayList<>();
+            feed.subscribe(batch -> {
+                for (TreeEvent e : batch) {
+                    echoed.add(e.getSequence());
+                    if (echoed.size() < 3) {
+                        feed.publish(event);
+                    }
+                }
+            }, feed.lastSequence() + 1, 1);
+            long first = feed.publish(event);
+            assert echoed.equals(Arrays.asList(first, first + 1, first + 2));
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testReplication() {
+        System.out.print("Test: Leader/Follower Replication... ");
+        try {
+            IdGenerator.reset();
+            Path dir = Files.createTempDirectory("replication");
+            Path log = dir.resolve("leader.log");
+            Path snapshot = dir.resolve("leader.snapshot");
+            FamilyTree leader = new FamilyTree();
+
+            Person grandparent = PersonFactory.createPerson("Grandparent", Gender.MALE, 1950, null);
+            leader.addPerson(grandparent);
+            // Children linked out of creation order, one with its second-created parent first
+            Person mother = PersonFactory.createPerson("Mother", Gender.FEMALE, 1940, null);
+            Person father = PersonFactory.createPerson("Father", Gender.MALE, 1938, null);
+            leader.addPerson(mother);
+            leader.addPerson(father);
+            List<Person> siblings = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                Person sibling = PersonFactory.createPerson("Sibling" + i, Gender.MALE, 1960 + i, null);
+                leader.addPerson(sibling);
+                siblings.add(0, sibling);
+            }
+            for (Person sibling : siblings) {
+                leader.addParentChild(father.getId(), sibling.getId());
+            }
+            leader.addParentChild(mother.getId(), siblings.get(4).getId());
+            leader.addParentChild(mother.getId(), siblings.get(1).getId());
+
+            try (LogShipper shipper = new LogShipper(leader, log, 2)) {
+                Person parent = PersonFactory.createPerson("Parent", Gender.FEMALE, 1975, null);
+                Person child = PersonFactory.createPerson("Child", Gender.MALE, 2000, null);
+                leader.addPerson(parent);
+                leader.addPerson(child);
+                leader.addParentChild(grandparent.getId(), parent.getId());
+                shipper.snapshot(snapshot);
+                leader.addParentChild(parent.getId(), child.getId());
+                leader.setDeathYear(grandparent.getId(), 2020);
+                shipper.flush();
+
+                // Bytes before the snapshot's recorded offset are never read again
+                int snapshotOffset = Integer.parseInt(Files.readAllLines(snapshot).get(0).split("\t")[2]);
+                assert snapshotOffset > 0;
+                byte[] logBytes = Files.readAllBytes(log);
+                Arrays.fill(logBytes, 0, snapshotOffset, (byte) '#');
+                Files.write(log, logBytes);
+
+                Follower follower = new Follower(log);
+                follower.catchUpFromSnapshot(snapshot);
+                assert follower.ancestorsOf(parent.getId(), 2).size() == 2;
+                assert follower.getPerson(father.getId()).getChildren().equals(
+                        siblings.stream().map(p -> follower.getPerson(p.getId())).collect(Collectors.toList()));
+                assert follower.getPerson(mother.getId()).getChildren().get(0).getId().equals(siblings.get(4).getId());
+                assert follower.getPerson(siblings.get(1).getId()).getParent1().getId().equals(father.getId());
+
+                assert follower.poll(1) == 1;
+                assert follower.lag() == 1;
+                follower.catchUp();
+                assert follower.lag() == 0;
+                assert follower.appliedSequence() == leader.changes().lastSequence();
+                assert follower.descendantsOf(grandparent.getId(), 2).size() == 3;
+                assert follower.getPerson(grandparent.getId()).getDeathYear() == 2020;
+                assert follower.renderDescendants(grandparent.getId(), 2)
+                        .equals(leader.renderDescendants(grandparent.getId(), 2));
+            }
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testStandingQueries() {
+        System.out.print("Test: Standing Queries... ");
+        try {
+            IdGenerator.reset();
+            FamilyTree tree = new FamilyTree();
+
+            Person root = PersonFactory.createPerson("Root", Gender.MALE, 1900, 1970);
+            Person child1 = PersonFactory.createPerson("Child1", Gender.FEMALE, 1930, null);
+            Person child2 = PersonFactory.createPerson("Child2", Gender.MALE, 1932, null);
+            Person grandchild = PersonFactory.createPerson("Grandchild", Gender.MALE, 1960, null);
+            tree.addPerson(root);
+            tree.addPerson(child1);
+            tree.addPerson(child2);
+            tree.addPerson(grandchild);
+            tree.addParentChild(root.getId(), child1.getId());
+
+            DescendantsStandingQuery descendants = tree.register(
+                    new DescendantsStandingQuery(root.getId(), 2, true));
+            LivingSiblingsStandingQuery siblings = tree.register(
+                    new LivingSiblingsStandingQuery(child1.getId()));
+            List<Person> added = new ArrayList<>();
+            List<Person> removed = new ArrayList<>();
+            descendants.subscribe((query, a, r) -> {
+                added.addAll(a);
+                removed.addAll(r);
+            });
+
+            assert descendants.results().equals(Set.of(child1));
+            assert siblings.results().isEmpty();
+
+            tree.addParentChild(child1.getId(), grandchild.getId());
+            tree.addParentChild(root.getId(), child2.getId());
+            assert added.equals(List.of(grandchild, child2));
+            assert siblings.results().equals(Set.of(child2));
+
+            tree.setDeathYear(child2.getId(), 2000);
+            assert removed.equals(List.of(child2));
+            assert siblings.results().isEmpty();
+            assert descendants.results().equals(Set.of(child1, grandchild));
+
+            // Merging the watched people away re-points the queries to the kept records
+            Person rootCopy = PersonFactory.createPerson("Root", Gender.MALE, 1900, 1970);
+            Person child1Copy = PersonFactory.createPerson("Child1", Gender.FEMALE, 1930, null);
+            tree.addPerson(rootCopy);
+            tree.addPerson(child1Copy);
+            tree.merge(rootCopy.getId(), root.getId());
+            tree.merge(child1Copy.getId(), child1.getId());
+            assert descendants.results().equals(Set.of(child1Copy, grandchild));
+            Person late = PersonFactory.createPerson("Late", Gender.FEMALE, 1990, null);
+            tree.addPerson(late);
+            tree.addParentChild(rootCopy.getId(), late.getId());
+            assert descendants.results().contains(late);
+            assert siblings.results().equals(Set.of(late));
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testSubtreeAggregates() {
+        System.out.print("Test: Subtree Aggregates... ");
+        try {
+            IdGenerator.reset();
+            FamilyTree tree = new FamilyTree();
+
+            Person founder = PersonFactory.createPerson("Founder", Gender.MALE, 1850, 1920);
+            Person son = PersonFactory.createPerson("Son", Gender.MALE, 1880, 1950);
+            Person daughter = PersonFactory.createPerson("Daughter", Gender.FEMALE, 1882, 1960);
+            Person grandchild = PersonFactory.createPerson("Grandchild", Gender.MALE, 1910, null);
+            tree.addPerson(founder);
+            tree.addPerson(son);
+            tree.addPerson(daughter);
+            tree.addPerson(grandchild);
+
+            // Grandchild is reached through both children but counted once
+            tree.addParentChild(son.getId(), grandchild.getId());
+            tree.addParentChild(daughter.getId(), grandchild.getId());
+            tree.addParentChild(founder.getId(), son.getId());
+            tree.addParentChild(founder.getId(), daughter.getId());
+
+            assert tree.descendantCountOf(founder.getId()) == 3;
+            assert tree.livingDescendantCountOf(founder.getId()) == 1;
+            assert tree.lineDepthOf(founder.getId()) == 2;
+
+            tree.setDeathYear(grandchild.getId(), 1990);
+            assert tree.livingDescendantCountOf(founder.getId()) == 0;
+
+            Person other = PersonFactory.createPerson("Other", Gender.FEMALE, 1900, null);
+            tree.addPerson(other);
+            for (int i = 0; i < 1000; i++) {
+                Person child = PersonFactory.createPerson("Child" + i, Gender.MALE, 1930, null);
+                tree.addPerson(child);
+                tree.addParentChild(other.getId(), child.getId());
+            }
+            long estimate = tree.descendantCountOf(other.getId());
+            assert estimate > 900 && estimate < 1100;
+            assert tree.mostProlificFounders(2).equals(List.of(other, founder));
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testQueryPlanner() {
+        System.out.print("Test: Query Planner... ");
+        try {
+            IdGenerator.reset();
+            FamilyTree tree = new FamilyTree();
+
+            Person root = PersonFactory.createPerson("Root", Gender.MALE, 1870, 1940);
+            Person daughter = PersonFactory.createPerson("Daughter", Gender.FEMALE, 1900, 1980);
+            Person son = PersonFactory.createPerson("Son", Gender.MALE, 1905, 1990);
+            Person granddaughter = PersonFactory.createPerson("Granddaughter", Gender.FEMALE, 1930, null);
+            Person late = PersonFactory.createPerson("Late", Gender.FEMALE, 1960, null);
+            Person stranger = PersonFactory.createPerson("Stranger", Gender.FEMALE, 1920, null);
+            for (Person p : List.of(root, daughter, son, granddaughter, late, stranger)) {
+                tree.addPerson(p);
+            }
+            tree.addParentChild(root.getId(), daughter.getId());
+            tree.addParentChild(root.getId(), son.getId());
+            tree.addParentChild(daughter.getId(), granddaughter.getId());
+            tree.addParentChild(granddaughter.getId(), late.getId());
+
+            QueryPlan plan = QueryPlanner.plan(tree, QueryParser.parse(
+                    "DESCENDANTS OF " + root.getId() + " WHERE gender = FEMALE AND born BETWEEN 1900 AND 1950 AND alive"));
+            assert plan.getAccessPath() == QueryPlan.AccessPath.TRAVERSE_DESCENDANTS;
+            assert plan.stream().collect(Collectors.toList()).equals(List.of(granddaughter));
+            assert plan.explain().contains("pushdown");
+            // WITHIN narrows the descendant estimate; it means nothing for siblings
+            assert QueryPlanner.plan(tree, QueryParser.parse("DESCENDANTS OF " + root.getId() + " WITHIN 1"))
+                    .getEstimatedInput() < plan.getEstimatedInput();
+            try {
+                QueryParser.parse("SIBLINGS OF " + son.getId() + " WITHIN 2");
+                assert false;
+            } catch (IllegalArgumentException expected) {
+                assert expected.getMessage().contains("WITHIN");
+            }
+
+            // Walking five of six people costs more than scanning all six
+            QueryPlan builder = QueryPlanner.plan(tree, Query.all().relatedTo(root.getId()).gender(Gender.FEMALE));
+            assert builder.getAccessPath() == QueryPlan.AccessPath.SCAN_ALL;
+            assert builder.stream().count() == 3;
+
+            QueryPlan empty = QueryPlanner.plan(tree, Query.ancestorsOf(late.getId()).relatedTo(stranger.getId()));
+            assert empty.getAccessPath() == QueryPlan.AccessPath.EMPTY;
+            assert QueryPlanner.plan(tree, QueryParser.parse("ALL WHERE born before 1901 LIMIT 1")).stream().count() == 1;
+
+            for (int i = 0; i < 12; i++) {
+                tree.addPerson(PersonFactory.createPerson("Unrelated" + i, Gender.FEMALE, 1950, null));
+            }
+            builder = QueryPlanner.plan(tree, Query.all().relatedTo(root.getId()).gender(Gender.FEMALE));
+            assert builder.getAccessPath() == QueryPlan.AccessPath.COMPONENT_WALK;
+            assert builder.stream().count() == 3;
+
+            // A parent born after the child turns pruning off without validating the tree
+            assert tree.birthOrderViolations() == 0;
+            Person older = PersonFactory.createPerson("Older", Gender.MALE, 1900, null);
+            tree.addPerson(older);
+            tree.addParentChild(late.getId(), older.getId());
+            assert tree.birthOrderViolations() == 1;
+            plan = QueryPlanner.plan(tree, QueryParser.parse(
+                    "DESCENDANTS OF " + root.getId() + " WHERE born BETWEEN 1900 AND 1950"));
+            assert plan.explain().contains("pushdown: disabled");
+            assert plan.stream().collect(Collectors.toList()).equals(List.of(daughter, son, granddaughter, older));
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testDuplicateMerge() {
+        System.out.print("Test: Duplicate Detection and Merge... ");
+        try {
+            IdGenerator.reset();
+            FamilyTree tree = new FamilyTree();
+
+            Person father = PersonFactory.createPerson("Ivan Petrov", Gender.MALE, 1850, 1910);
+            Person son = PersonFactory.createPerson("Pyotr Petrov", Gender.MALE, 1880, 1940);
+            Person duplicate = PersonFactory.createPerson("Ivan Petroff", Gender.MALE, 1851, 1910);
+            Person wife = PersonFactory.createPerson("Anna Petrova", Gender.FEMALE, 1855, 1920);
+            Person other = PersonFactory.createPerson("Boris Sidorov", Gender.MALE, 1850, null);
+            for (Person p : List.of(father, son, duplicate, wife, other)) {
+                tree.addPerson(p);
+            }
+            tree.addParentChild(father.getId(), son.getId());
+            tree.marry(duplicate.getId(), wife.getId(), 1875);
+            duplicate.setDivorceYear(1890);
+            wife.setDivorceYear(1890);
+
+            List<MatchCandidate> matches = new DuplicateFinder(tree).findDuplicates(0.7);
+            assert matches.size() == 1;
+            assert matches.get(0).getFirst() == father && matches.get(0).getSecond() == duplicate;
+
+            Person mother = PersonFactory.createPerson("Olga Petrova", Gender.FEMALE, 1852, null);
+            Person daughter = PersonFactory.createPerson("Vera Petrova", Gender.FEMALE, 1849, null);
+            tree.addPerson(mother);
+            tree.addPerson(daughter);
+            tree.addParentChild(mother.getId(), daughter.getId());
+            tree.addParentChild(duplicate.getId(), daughter.getId());
+            int violations = tree.birthOrderViolations();
+            tree.merge(father.getId(), duplicate.getId());
+            assert !tree.containsPerson(duplicate.getId());
+            assert father.getSpouse() == wife && wife.getSpouse() == father;
+            assert tree.relatedAtAll(son.getId(), wife.getId());
+            // The record keeps drop's parent slot and marriage, and indexes are updated in place
+            assert daughter.getParent1() == mother && daughter.getParent2() == father;
+            assert father.getChildren().equals(List.of(son, daughter));
+            assert father.getDivorceYear() == 1890 && wife.getDivorceYear() == 1890;
+            assert tree.componentSizeOf(son.getId()) == 5;
+            assert tree.largestFamilies(1).get(0).getValue() == 5;
+            assert tree.containsPerson(tree.largestFamilies(1).get(0).getKey());
+            assert tree.descendantCountOf(father.getId()) == 2;
+            assert tree.birthOrderViolations() == violations;
+            ComponentIndex index = new ComponentIndex();
+            index.add("A");
+            index.add("B");
+            index.union("A", "B");
+            index.remove("A", "B");
+            index.add("A");
+            assert index.sizeOf("A") == 1 && index.sizeOf("B") == 1 && index.componentCount() == 2;
+
+            // Filed under maiden and married surnames, each married to a record of the same man
+            FamilyTree couples = new FamilyTree();
+            Person maiden = PersonFactory.createPerson("Maria Ivanova", Gender.FEMALE, 1880, null);
+            Person married = PersonFactory.createPerson("Maria Orlova", Gender.FEMALE, 1880, null);
+            Person husband = PersonFactory.createPerson("Pavel Orlov", Gender.MALE, 1878, null);
+            Person husbandAgain = PersonFactory.createPerson("Pavel Orloff", Gender.MALE, 1878, null);
+            for (Person p : List.of(maiden, married, husband, husbandAgain)) {
+                couples.addPerson(p);
+            }
+            couples.marry(maiden.getId(), husband.getId(), 1900);
+            couples.marry(married.getId(), husbandAgain.getId(), 1900);
+            assert new DuplicateFinder(couples).findDuplicates(0.5).stream()
+                    .anyMatch(c -> c.getFirst() == maiden && c.getSecond() == married);
+
+            // One surname and year shared by too many: split by given name, count what is left out
+            FamilyTree crowd = new FamilyTree();
+            for (int i = 0; i < 510; i++) {
+                crowd.addPerson(PersonFactory.createPerson("Anna Smith", Gender.FEMALE, 1900, null));
+            }
+            Person john = PersonFactory.createPerson("John Smith", Gender.MALE, 1900, null);
+            Person jon = PersonFactory.createPerson("Jon Smith", Gender.MALE, 1900, null);
+            crowd.addPerson(john);
+            crowd.addPerson(jon);
+            DuplicateFinder crowdFinder = new DuplicateFinder(crowd);
+            List<MatchCandidate> found = crowdFinder.findDuplicates(0.7);
+            assert found.size() == 1 && found.get(0).getFirst() == john && found.get(0).getSecond() == jon;
+            // Both overlapping year buckets hold every Anna
+            assert crowdFinder.skippedBlocks() == 2;
+            assert crowdFinder.skippedPairs() == 2L * 510 * 509 / 2;
+
+            try {
+                tree.merge(father.getId(), son.getId());
+                System.out.println("FAILED: Should have thrown exception");
+                return false;
+            } catch (IllegalArgumentException e) {
+                System.out.println("PASSED");
+                return true;
+            }
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testPathBetween() {
+        System.out.print("Test: Relationship Path... ");
+        try {
+            IdGenerator.reset();
+            FamilyTree tree = new FamilyTree();
+
+            Person grandparent = PersonFactory.createPerson("Grandparent", Gender.MALE, 1900, 1970);
+            Person mother = PersonFactory.createPerson("Mother", Gender.FEMALE, 1930, null);
+            Person uncle = PersonFactory.createPerson("Uncle", Gender.MALE, 1932, null);
+            Person aunt = PersonFactory.createPerson("Aunt", Gender.FEMALE, 1935, null);
+            Person me = PersonFactory.createPerson("Me", Gender.MALE, 1960, null);
+            Person stranger = PersonFactory.createPerson("Stranger", Gender.MALE, 1960, null);
+            for (Person p : List.of(grandparent, mother, uncle, aunt, me, stranger)) {
+                tree.addPerson(p);
+            }
+            tree.addParentChild(grandparent.getId(), mother.getId());
+            tree.addParentChild(grandparent.getId(), uncle.getId());
+            tree.addParentChild(mother.getId(), me.getId());
+            tree.marry(uncle.getId(), aunt.getId(), 1958);
+
+            RelationshipPath path = tree.pathBetween(me.getId(), aunt.getId());
+            assert path.hops() == 4;
+            assert path.getPeople().equals(List.of(me, mother, grandparent, uncle, aunt));
+            assert path.getEdges().equals(List.of(EdgeType.PARENT, EdgeType.PARENT, EdgeType.CHILD, EdgeType.SPOUSE));
+            assert path.toString().equals("P005 -PARENT-> P002 -PARENT-> P001 -CHILD-> P003 -SPOUSE-> P004");
+
+            assert tree.pathBetween(me.getId(), aunt.getId(), EnumSet.of(EdgeType.PARENT, EdgeType.CHILD), 10) == null;
+            assert tree.pathBetween(me.getId(), aunt.getId(), EnumSet.allOf(EdgeType.class), 3) == null;
+            assert tree.pathBetween(aunt.getId(), me.getId()).hops() == 4;
+            assert tree.pathBetween(me.getId(), stranger.getId()) == null;
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testTreeStatistics() {
+        System.out.print("Test: Tree Statistics... ");
+        try {
+            IdGenerator.reset();
+            FamilyTree tree = new FamilyTree();
+
+            Person father = PersonFactory.createPerson("Father", Gender.MALE, 1900, 1970);
+            Person mother = PersonFactory.createPerson("Mother", Gender.FEMALE, 1905, 1985);
+            Person child = PersonFactory.createPerson("Child", Gender.FEMALE, 1930, null);
+            Person minor = PersonFactory.createPerson("Minor", Gender.MALE, 2015, null);
+            for (Person p : List.of(father, mother, child, minor)) {
+                tree.addPerson(p);
+            }
+            tree.marry(father.getId(), mother.getId(), 1925);
+            tree.addParentChild(father.getId(), child.getId());
+            tree.addParentChild(mother.getId(), child.getId());
+
+            TreeStatistics stats = TreeStatistics.compute(tree);
+            assert stats.getAll().getPeople() == 4;
+            assert stats.getAll().getLiving() == 2;
+            assert stats.getAll().birthsInDecade(1900) == 2;
+            assert stats.getAll().getLifespan().getMean() == 75.0;
+            assert stats.getAll().getChildren().getMean() == 0.5;
+            assert stats.getAll().getMarriageAge().getMin() == 20;
+            assert stats.byGender(Gender.FEMALE).getPeople() == 2;
+            assert stats.byGender(Gender.OTHER).getPeople() == 0;
+            assert stats.byPersonType("Minor").getPeople() == 1;
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testGraphExport() {
+        System.out.print("Test: Graph Export... ");
+        try {
+            IdGenerator.reset();
+            FamilyTree tree = new FamilyTree();
+
+            // Cousin marriage: the shared grandparent is reached along two paths
+            Person grandparent = PersonFactory.createPerson("Grand \"Pa\"", Gender.MALE, 1850, 1920);
+            Person son = PersonFactory.createPerson("Son", Gender.MALE, 1875, 1940);
+            Person daughter = PersonFactory.createPerson("Daughter", Gender.FEMALE, 1877, 1950);
+            Person grandson = PersonFactory.createPerson("Grandson", Gender.MALE, 1900, 1970);
+            Person granddaughter = PersonFactory.createPerson("Granddaughter", Gender.FEMALE, 1902, 1980);
+            Person child = PersonFactory.createPerson("Child", Gender.MALE, 1930, null);
+            for (Person p : List.of(grandparent, son, daughter, grandson, granddaughter, child)) {
+                tree.addPerson(p);
+            }
+            tree.addParentChild(grandparent.getId(), son.getId());
+            tree.addParentChild(grandparent.getId(), daughter.getId());
+            tree.addParentChild(son.getId(), grandson.getId());
+            tree.addParentChild(daughter.getId(), granddaughter.getId());
+            tree.addParentChild(grandson.getId(), child.getId());
+            tree.addParentChild(granddaughter.getId(), child.getId());
+
+            StringBuilder dot = new StringBuilder();
+            tree.exportAncestors(child.getId(), 3, new DotRenderer(), dot);
+            assert dot.toString().split("\\[label=").length - 1 == 6;
+            assert dot.toString().split(" -> ").length - 1 == 6;
+            assert dot.toString().contains("Grand \\\"Pa\\\"");
+
+            String fromTree = new DotRenderer().render(PersonNode.buildAncestorTree(child, 3));
+            assert fromTree.split("\\[label=").length - 1 == 6;
+
+            StringBuilder json = new StringBuilder();
+            tree.exportAll(new JsonGraphRenderer(), json);
+            assert json.toString().split("\"group\":\"nodes\"").length - 1 == 6;
+            assert json.toString().split("\"group\":\"edges\"").length - 1 == 6;
+            assert json.toString().startsWith("{\"elements\":[\n{");
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testGedcomRoundTrip() {
+        System.out.print("Test: GEDCOM Round Trip... ");
+        try {
+            // Families before individuals exercise the forward-reference pass
+            String gedcom = String.join("\n",
+                    "0 HEAD",
+                    "1 CHAR UTF-8",
+                    "0 @F1@ FAM",
+                    "1 HUSB @I1@",
+                    "1 WIFE @I2@",
+                    "1 MARR",
+                    "2 DATE 12 JUN 1925",
+                    "1 CHIL @I3@",
+                    "0 @I1@ INDI",
+                    "1 NAME John /Smith/",
+                    "1 SEX M",
+                    "1 BIRT",
+                    "2 DATE ABT 1900",
+                    "1 DEAT",
+                    "2 DATE 1970",
+                    "0 @I2@ INDI",
+                    "1 NAME Mary /Jones/",
+                    "1 SEX F",
+                    "1 BIRT",
+                    "2 DATE 3 MAR 1902",
+                    "0 @I3@ INDI",
+                    "1 NAME Tom /Smith/",
+                    "1 SEX M",
+                    "1 BIRT",
+                    "2 DATE 1930",
+                    "0 @I4@ INDI",
+                    "1 NAME Undated /Person/",
+                    "0 TRLR");
+
+            FamilyTree tree = new FamilyTree();
+            GedcomReader.Result result = new GedcomReader(tree, 2).read(new StringReader(gedcom));
+            assert result.getIndividuals() == 3;
+            assert result.getSkippedIndividuals() == 1;
+            assert result.getDeferredFamilies() == 1;
+            assert result.getLinks() == 3 && result.getRejectedLinks() == 0;
+            assert tree.getPerson("I1").getFullName().equals("John Smith");
+            assert tree.getPerson("I1").getDeathYear() == 1970;
+            assert tree.getPerson("I2").getSpouse() == tree.getPerson("I1");
+            assert tree.getPerson("I2").getMarriageYear() == 1925;
+            assert tree.childrenOf("I2").size() == 1;
+
+            StringBuilder out = new StringBuilder();
+            new GedcomWriter(out).write(tree.people());
+            assert out.toString().contains("1 NAME Tom /Smith/");
+            assert out.toString().split(" FAM\n").length - 1 == 1;
+
+            FamilyTree copy = new FamilyTree();
+            GedcomReader.Result again = new GedcomReader(copy, 1000).read(new StringReader(out.toString()));
+            assert again.getIndividuals() == 3 && again.getDeferredFamilies() == 0;
+            assert copy.getPerson("I3").getParent1() != null && copy.getPerson("I3").getParent2() != null;
+            assert copy.getPerson("I1").getMarriageYear() == 1925;
+
+            // A family of a skipped individual is linked at once instead of waiting for the end
+            GedcomReader.Result skipped = new GedcomReader(new FamilyTree(), 1).read(new StringReader(String.join("\n",
+                    "0 @I1@ INDI", "1 BIRT", "2 DATE 1900",
+                    "0 @I5@ INDI", "1 NAME No /Date/",
+                    "0 @F2@ FAM", "1 HUSB @I5@", "1 CHIL @I1@")));
+            assert skipped.getDeferredFamilies() == 0 && skipped.getRejectedLinks() == 1;
+
+            // Over the deferred limit, waiting families go to a temporary file
+            List<String> lines = new ArrayList<>();
+            for (int f = 0; f < 3; f++) {
+                lines.addAll(List.of("0 @F" + f + "@ FAM", "1 HUSB @P" + f + "@", "1 CHIL @C" + f + "@"));
+            }
+            for (int f = 0; f < 3; f++) {
+                lines.addAll(List.of("0 @P" + f + "@ INDI", "1 BIRT", "2 DATE 1900",
+                        "0 @C" + f + "@ INDI", "1 BIRT", "2 DATE 1930"));
+            }
+            FamilyTree spilledTree = new FamilyTree();
+            GedcomReader.Result spilled = new GedcomReader(spilledTree, 4, 2).read(new StringReader(String.join("\n", lines)));
+            assert spilled.getDeferredFamilies() == 3 && spilled.getSpilledFamilies() == 2;
+            assert spilled.getLinks() == 3 && spilled.getRejectedLinks() == 0;
+            assert spilledTree.getPerson("C0").getParent1().getId().equals("P0");
+
+            try {
+                new GedcomReader(new FamilyTree(), 10).read(new StringReader("0 HEAD\nX BAD"));
+                assert false;
+            } catch (IllegalArgumentException expected) {
+                assert expected.getMessage().startsWith("Line 2");
+            }
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testCousins() {
+        System.out.print("Test: Cousins... ");
+        try {
+            IdGenerator.reset();
+            FamilyTree tree = new FamilyTree();
+            Map<String, Person> byName = new HashMap<>();
+            String[][] people = {
+                    {"Founder", "1850"}, {"GrandA", "1875"}, {"GrandB", "1877"}, {"ParentA1", "1900"},
+                    {"ParentA2", "1902"}, {"ParentB", "1901"}, {"Self", "1925"}, {"Sister", "1927"},
+                    {"Cousin", "1926"}, {"SecondCousin", "1928"}, {"CousinsKid", "1950"}, {"Niece", "1952"}};
+            for (String[] row : people) {
+                Person person = PersonFactory.createPerson(row[0], Gender.FEMALE, Integer.parseInt(row[1]), null);
+                tree.addPerson(person);
+                byName.put(row[0], person);
+            }
+            String[][] links = {
+                    {"Founder", "GrandA"}, {"Founder", "GrandB"}, {"GrandA", "ParentA1"}, {"GrandA", "ParentA2"},
+                    {"GrandB", "ParentB"}, {"ParentA1", "Self"}, {"ParentA1", "Sister"}, {"ParentA2", "Cousin"},
+                    {"ParentB", "SecondCousin"}, {"Cousin", "CousinsKid"},
+                    // Niece is also the cousin's child, but the sister makes her a closer relative
+                    {"Sister", "Niece"}, {"Cousin", "Niece"}};
+            for (String[] link : links) {
+                tree.addParentChild(byName.get(link[0]).getId(), byName.get(link[1]).getId());
+            }
+            String self = byName.get("Self").getId();
+            Function<List<Person>, List<String>> names =
+                    list -> list.stream().map(Person::getFullName).collect(Collectors.toList());
+
+            assert tree.generationOf(self) == 3;
+            assert tree.generationOf(byName.get("Niece").getId()) == 4;
+            assert names.apply(tree.cousinsOf(self, 1, 0)).equals(List.of("Cousin"));
+            assert names.apply(tree.cousinsOf(self, 2, 0)).equals(List.of("SecondCousin"));
+            assert names.apply(tree.cousinsOf(self, 1, 1)).equals(List.of("ParentB", "CousinsKid"));
+            assert tree.cousinsOf(self, 3, 0).isEmpty();
+
+            try {
+                tree.cousinsOf(self, 0, 0);
+                assert false;
+            } catch (IllegalArgumentException expected) {
+                // degree must be at least 1
+            }
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testTreeRegistryEviction() {
+        System.out.print("Test: Tree Registry Eviction... ");
+        try {
+            Path dir = Files.createTempDirectory("tenants");
+            BiConsumer<String, FamilyTree> populate = (tenant, tree) -> {
+                Person a = PersonFactory.createPerson(tenant + "-1", "Parent " + tenant, Gender.MALE, 1900, 1970);
+                Person b = PersonFactory.createPerson(tenant + "-2", "Spouse " + tenant, Gender.FEMALE, 1902, null);
+                Person c = PersonFactory.createPerson(tenant + "-3", "Child " + tenant, Gender.FEMALE, 1930, null);
+                tree.addPerson(a);
+                tree.addPerson(b);
+                tree.addPerson(c);
+                tree.addParentChild(a.getId(), c.getId());
+                tree.addParentChild(b.getId(), c.getId());
+                tree.marry(a.getId(), b.getId(), 1925);
+            };
+            FamilyTree sample = new FamilyTree();
+            populate.accept("gamma", sample);
+            // Room for one three-person tree plus a bit
+            long budget = sample.estimatedBytes() * 3 / 2;
+            TreeRegistry registry = new TreeRegistry(dir, budget);
+
+            for (String tenant : List.of("alpha", "beta")) {
+                try (TreeRegistry.Lease lease = registry.acquire(tenant)) {
+                    populate.accept(tenant, lease.tree());
+                }
+            }
+            // Releasing beta went over budget, so the clock evicted alpha
+            assert !registry.isResident("alpha");
+            assert registry.isResident("beta");
+            assert registry.memoryInUse() <= budget;
+            assert Files.exists(dir.resolve("alpha.tree"));
+
+            try (TreeRegistry.Lease lease = registry.acquire("alpha")) {
+                FamilyTree tree = lease.tree();
+                assert tree.size() == 3;
+                assert tree.getPerson("alpha-3").getParent1().getId().equals("alpha-1");
+                assert tree.getPerson("alpha-3").getParent2().getId().equals("alpha-2");
+                assert tree.getPerson("alpha-1").getSpouse().getId().equals("alpha-2");
+                assert tree.getPerson("alpha-2").getMarriageYear() == 1925;
+                assert tree.getPerson("alpha-1").getDeathYear() == 1970;
+                // Pinned while leased, so beta had to go instead
+                assert registry.isResident("alpha") && !registry.isResident("beta");
+            }
+
+            try (TreeRegistry.Lease lease = registry.acquire("alpha")) {
+                assert lease.tree().size() == 3;
+            }
+            assert registry.misses() == 3 && registry.hits() == 1;
+            assert registry.evictions() == 2;
+            assert registry.footprints().get("alpha") == sample.estimatedBytes();
+
+            try {
+                registry.acquire("../escape");
+                assert false;
+            } catch (IllegalArgumentException expected) {
+                // tenant IDs become file names
+            }
+            registry.close();
+
+            // A tree that cannot be saved stays resident and unpinned; close does not throw
+            TreeRegistry strict = new TreeRegistry(dir, 0);
+            try (TreeRegistry.Lease lease = strict.acquire("delta")) {
+                populate.accept("delta", lease.tree());
+                Files.createDirectories(dir.resolve("delta.tree").resolve("blocker"));
+            }
+            assert strict.isResident("delta");
+            assert strict.evictionFailures() >= 1 && strict.lastEvictionFailure() != null;
+            Files.delete(dir.resolve("delta.tree").resolve("blocker"));
+            Files.delete(dir.resolve("delta.tree"));
+            strict.acquire("epsilon").close();
+            assert !strict.isResident("delta");
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testMemoryReport() {
+        System.out.print("Test: Memory Report... ");
+        try {
+            FamilyTree tree = new FamilyTree();
+            MemoryReport empty = tree.memoryReport();
+            assert empty.bytes(MemoryReport.Component.RECORDS) == 0;
+            // The change-feed ring buffer is allocated up front
+            assert empty.bytes(MemoryReport.Component.CACHES) > 0;
+
+            Person previous = null;
+            for (int i = 0; i < 2100; i++) {
+                Person person = PersonFactory.createPerson("M" + i, "Person " + i, Gender.OTHER, 1900, null);
+                tree.addPerson(person);
+                if (previous != null && i % 2 == 1) {
+                    tree.addParentChild(previous.getId(), person.getId());
+                }
+                previous = person;
+            }
+            MemoryReport report = tree.memoryReport();
+            assert report.getPeople() == 2100;
+            for (MemoryReport.Component component : MemoryReport.Component.values()) {
+                assert report.bytes(component) > 0 : component;
+            }
+            assert report.bytesPerPerson() > 0;
+            // Milestone samples at 1024 and 2048 people plus the two explicit reports
+            assert report.getSamples().size() == 4;
+            assert report.growthBytesPerPerson() > 0;
+
+            long strings = report.bytes(MemoryReport.Component.STRINGS);
+            // Both name tokens already exist, so the name store does not grow
+            tree.setFullName("M0", "Person 7");
+            assert tree.memoryReport().bytes(MemoryReport.Component.STRINGS) == strings;
+
+            long adjacency = tree.memoryReport().bytes(MemoryReport.Component.ADJACENCY);
+            tree.merge("M2", "M4");
+            MemoryReport merged = tree.memoryReport();
+            assert merged.getPeople() == tree.size();
+            assert merged.bytes(MemoryReport.Component.ADJACENCY) < adjacency;
+            assert tree.estimatedBytes() == merged.totalBytes();
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testCsvBulkImport() {
+        System.out.print("Test: CSV Bulk Import... ");
+        try {
+            Path dir = Files.createTempDirectory("csv");
+            Path peopleFile = dir.resolve("people.csv");
+            Path relationsFile = dir.resolve("relations.csv");
+            Files.writeString(peopleFile, String.join("\n",
+                    "id,fullName,gender,birthYear,deathYear",
+                    "C1,Grandfather,MALE,1880,1950",
+                    "C2,\"Smith, Jane \"\"Jo\"\"\",female,1885,",
+                    "C3,Father,MALE,1910,1980\r",
+                    "",
+                    "C4,Mother,FEMALE,1912",
+                    "C5,Child,OTHER,1940,",
+                    "C6,Bad Gender,UNKNOWN,1940,",
+                    "C7,Too Old,MALE,1700,",
+                    "C3,Duplicate,MALE,1910,",
+                    "C8,Stepfather,MALE,1911,1990") + "\n");
+            Files.writeString(relationsFile, String.join("\n",
+                    "type,personA,personB,year",
+                    "PARENT,C1,C3",
+                    "PARENT,C2,C3",
+                    "MARRIAGE,C3,C4,1935",
+                    "PARENT,C3,C5",
+                    "PARENT,C4,C5",
+                    "PARENT,C8,C5",
+                    "PARENT,C5,C1",
+                    "PARENT,C1,C99",
+                    "ADOPTION,C1,C5",
+                    "MARRIAGE,C1,C2"));
+
+            FamilyTree tree = new FamilyTree();
+            // Tiny chunks put boundaries inside rows and quoted fields
+            CsvBulkImporter.Result result = new CsvBulkImporter(tree, 7, 3).importFiles(peopleFile, relationsFile);
+
+            assert result.getPeople() == 6;
+            assert result.getParentLinks() == 4;
+            assert result.getMarriages() == 1;
+            assert result.getErrorCount() == 8;
+            assert tree.getPerson("C2").getFullName().equals("Smith, Jane \"Jo\"");
+            assert tree.getPerson("C2").getGender() == Gender.FEMALE;
+            assert tree.getPerson("C3").getDeathYear() == 1980;
+            assert tree.getPerson("C4").getDeathYear() == null;
+            assert tree.getPerson("C5").getParent2().getId().equals("C4");
+            assert tree.getPerson("C3").getSpouse().getId().equals("C4");
+
+            List<String> errors = result.getErrors().stream()
+                    .map(e -> e.getFile() + ":" + e.getLine()).collect(Collectors.toList());
+            assert errors.equals(List.of("people.csv:8", "people.csv:9", "people.csv:10",
+                    "relations.csv:7", "relations.csv:8", "relations.csv:9", "relations.csv:10",
+                    "relations.csv:11")) : errors;
+            assert result.getErrors().get(0).getMessage().startsWith("Invalid gender");
+
+            // A row far longer than the slack mapped past each chunk
+            String longName = "N".repeat(20_000);
+            Files.writeString(peopleFile, "id,fullName,gender,birthYear,deathYear\n"
+                    + "L1,Before,MALE,1900,\nL2,\"" + longName + "\",FEMALE,1901,\nL3,After,MALE,1902,");
+            Files.writeString(relationsFile, "type,personA,personB,year\nPARENT,L1,L3");
+            FamilyTree longRows = new FamilyTree();
+            result = new CsvBulkImporter(longRows, 64, 2).importFiles(peopleFile, relationsFile);
+            assert result.getPeople() == 3 && result.getErrorCount() == 0;
+            assert longRows.getPerson("L2").getFullName().equals(longName);
+            assert longRows.getPerson("L3").getParent1().getId().equals("L1");
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testPagedStorage() {
+        System.out.print("Test: Paged Storage... ");
+        try {
+            Path file = Files.createTempFile("paged", ".tree");
+            Files.delete(file);
+            // Four 512-byte frames for ~150 records forces constant eviction and write-back
+            PagedShard paged = new PagedShard(file, 512, 4);
+            ShardedFamilyTree onDisk = new ShardedFamilyTree(List.of(paged, new LocalShard()));
+            ShardedFamilyTree inMemory = new ShardedFamilyTree(List.of(new LocalShard()));
+
+            for (int i = 0; i < 150; i++) {
+                Person person = PersonFactory.createPerson("S" + i, "Stored Person " + i, Gender.OTHER,
+                        1800 + i, i % 3 == 0 ? 1800 + i + 60 : null);
+                onDisk.addPerson(person);
+                inMemory.addPerson(person);
+                if (i > 0) {
+                    onDisk.addParentChild("S" + ((i - 1) / 2), "S" + i);
+                    inMemory.addParentChild("S" + ((i - 1) / 2), "S" + i);
+                }
+            }
+            // A second parent, then a third is refused
+            onDisk.addParentChild("S5", "S100");
+            try {
+                onDisk.addParentChild("S6", "S100");
+                assert false;
+            } catch (IllegalArgumentException expected) {
+                // two parents at most
+            }
+            try {
+                onDisk.addParentChild("S100", "S0");
+                assert false;
+            } catch (IllegalArgumentException expected) {
+                // cycle
+            }
+            inMemory.addParentChild("S5", "S100");
+
+            assert new HashSet<>(onDisk.descendantsOf("S0", 4)).equals(new HashSet<>(inMemory.descendantsOf("S0", 4)));
+            assert new HashSet<>(onDisk.ancestorsOf("S149", 10)).equals(new HashSet<>(inMemory.ancestorsOf("S149", 10)));
+            assert new HashSet<>(onDisk.siblingsOf("S100")).equals(new HashSet<>(inMemory.siblingsOf("S100")));
+            assert onDisk.describe("S3").equals(inMemory.describe("S3"));
+
+            BufferPool pool = paged.getBufferPool();
+            assert pool.misses() > 0 && pool.hits() > 0;
+            assert pool.evictions() > 0 && pool.writeBacks() > 0;
+            assert pool.prefetched() > 0;
+
+            String storedId = null;
+            for (int i = 0; i < 150 && storedId == null; i++) {
+                if (paged.contains("S" + i) && i > 0) {
+                    storedId = "S" + i;
+                }
+            }
+            int size = paged.size();
+            Map<String, List<String>> parents = paged.parentsOf(List.of(storedId));
+            paged.close();
+
+            // Reopening rebuilds the ID directory from the record pages
+            try (PagedShard reopened = new PagedShard(file, 512, 4)) {
+                assert reopened.size() == size;
+                assert reopened.parentsOf(List.of(storedId)).equals(parents);
+                Person person = reopened.getPerson(storedId);
+                assert person.getFullName().equals("Stored Person " + storedId.substring(1));
+            }
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testMemoizedRendering() {
+        System.out.print("Test: Memoized Rendering... ");
+        try {
+            IdGenerator.reset();
+            FamilyTree tree = new FamilyTree();
+            List<Person> people = new ArrayList<>();
+            for (int i = 0; i < 15; i++) {
+                Person person = PersonFactory.createPerson("P" + i, Gender.MALE, 1800 + i * 10, null);
+                tree.addPerson(person);
+                people.add(person);
+            }
+            // Binary tree: person i has children 2i+1 and 2i+2
+            for (int i = 0; i < 7; i++) {
+                tree.addParentChild(people.get(i).getId(), people.get(2 * i + 1).getId());
+                tree.addParentChild(people.get(i).getId(), people.get(2 * i + 2).getId());
+            }
+            Person root = people.get(0);
+            Person leaf = people.get(14);
+
+            IndentedTreeRenderer indented = new IndentedTreeRenderer();
+            LineRenderer line = new LineRenderer();
+            assert indented.renderDescendants(root, 3).equals(indented.render(PersonNode.buildDescendantTree(root, 3)));
+            assert line.renderDescendants(root, 3).equals(line.render(PersonNode.buildDescendantTree(root, 3)));
+            assert indented.renderAncestors(leaf, 3).equals(indented.render(PersonNode.buildAncestorTree(leaf, 3)));
+            assert indented.misses() == 15 + 4;
+
+            // A repeat render is one cached fragment; a subtree render reuses the line renderer's fragments
+            assert indented.renderDescendants(root, 3).equals(indented.render(PersonNode.buildDescendantTree(root, 3)));
+            assert indented.hits() == 1 && indented.misses() == 19;
+            line.renderDescendants(people.get(2), 2);
+            assert line.hits() == 1;
+
+            // Adding a child below P14 only re-renders P14's path to the root
+            Person baby = PersonFactory.createPerson("Baby", Gender.FEMALE, 1960, null);
+            tree.addPerson(baby);
+            tree.addParentChild(leaf.getId(), baby.getId());
+            indented.invalidateLink(leaf, baby);
+            // The parent's ancestor fragments do not contain the new child
+            long hitsBefore = indented.hits();
+            long missesBefore = indented.misses();
+            indented.renderAncestors(leaf, 3);
+            assert indented.hits() == hitsBefore + 1 && indented.misses() == missesBefore;
+            String updated = indented.renderDescendants(root, 4);
+            assert updated.equals(indented.render(PersonNode.buildDescendantTree(root, 4)));
+            assert updated.contains("Baby");
+            long before = indented.misses();
+            tree.setFullName(people.get(13).getId(), "Renamed");
+            indented.invalidate(people.get(13));
+            assert indented.renderDescendants(root, 4).contains("Renamed");
+            assert indented.misses() - before == 4;
+
+            // The tree's own renderer is invalidated by its mutations
+            assert tree.renderDescendants(root.getId(), 4).contains("Renamed");
+            tree.setFullName(baby.getId(), "Newborn");
+            assert tree.renderDescendants(root.getId(), 4).contains("Newborn");
+            assert tree.renderAncestors(baby.getId(), 4).startsWith("- " + baby.getId() + " Newborn");
+
+            // Retained fragment text is tracked and counted in the tree's cache bytes
+            assert indented.retainedBytes() > indented.fragmentCount() * 96L;
+            long caches = tree.memoryReport().bytes(MemoryReport.Component.CACHES);
+            tree.renderDescendants(people.get(1).getId(), 3);
+            assert tree.memoryReport().bytes(MemoryReport.Component.CACHES) > caches;
+            // Over budget, the least recently rendered people are evicted, not the whole cache
+            indented.renderDescendants(root, 4);
+            long full = indented.retainedBytes();
+            indented.setMaxRetainedBytes(full / 2);
+            assert indented.retainedBytes() <= full / 2 && indented.fragmentCount() > 0;
+            indented.renderAncestors(leaf, 1);
+            hitsBefore = indented.hits();
+            indented.renderAncestors(leaf, 1);
+            assert indented.hits() == hitsBefore + 1 && indented.retainedBytes() <= full / 2;
+            indented.clear();
+            assert indented.retainedBytes() == 0 && indented.fragmentCount() == 0;
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testNameStore() {
+        System.out.print("Test: Name Store... ");
+        try {
+            IdGenerator.reset();
+            FamilyTree tree = new FamilyTree();
+            String[] given = {"Anna", "Mary Ann", "Jos\u00e9", "Omar"};
+            String[] surnames = {"Smith", "N\u00fa\u00f1ez", "Lee"};
+            List<Person> people = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                Person person = PersonFactory.createPerson(given[i % 4] + " " + surnames[i % 3], Gender.FEMALE, 1900, null);
+                tree.addPerson(person);
+                people.add(person);
+            }
+            Person single = PersonFactory.createPerson("Cher", Gender.FEMALE, 1946, null);
+            Person spaced = PersonFactory.createPerson(" Anna  Smith", Gender.FEMALE, 1950, null);
+            tree.addPerson(single);
+            tree.addPerson(spaced);
+
+            // Names come back exactly, odd whitespace included
+            assert people.get(1).getFullName().equals("Mary Ann N\u00fa\u00f1ez");
+            assert single.getFullName().equals("Cher");
+            assert spaced.getFullName().equals(" Anna  Smith");
+
+            assert tree.withSurname("Smith").size() == 21;
+            assert tree.withSurname("Smith").get(0) == people.get(0);
+            assert tree.withSurname("Cher").equals(List.of(single));
+            assert tree.withSurname("Jones").isEmpty();
+            assert tree.commonSurnames(2).get(0).getKey().equals("Smith");
+            assert tree.commonSurnames(2).get(1).getValue() == 20;
+
+            tree.setFullName(people.get(0).getId(), "Anna Lee");
+            assert people.get(0).getFullName().equals("Anna Lee");
+            assert tree.withSurname("Smith").size() == 20;
+            assert tree.withSurname("Lee").contains(people.get(0));
+
+            // A merged-away person leaves the posting list but keeps its name
+            Person dropped = people.get(3);
+            tree.merge(people.get(1).getId(), dropped.getId());
+            assert !tree.withSurname("Smith").contains(dropped);
+            assert dropped.getFullName().equals("Omar Smith");
+
+            // Renaming most Smiths away leaves holes that get squeezed out; order is kept
+            List<Person> smiths = new ArrayList<>(tree.withSurname("Smith"));
+            for (int i = 0; i < smiths.size(); i += 4) {
+                tree.setFullName(smiths.get(i).getId(), "Anna Moved");
+            }
+            for (int i = 1; i < smiths.size(); i += 2) {
+                tree.setFullName(smiths.get(i).getId(), "Anna Moved");
+            }
+            List<Person> kept = new ArrayList<>();
+            for (int i = 2; i < smiths.size(); i += 4) {
+                kept.add(smiths.get(i));
+            }
+            assert tree.withSurname("Smith").equals(kept);
+            assert tree.withSurname("Moved").size() == smiths.size() - kept.size();
+            tree.setFullName(smiths.get(0).getId(), "Anna Smith");
+            kept.add(smiths.get(0));
+            assert tree.withSurname("Smith").equals(kept);
+
+            FamilyTree other = new FamilyTree();
+            other.addPerson(PersonFactory.createPerson("Zed Smith", Gender.MALE, 1990, null));
+            assert other.withSurname("Smith").size() == 1;
+            // A person stays with the tree that stored its name first
+            try {
+                other.addPerson(kept.get(0));
+                assert false;
+            } catch (IllegalArgumentException expected) {
+                assert !other.containsPerson(kept.get(0).getId());
+                assert tree.withSurname("Smith").contains(kept.get(0));
+            }
+            assert tree.memoryReport().bytes(MemoryReport.Component.STRINGS) > 0;
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean testFlightRecorderEvents() {
+        System.out.print("Test: Flight Recorder Events... ");
+        try (TraceRecorder recorder = new TraceRecorder()) {
+            recorder.start(Duration.ZERO);
+            IdGenerator.reset();
+            FamilyTree tree = new FamilyTree();
+            List<Person> people = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                Person person = PersonFactory.createPerson("T" + i, "Person " + i, Gender.MALE, 1900 + i, null);
+                tree.addPerson(person);
+                people.add(person);
+            }
+            // Binary tree rooted at T0
+            for (int i = 0; i < 3; i++) {
+                tree.addParentChild("T" + i, "T" + (2 * i + 1));
+                tree.addParentChild("T" + i, "T" + (2 * i + 2));
+            }
+            tree.descendantsOf("T0", 2);
+            String rendered = tree.renderDescendants("T0", 2);
+            tree.renderDescendants("T0", 2);
+            PersonNode.buildAncestorTree(people.get(6), 2);
+
+            Path file = Files.createTempFile("trace", ".jfr");
+            recorder.dump(file);
+            Map<String, Long> counts = TraceRecorder.summarize(file);
+            assert counts.get("familytree.Mutation") == 13;
+            assert counts.get("familytree.CycleCheck") == 6;
+            assert counts.get("familytree.Render") == 2;
+            assert counts.get("familytree.TreeBuild") == 1;
+
+            Map<String, RecordedEvent> last = new HashMap<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                last.put(event.getString("operation"), event);
+            }
+            RecordedEvent traversal = last.get("descendantsOf");
+            assert traversal.getString("personId").equals("T0");
+            assert traversal.getInt("generations") == 2;
+            assert traversal.getLong("nodesVisited") == 7;
+            assert traversal.getInt("maxFrontier") == 3;
+            // The second render is one cached fragment
+            RecordedEvent render = last.get("renderDescendants");
+            assert render.getLong("cacheHits") == 1;
+            assert render.getLong("nodesVisited") == 1;
+            assert render.getLong("outputBytes") == rendered.length();
+            assert last.get("buildAncestorTree").getLong("nodesVisited") == 3;
+            assert last.get("addParentChild").getString("otherId").equals("T6");
+
+            recorder.stop();
+            assert !recorder.isRunning();
+            Files.delete(file);
+
+            System.out.println("PASSED");
+            return true;
+        } catch (Exception e) {
+            System.out.println("FAILED: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package analytics;
+
+import model.Person;
+
+/**
+ * Aggregates for one group of people (everyone, one gender, or one person type).
+ */
+public final class GroupStatistics {
+    static final int FIRST_DECADE = 1800;
+    private static final int DECADES = 31;
+
+    private final long[] birthsPerDecade;
+    private final Summary lifespan;
+    private final Summary children;
+    private final Summary marriageAge;
+    private long people;
+    private long living;
+
+    GroupStatistics() {
+        this.birthsPerDecade = new long[DECADES];
+        this.lifespan = new Summary(10, 13);
+        this.children = new Summary(1, 11);
+        this.marriageAge = new Summary(5, 21);
+    }
+
+    void add(Person person) {
+        people++;
+        int decade = (person.getBirthYear() - FIRST_DECADE) / 10;
+        birthsPerDecade[Math.max(0, Math.min(DECADES - 1, decade))]++;
+
+        if (person.isAlive()) {
+            living++;
+        } else {
+            lifespan.add(person.ageIn(person.getDeathYear()));
+        }
+        children.add(person.getChildCount());
+        if (person.getMarriageYear() != null && person.getMarriageYear() >= person.getBirthYear()) {
+            marriageAge.add(person.ageIn(person.getMarriageYear()));
+        }
+    }
+
+    void merge(GroupStatistics other) {
+        people += other.people;
+        living += other.living;
+        for (int i = 0; i < DECADES; i++) {
+            birthsPerDecade[i] += other.birthsPerDecade[i];
+        }
+        lifespan.merge(other.lifespan);
+        children.merge(other.children);
+        marriageAge.merge(other.marriageAge);
+    }
+
+    public long getPeople() {
+        return people;
+    }
+
+    public long getLiving() {
+        return living;
+    }
+
+    /**
+     * Births for the decade starting at the given year (e.g. 1950).
+     */
+    public long birthsInDecade(int decadeStart) {
+        int index = (decadeStart - FIRST_DECADE) / 10;
+        return index < 0 || index >= DECADES ? 0 : birthsPerDecade[index];
+    }
+
+    /**
+     * Lifespans of deceased people, 10-year histogram buckets.
+     */
+    public Summary getLifespan() {
+        return lifespan;
+    }
+
+    /**
+     * Children per person (mean is the average number of children).
+     */
+    public Summary getChildren() {
+        return children;
+    }
+
+    /**
+     * Age at (most recent) marriage, 5-year histogram buckets.
+     */
+    public Summary getMarriageAge() {
+        return marriageAge;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("people=").append(people).append(" living=").append(living)
+                .append(" | lifespan ").append(lifespan)
+                .append(" | children ").append(children)
+                .append(" | marriage age ").append(marriageAge);
+        return sb.toString();
+    }
+
+    String decadesLine() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < DECADES; i++) {
+            if (birthsPerDecade[i] > 0) {
+                sb.append(sb.length() == 0 ? "" : ", ").append(FIRST_DECADE + i * 10).append("s=").append(birthsPerDecade[i]);
+            }
+        }
+        return sb.length() == 0 ? "<none>" : sb.toString();
+    }
+}
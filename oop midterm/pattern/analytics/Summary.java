@@ -0,0 +1,72 @@
+package analytics;
+
+/**
+ * Mergeable count/sum/min/max/mean accumulator with a fixed-width histogram.
+ */
+public final class Summary {
+    private final int bucketWidth;
+    private final long[] histogram;
+    private long count;
+    private long sum;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+
+    Summary(int bucketWidth, int buckets) {
+        this.bucketWidth = bucketWidth;
+        this.histogram = new long[buckets];
+    }
+
+    void add(int value) {
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        int bucket = Math.max(0, Math.min(histogram.length - 1, value / bucketWidth));
+        histogram[bucket]++;
+    }
+
+    void merge(Summary other) {
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] += other.histogram[i];
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public int getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public int getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    /**
+     * Counts per bucket; bucket i covers [i * width, (i + 1) * width), the last one is open-ended.
+     */
+    public long[] getHistogram() {
+        return histogram.clone();
+    }
+
+    public int getBucketWidth() {
+        return bucketWidth;
+    }
+
+    @Override
+    public String toString() {
+        if (count == 0) {
+            return "n=0";
+        }
+        return String.format("n=%d mean=%.1f min=%d max=%d", count, getMean(), min, max);
+    }
+}
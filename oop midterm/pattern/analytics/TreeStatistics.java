@@ -0,0 +1,77 @@
+package analytics;
+
+import core.FamilyTree;
+import model.Gender;
+import model.Person;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Whole-tree population statistics computed in one parallel pass.
+ * Each worker fills its own accumulator over a partition of the people map;
+ * partial results are merged pairwise, so the person set is never copied.
+ */
+public final class TreeStatistics {
+    private final GroupStatistics all;
+    private final Map<Gender, GroupStatistics> byGender;
+    private final Map<String, GroupStatistics> byType;
+
+    private TreeStatistics() {
+        this.all = new GroupStatistics();
+        this.byGender = new EnumMap<>(Gender.class);
+        this.byType = new TreeMap<>();
+    }
+
+    public static TreeStatistics compute(FamilyTree tree) {
+        return tree.people().parallelStream()
+                .collect(TreeStatistics::new, TreeStatistics::add, TreeStatistics::merge);
+    }
+
+    private void add(Person person) {
+        all.add(person);
+        byGender.computeIfAbsent(person.getGender(), g -> new GroupStatistics()).add(person);
+        byType.computeIfAbsent(person.getPersonType(), t -> new GroupStatistics()).add(person);
+    }
+
+    private void merge(TreeStatistics other) {
+        all.merge(other.all);
+        other.byGender.forEach((gender, stats) ->
+                byGender.computeIfAbsent(gender, g -> new GroupStatistics()).merge(stats));
+        other.byType.forEach((type, stats) ->
+                byType.computeIfAbsent(type, t -> new GroupStatistics()).merge(stats));
+    }
+
+    public GroupStatistics getAll() {
+        return all;
+    }
+
+    /**
+     * Statistics for one gender (empty group if nobody has it).
+     */
+    public GroupStatistics byGender(Gender gender) {
+        return byGender.getOrDefault(gender, new GroupStatistics());
+    }
+
+    /**
+     * Statistics for one getPersonType() value such as "Adult" or "Minor".
+     */
+    public GroupStatistics byPersonType(String type) {
+        return byType.getOrDefault(type, new GroupStatistics());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("All: ").append(all).append('\n');
+        sb.append("  births by decade: ").append(all.decadesLine());
+        for (Map.Entry<Gender, GroupStatistics> entry : byGender.entrySet()) {
+            sb.append('\n').append(entry.getKey()).append(": ").append(entry.getValue());
+        }
+        for (Map.Entry<String, GroupStatistics> entry : byType.entrySet()) {
+            sb.append('\n').append(entry.getKey()).append(": ").append(entry.getValue());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,544 @@
+package bulk;
+
+import core.FamilyTree;
+import factory.PersonFactory;
+import model.Gender;
+import model.Person;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Bulk import from two CSV extracts: people (id,fullName,gender,birthYear,deathYear)
+ * and relations (type,personA,personB,year) where type is PARENT (A is parent of B)
+ * or MARRIAGE. Each file has a header row. Fields may be quoted with "" escapes but
+ * may not contain line breaks.
+ *
+ * Files are memory-mapped and split into byte ranges parsed on all cores; numbers and
+ * enums are read straight from the bytes, so only IDs and names become Strings. Phase
+ * one creates every person through PersonFactory, phase two links relations through
+ * FamilyTree's rules. Parsed chunks are applied to the tree in file order on the
+ * calling thread while later chunks are still parsing, and at most a few chunks are
+ * held at once. Bad rows are recorded with their line number and skipped.
+ */
+public class CsvBulkImporter {
+    private static final int DEFAULT_CHUNK_BYTES = 8 << 20;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final FamilyTree tree;
+    private final int chunkBytes;
+    private final int threads;
+
+    public CsvBulkImporter(FamilyTree tree) {
+        this(tree, DEFAULT_CHUNK_BYTES, Runtime.getRuntime().availableProcessors());
+    }
+
+    public CsvBulkImporter(FamilyTree tree, int chunkBytes, int threads) {
+        if (chunkBytes < 1 || threads < 1) {
+            throw new IllegalArgumentException("Chunk size and thread count must be positive");
+        }
+        this.tree = tree;
+        this.chunkBytes = chunkBytes;
+        this.threads = threads;
+    }
+
+    /**
+     * Import both files; relations are only read once every person exists.
+     */
+    public Result importFiles(Path peopleFile, Path relationsFile) throws IOException {
+        Result result = new Result();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            String peopleName = peopleFile.getFileName().toString();
+            run(peopleFile, pool, PeopleChunk::new, chunk -> {
+                for (int i = 0; i < chunk.people.size(); i++) {
+                    try {
+                        tree.addPerson(chunk.people.get(i));
+                        result.people++;
+                    } catch (IllegalArgumentException e) {
+                        chunk.fail(chunk.lines.get(i), e.getMessage());
+                    }
+                }
+                chunk.reportErrors(result, peopleName);
+            });
+
+            String relationsName = relationsFile.getFileName().toString();
+            run(relationsFile, pool, RelationChunk::new, chunk -> {
+                for (int i = 0; i < chunk.relations.size(); i++) {
+                    Relation relation = chunk.relations.get(i);
+                    try {
+                        if (relation.marriage) {
+                            tree.marry(relation.personA, relation.personB, relation.year);
+                            result.marriages++;
+                        } else {
+                            tree.addParentChild(relation.personA, relation.personB);
+                            result.parentLinks++;
+                        }
+                    } catch (IllegalArgumentException e) {
+                        chunk.fail(chunk.lines.get(i), e.getMessage());
+                    }
+                }
+                chunk.reportErrors(result, relationsName);
+            });
+        } finally {
+            pool.shutdownNow();
+        }
+        return result;
+    }
+
+    private interface ChunkConsumer<C extends Chunk> {
+        void apply(C chunk);
+    }
+
+    /**
+     * Parse chunks in parallel and apply them in order, keeping at most 2 * threads in flight.
+     */
+    private <C extends Chunk> void run(Path file, ExecutorService pool, Supplier<C> chunks,
+                                       ChunkConsumer<C> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Deque<Future<C>> inFlight = new ArrayDeque<>();
+            long line = 1;
+            for (long start = 0; start < size || !inFlight.isEmpty(); ) {
+                while (start < size && inFlight.size() < 2 * threads) {
+                    long from = start;
+                    long to = Math.min(size, start + chunkBytes);
+                    inFlight.add(pool.submit(() -> {
+                        C chunk = chunks.get();
+                        chunk.parse(ByteChunk.map(channel, from, to, size), new RowReader());
+                        return chunk;
+                    }));
+                    start = to;
+                }
+                C chunk = await(inFlight.poll());
+                chunk.firstLine = line;
+                line += chunk.lineCount;
+                consumer.apply(chunk);
+            }
+        }
+    }
+
+    private static <C> C await(Future<C> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * The lines that start inside [start, end) of a file; the last one may run past end.
+     * Only the range and ROW_SLACK bytes after it are mapped at first, and the mapping is
+     * extended when a row runs over it.
+     */
+    private static final class ByteChunk {
+        private static final int ROW_SLACK = 4 << 10;
+
+        private final FileChannel channel;
+        private final long from;
+        private final long size;
+        MappedByteBuffer buffer;
+        int begin;
+        final int end;
+        final boolean first;
+
+        private ByteChunk(FileChannel channel, long from, long size, int end, boolean first) {
+            this.channel = channel;
+            this.from = from;
+            this.size = size;
+            this.end = end;
+            this.first = first;
+        }
+
+        static ByteChunk map(FileChannel channel, long start, long end, long size) throws IOException {
+            // One byte before start tells whether start is at a line boundary
+            long from = Math.max(0, start - 1);
+            ByteChunk chunk = new ByteChunk(channel, from, size, (int) (end - from), start == 0);
+            chunk.remap(end - from + ROW_SLACK);
+            int begin = (int) (start - from);
+            if (start > 0 && chunk.buffer.get(0) != '\n') {
+                // A line that starts before the range belongs to the previous chunk
+                while (begin < chunk.end && chunk.buffer.get(begin - 1) != '\n') {
+                    begin++;
+                }
+            }
+            chunk.begin = begin;
+            return chunk;
+        }
+
+        boolean reachesEndOfFile() {
+            return from + buffer.limit() >= size;
+        }
+
+        /**
+         * Map twice as many bytes, for a row that does not end inside the mapping.
+         */
+        void extend() throws IOException {
+            if (buffer.limit() == Integer.MAX_VALUE) {
+                throw new IOException("Row starting near byte " + (from + begin) + " is too long to map");
+            }
+            remap(2L * buffer.limit());
+        }
+
+        private void remap(long length) throws IOException {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, from,
+                    Math.min(Math.min(size - from, length), Integer.MAX_VALUE));
+        }
+    }
+
+    /**
+     * Field positions of the current row, reused for every row of a chunk.
+     */
+    private static final class RowReader {
+        private static final int MAX_FIELDS = 8;
+        final int[] starts = new int[MAX_FIELDS];
+        final int[] ends = new int[MAX_FIELDS];
+        final boolean[] quoted = new boolean[MAX_FIELDS];
+        int fields;
+        ByteChunk chunk;
+        private byte[] scratch = new byte[256];
+
+        /**
+         * Split the line starting at pos; returns the position after its line break.
+         */
+        int read(ByteChunk chunk, int pos) {
+            this.chunk = chunk;
+            MappedByteBuffer buffer = chunk.buffer;
+            int limit = buffer.limit();
+            fields = 0;
+            boolean more = true;
+            while (more) {
+                boolean inQuotes = pos < limit && buffer.get(pos) == '"';
+                int start = inQuotes ? pos + 1 : pos;
+                int p = start;
+                if (inQuotes) {
+                    while (p < limit && buffer.get(p) != '\n'
+                            && !(buffer.get(p) == '"' && (p + 1 >= limit || buffer.get(p + 1) != '"'))) {
+                        p += buffer.get(p) == '"' ? 2 : 1;
+                    }
+                }
+                int fieldEnd = p;
+                if (inQuotes && p < limit && buffer.get(p) == '"') {
+                    p++;
+                }
+                while (p < limit && buffer.get(p) != ',' && buffer.get(p) != '\n') {
+                    p++;
+                }
+                if (!inQuotes) {
+                    fieldEnd = p;
+                }
+                if (fields < MAX_FIELDS) {
+                    starts[fields] = start;
+                    ends[fields] = fieldEnd;
+                    quoted[fields] = inQuotes;
+                }
+                fields++;
+                more = p < limit && buffer.get(p) == ',';
+                pos = p + 1;
+            }
+            // Drop a trailing carriage return from CRLF files
+            int last = Math.min(fields, MAX_FIELDS) - 1;
+            if (!quoted[last] && ends[last] > starts[last] && buffer.get(ends[last] - 1) == '\r') {
+                ends[last]--;
+            }
+            return pos;
+        }
+
+        boolean isEmpty(int field) {
+            return field >= fields || ends[field] == starts[field];
+        }
+
+        String text(int field) {
+            int length = ends[field] - starts[field];
+            if (length > scratch.length) {
+                scratch = new byte[length];
+            }
+            int n = 0;
+            for (int p = starts[field]; p < ends[field]; p++) {
+                byte b = chunk.buffer.get(p);
+                scratch[n++] = b;
+                if (quoted[field] && b == '"') {
+                    p++;
+                }
+            }
+            return new String(scratch, 0, n, StandardCharsets.UTF_8).trim();
+        }
+
+        Integer number(int field) {
+            int p = starts[field];
+            int end = ends[field];
+            while (p < end && chunk.buffer.get(p) == ' ') {
+                p++;
+            }
+            while (end > p && chunk.buffer.get(end - 1) == ' ') {
+                end--;
+            }
+            if (p == end || end - p > 9) {
+                return null;
+            }
+            int value = 0;
+            for (; p < end; p++) {
+                int digit = chunk.buffer.get(p) - '0';
+                if (digit < 0 || digit > 9) {
+                    return null;
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        boolean is(int field, String word) {
+            int length = ends[field] - starts[field];
+            if (length != word.length()) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (Character.toUpperCase((char) chunk.buffer.get(starts[field] + i)) != word.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Parsed rows of one byte range with their chunk-relative line numbers.
+     */
+    private abstract static class Chunk {
+        final List<Integer> lines = new ArrayList<>();
+        final List<Integer> errorLines = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        int lineCount;
+        long firstLine;
+
+        void parse(ByteChunk bytes, RowReader rows) throws IOException {
+            int pos = bytes.begin;
+            while (pos < bytes.end && pos < bytes.buffer.limit()) {
+                int next = rows.read(bytes, pos);
+                // Ran off the mapping before the line break: map further and read the row again
+                while (next > bytes.buffer.limit() && !bytes.reachesEndOfFile()) {
+                    bytes.extend();
+                    next = rows.read(bytes, pos);
+                }
+                pos = next;
+                int line = lineCount++;
+                if (bytes.first && line == 0) {
+                    continue; // header
+                }
+                if (rows.fields == 1 && rows.isEmpty(0)) {
+                    continue; // blank line
+                }
+                try {
+                    row(rows);
+                    lines.add(line);
+                } catch (IllegalArgumentException e) {
+                    fail(line, e.getMessage());
+                }
+            }
+        }
+
+        abstract void row(RowReader rows);
+
+        void fail(int line, String message) {
+            errorLines.add(line);
+            errors.add(message);
+        }
+
+        /**
+         * Parse and link errors together, in line order.
+         */
+        void reportErrors(Result result, String file) {
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < errors.size(); i++) {
+                order.add(i);
+            }
+            order.sort(Comparator.comparing(errorLines::get));
+            for (int i : order) {
+                // Lines are counted from 1, chunk-relative lines from 0
+                result.error(file, firstLine + errorLines.get(i), errors.get(i));
+            }
+        }
+    }
+
+    private static final class PeopleChunk extends Chunk {
+        final List<Person> people = new ArrayList<>();
+
+        @Override
+        void row(RowReader rows) {
+            if (rows.fields < 4) {
+                throw new IllegalArgumentException("Expected id,fullName,gender,birthYear[,deathYear]");
+            }
+            Gender gender = gender(rows);
+            Integer birthYear = rows.number(3);
+            if (birthYear == null) {
+                throw new IllegalArgumentException("Invalid birth year");
+            }
+            Integer deathYear = null;
+            if (!rows.isEmpty(4)) {
+                deathYear = rows.number(4);
+                if (deathYear == null) {
+                    throw new IllegalArgumentException("Invalid death year");
+                }
+            }
+            String id = rows.text(0);
+            if (id.isEmpty()) {
+                throw new IllegalArgumentException("Missing ID");
+            }
+            people.add(PersonFactory.createPerson(id, rows.text(1), gender, birthYear, deathYear));
+        }
+
+        private static Gender gender(RowReader rows) {
+            for (Gender gender : Gender.values()) {
+                if (rows.is(2, gender.name())) {
+                    return gender;
+                }
+            }
+            throw new IllegalArgumentException("Invalid gender: " + rows.text(2));
+        }
+    }
+
+    private static final class Relation {
+        final boolean marriage;
+        final String personA;
+        final String personB;
+        final int year;
+
+        Relation(boolean marriage, String personA, String personB, int year) {
+            this.marriage = marriage;
+            this.personA = personA;
+            this.personB = personB;
+            this.year = year;
+        }
+    }
+
+    private static final class RelationChunk extends Chunk {
+        final List<Relation> relations = new ArrayList<>();
+
+        @Override
+        void row(RowReader rows) {
+            if (rows.fields < 3) {
+                throw new IllegalArgumentException("Expected type,personA,personB[,year]");
+            }
+            boolean marriage;
+            if (rows.is(0, "PARENT")) {
+                marriage = false;
+            } else if (rows.is(0, "MARRIAGE")) {
+                marriage = true;
+            } else {
+                throw new IllegalArgumentException("Unknown relation type: " + rows.text(0));
+            }
+            int year = 0;
+            if (marriage) {
+                Integer parsed = rows.isEmpty(3) ? null : rows.number(3);
+                if (parsed == null) {
+                    throw new IllegalArgumentException("Marriage needs a year");
+                }
+                year = parsed;
+            }
+            relations.add(new Relation(marriage, rows.text(1), rows.text(2), year));
+        }
+    }
+
+    /**
+     * Row-level problem: which file and line, and why it was skipped.
+     */
+    public static final class RowError {
+        private final String file;
+        private final long line;
+        private final String message;
+
+        RowError(String file, long line, String message) {
+            this.file = file;
+            this.line = line;
+            this.message = message;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return file + ":" + line + ": " + message;
+        }
+    }
+
+    /**
+     * Counts from one import plus the first errors encountered.
+     */
+    public static final class Result {
+        private final List<RowError> errors = new ArrayList<>();
+        private long people;
+        private long parentLinks;
+        private long marriages;
+        private long errorCount;
+
+        private void error(String file, long line, String message) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(file, line, message));
+            }
+        }
+
+        public long getPeople() {
+            return people;
+        }
+
+        public long getParentLinks() {
+            return parentLinks;
+        }
+
+        public long getMarriages() {
+            return marriages;
+        }
+
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        /**
+         * The first errors, in file order (at most 1000 are kept).
+         */
+        public List<RowError> getErrors() {
+            return Collections.unmodifiableList(errors);
+        }
+
+        @Override
+        public String toString() {
+            return "Imported " + people + " people, " + parentLinks + " parent links, "
+                    + marriages + " marriages (" + errorCount + " rows rejected)";
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package composite;
 
 import model.Person;
+import trace.TreeBuildEvent;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -49,10 +51,20 @@ public class PersonNode {
      * Build a tree structure for descendants up to specified generations.
      */
     public static PersonNode buildDescendantTree(Person root, int generations) {
+        TreeBuildEvent event = new TreeBuildEvent();
+        event.begin();
+        PersonNode node = buildDescendants(root, generations, 1, event);
+        event.complete("buildDescendantTree", root.getId(), generations, event.nodesVisited, event.maxFrontier);
+        return node;
+    }
+
+    private static PersonNode buildDescendants(Person root, int generations, int depth, TreeBuildEvent event) {
+        event.nodesVisited++;
+        event.maxFrontier = Math.max(event.maxFrontier, depth);
         PersonNode node = new PersonNode(root);
         if (generations > 0) {
             for (Person child : root.getChildren()) {
-                PersonNode childNode = buildDescendantTree(child, generations - 1);
+                PersonNode childNode = buildDescendants(child, generations - 1, depth + 1, event);
                 node.addChild(childNode);
             }
         }
@@ -63,14 +75,24 @@ public class PersonNode {
      * Build a tree structure for ancestors up to specified generations.
      */
     public static PersonNode buildAncestorTree(Person root, int generations) {
+        TreeBuildEvent event = new TreeBuildEvent();
+        event.begin();
+        PersonNode node = buildAncestors(root, generations, 1, event);
+        event.complete("buildAncestorTree", root.getId(), generations, event.nodesVisited, event.maxFrontier);
+        return node;
+    }
+
+    private static PersonNode buildAncestors(Person root, int generations, int depth, TreeBuildEvent event) {
+        event.nodesVisited++;
+        event.maxFrontier = Math.max(event.maxFrontier, depth);
         PersonNode node = new PersonNode(root);
         if (generations > 0) {
             if (root.getParent1() != null) {
-                PersonNode parent1Node = buildAncestorTree(root.getParent1(), generations - 1);
+                PersonNode parent1Node = buildAncestors(root.getParent1(), generations - 1, depth + 1, event);
                 node.addChild(parent1Node);
             }
             if (root.getParent2() != null) {
-                PersonNode parent2Node = buildAncestorTree(root.getParent2(), generations - 1);
+                PersonNode parent2Node = buildAncestors(root.getParent2(), generations - 1, depth + 1, event);
                 node.addChild(parent2Node);
             }
         }
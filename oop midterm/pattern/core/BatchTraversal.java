@@ -0,0 +1,131 @@
+package core;
+
+import model.Person;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Multi-source breadth-first walk that shares work between overlapping pedigrees.
+ * Sources are processed in blocks of 64; each person reached carries a bitmask of the
+ * sources that reached it, so a shared ancestor is expanded once per generation per block
+ * instead of once per source. Blocks are independent and run in parallel.
+ */
+class BatchTraversal {
+    private static final int BLOCK = Long.SIZE;
+
+    private final boolean up;
+    private final int generations;
+    private final boolean collect;
+
+    BatchTraversal(boolean up, int generations, boolean collect) {
+        this.up = up;
+        this.generations = generations;
+        this.collect = collect;
+    }
+
+    /**
+     * Result for one block: per-source counts and (optionally) per-source people.
+     */
+    private static final class BlockResult {
+        final int[] counts;
+        final List<List<Person>> people;
+
+        BlockResult(int size, boolean collect) {
+            this.counts = new int[size];
+            this.people = new ArrayList<>();
+            if (collect) {
+                for (int i = 0; i < size; i++) {
+                    people.add(new ArrayList<>());
+                }
+            }
+        }
+    }
+
+    Map<Person, List<Person>> run(List<Person> sources) {
+        BlockResult[] blocks = runBlocks(sources);
+        Map<Person, List<Person>> result = new LinkedHashMap<>();
+        for (int i = 0; i < sources.size(); i++) {
+            result.put(sources.get(i), blocks[i / BLOCK].people.get(i % BLOCK));
+        }
+        return result;
+    }
+
+    Map<Person, Integer> count(List<Person> sources) {
+        BlockResult[] blocks = runBlocks(sources);
+        Map<Person, Integer> result = new LinkedHashMap<>();
+        for (int i = 0; i < sources.size(); i++) {
+            result.put(sources.get(i), blocks[i / BLOCK].counts[i % BLOCK]);
+        }
+        return result;
+    }
+
+    private BlockResult[] runBlocks(List<Person> sources) {
+        int blockCount = (sources.size() + BLOCK - 1) / BLOCK;
+        BlockResult[] blocks = new BlockResult[blockCount];
+        IntStream.range(0, blockCount).parallel().forEach(b -> {
+            int from = b * BLOCK;
+            blocks[b] = runBlock(sources.subList(from, Math.min(from + BLOCK, sources.size())));
+        });
+        return blocks;
+    }
+
+    private BlockResult runBlock(List<Person> block) {
+        BlockResult result = new BlockResult(block.size(), collect);
+        if (generations < 0) {
+            return result;
+        }
+
+        Map<Person, Long> seen = new HashMap<>();
+        Map<Person, Long> frontier = new LinkedHashMap<>();
+        for (int i = 0; i < block.size(); i++) {
+            frontier.merge(block.get(i), 1L << i, (a, b) -> a | b);
+        }
+        seen.putAll(frontier);
+
+        for (int level = 0; !frontier.isEmpty(); level++) {
+            Map<Person, Long> next = new LinkedHashMap<>();
+            for (Map.Entry<Person, Long> entry : frontier.entrySet()) {
+                Person person = entry.getKey();
+                long mask = entry.getValue();
+                record(result, person, mask);
+
+                if (level < generations) {
+                    if (up) {
+                        spread(person.getParent1(), mask, seen, next);
+                        spread(person.getParent2(), mask, seen, next);
+                    } else {
+                        for (Person child : person.getChildren()) {
+                            spread(child, mask, seen, next);
+                        }
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return result;
+    }
+
+    private void record(BlockResult result, Person person, long mask) {
+        while (mask != 0) {
+            int source = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            result.counts[source]++;
+            if (collect) {
+                result.people.get(source).add(person);
+            }
+        }
+    }
+
+    private static void spread(Person target, long mask, Map<Person, Long> seen, Map<Person, Long> next) {
+        if (target == null) {
+            return;
+        }
+        long known = seen.getOrDefault(target, 0L);
+        long fresh = mask & ~known;
+        if (fresh != 0) {
+            seen.put(target, known | fresh);
+            next.merge(target, fresh, (a, b) -> a | b);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable distinct-count sketch.
+ * Exact while small (a sorted array of 64-bit hashes), then switches to HyperLogLog with
+ * 1024 registers (about 3% standard error). Merging is idempotent, so the same
+ * descendant reached along several paths of a DAG is counted once.
+ */
+class CardinalitySketch {
+    private static final int PRECISION = 10;
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final int SPARSE_LIMIT = 128;
+    private static final long[] EMPTY = new long[0];
+
+    // Sorted hashes in sparse[0..size); null once dense
+    private long[] sparse;
+    private int size;
+    private byte[] registers;
+
+    CardinalitySketch() {
+        this.sparse = EMPTY;
+    }
+
+    static long hash(String id) {
+        // FNV-1a followed by a 64-bit finalizer
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h ^= id.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    boolean add(long hash) {
+        if (sparse != null) {
+            int at = Arrays.binarySearch(sparse, 0, size, hash);
+            if (at >= 0) {
+                return false;
+            }
+            if (size == SPARSE_LIMIT) {
+                toDense();
+                return add(hash);
+            }
+            at = -at - 1;
+            if (size == sparse.length) {
+                sparse = Arrays.copyOf(sparse, Math.max(4, Math.min(SPARSE_LIMIT, size * 2)));
+            }
+            System.arraycopy(sparse, at, sparse, at + 1, size - at);
+            sparse[at] = hash;
+            size++;
+            return true;
+        }
+        int index = (int) (hash >>> (Long.SIZE - PRECISION));
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Union other into this sketch; returns whether anything changed.
+     */
+    boolean addAll(CardinalitySketch other) {
+        boolean changed = false;
+        if (other.sparse != null) {
+            for (int i = 0; i < other.size; i++) {
+                changed |= add(other.sparse[i]);
+            }
+            return changed;
+        }
+        if (sparse != null) {
+            toDense();
+            changed = true;
+        }
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    void clear() {
+        sparse = EMPTY;
+        size = 0;
+        registers = null;
+    }
+
+    long estimate() {
+        if (sparse != null) {
+            return size;
+        }
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Math.pow(2, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+        double estimate = alpha * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            // Linear counting for small ranges
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Rough retained size in bytes.
+     */
+    long footprint() {
+        return sparse != null ? 16L + sparse.length * 8L : 16L + REGISTERS;
+    }
+
+    private void toDense() {
+        long[] hashes = sparse;
+        int count = size;
+        sparse = null;
+        size = 0;
+        registers = new byte[REGISTERS];
+        for (int i = 0; i < count; i++) {
+            add(hashes[i]);
+        }
+    }
+}
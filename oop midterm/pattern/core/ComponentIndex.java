@@ -0,0 +1,144 @@
+package core;
+
+import java.util.*;
+
+/**
+ * Union-find over person IDs with path compression and union by size.
+ * Two people are in the same component if any chain of blood or marriage links joins them.
+ */
+public class ComponentIndex {
+    private static final class Node {
+        final String id;
+        Node parent;
+        int size;
+
+        Node(String id) {
+            this.id = id;
+            this.parent = this;
+            this.size = 1;
+        }
+    }
+
+    private final Map<String, Node> nodes;
+    // Component ID to its root node
+    private final Map<String, Node> roots;
+
+    public ComponentIndex() {
+        this.nodes = new HashMap<>();
+        this.roots = new HashMap<>();
+    }
+
+    /**
+     * Register a person as a component of its own.
+     */
+    public void add(String id) {
+        if (!nodes.containsKey(id)) {
+            Node node = new Node(id);
+            nodes.put(id, node);
+            roots.put(id, node);
+        }
+    }
+
+    /**
+     * Find the component ID (root) for a person, compressing the path on the way.
+     */
+    public String find(String id) {
+        return root(node(id)).id;
+    }
+
+    private Node node(String id) {
+        Node node = nodes.get(id);
+        if (node == null) {
+            throw new IllegalArgumentException("Person with ID " + id + " not found");
+        }
+        return node;
+    }
+
+    private Node root(Node node) {
+        Node root = node;
+        while (root.parent != root) {
+            root = root.parent;
+        }
+
+        // Path compression
+        Node current = node;
+        while (current != root) {
+            Node next = current.parent;
+            current.parent = root;
+            current = next;
+        }
+        return root;
+    }
+
+    /**
+     * Merge the components of two people; the larger component keeps its ID.
+     */
+    public void union(String a, String b) {
+        Node rootA = root(node(a));
+        Node rootB = root(node(b));
+        if (rootA == rootB) {
+            return;
+        }
+
+        if (rootA.size < rootB.size) {
+            Node tmp = rootA;
+            rootA = rootB;
+            rootB = tmp;
+        }
+        rootB.parent = rootA;
+        rootA.size += rootB.size;
+        roots.remove(rootB.id);
+    }
+
+    /**
+     * Forget a person merged into successor: their components are joined and the person no
+     * longer counts. Its node may stay behind as an interior link, but never as a root, and
+     * the ID can be added again as someone new.
+     */
+    public void remove(String id, String successor) {
+        union(id, successor);
+        Node node = nodes.remove(id);
+        Node root = root(node);
+        if (root == node) {
+            // Hand the root over to the successor so the component keeps a live ID
+            Node heir = nodes.get(successor);
+            heir.parent = heir;
+            heir.size = node.size;
+            node.parent = heir;
+            roots.remove(node.id);
+            roots.put(heir.id, heir);
+            root = heir;
+        }
+        root.size--;
+    }
+
+    public void clear() {
+        nodes.clear();
+        roots.clear();
+    }
+
+    public boolean connected(String a, String b) {
+        return find(a).equals(find(b));
+    }
+
+    public int sizeOf(String id) {
+        return roots.get(find(id)).size;
+    }
+
+    public int componentCount() {
+        return roots.size();
+    }
+
+    /**
+     * Component roots ordered by size, largest first.
+     */
+    public List<Map.Entry<String, Integer>> largest(int limit) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+        for (Node root : roots.values()) {
+            entries.add(new AbstractMap.SimpleEntry<>(root.id, root.size));
+        }
+        entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        return entries.subList(0, Math.min(limit, entries.size()));
+    }
+}
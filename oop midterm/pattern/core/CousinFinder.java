@@ -0,0 +1,112 @@
+package core;
+
+import model.Person;
+
+import java.util.*;
+
+/**
+ * Finds n-th cousins m times removed without chaining ancestor and descendant queries.
+ * Walks up once to the common-ancestor level, recording the level of every ancestor on
+ * the way, then fans down level by level with one deduplicated frontier per level.
+ * Anyone descending from a nearer ancestor (or from the person) is a closer relative
+ * and is dropped; that check walks upward only as far as the generation index allows.
+ */
+class CousinFinder {
+    private final GenerationIndex generations;
+
+    CousinFinder(GenerationIndex generations) {
+        this.generations = generations;
+    }
+
+    /**
+     * Cousins of the given degree, removed in either direction, sorted by ID.
+     */
+    List<Person> find(Person person, int degree, int removal) {
+        Set<Person> found = new HashSet<>();
+        // Younger side: common ancestor degree+1 up, cousin degree+1+removal down
+        collect(person, degree + 1, degree + 1 + removal, found);
+        if (removal > 0) {
+            // Older side: common ancestor degree+1+removal up, cousin degree+1 down
+            collect(person, degree + 1 + removal, degree + 1, found);
+        }
+
+        List<Person> result = new ArrayList<>(found);
+        result.sort(Comparator.comparing(Person::getId));
+        return result;
+    }
+
+    private void collect(Person person, int up, int down, Set<Person> found) {
+        // Ancestral lines indexed by level; each ancestor keeps its nearest level
+        Map<Person, Integer> levels = new HashMap<>();
+        levels.put(person, 0);
+        List<Person> frontier = Collections.singletonList(person);
+        for (int level = 1; level <= up && !frontier.isEmpty(); level++) {
+            List<Person> next = new ArrayList<>();
+            for (Person current : frontier) {
+                for (Person parent : new Person[]{current.getParent1(), current.getParent2()}) {
+                    if (parent != null && !levels.containsKey(parent)) {
+                        levels.put(parent, level);
+                        next.add(parent);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        if (frontier.isEmpty()) {
+            return;
+        }
+
+        // Nearer ancestors and the person: their lines hold siblings, nieces, closer cousins
+        Set<Person> closer = new HashSet<>();
+        int lowestCloser = Integer.MAX_VALUE;
+        for (Map.Entry<Person, Integer> entry : levels.entrySet()) {
+            if (entry.getValue() < up) {
+                closer.add(entry.getKey());
+                lowestCloser = Math.min(lowestCloser, generations.generation(entry.getKey()));
+            }
+        }
+
+        Set<Person> level = new LinkedHashSet<>(frontier);
+        for (int depth = 1; depth <= down && !level.isEmpty(); depth++) {
+            Set<Person> next = new LinkedHashSet<>();
+            for (Person current : level) {
+                for (Person child : current.getChildren()) {
+                    if (!closer.contains(child)) {
+                        next.add(child);
+                    }
+                }
+            }
+            level = next;
+        }
+
+        Map<Person, Boolean> memo = new HashMap<>();
+        for (Person candidate : level) {
+            if (!descendsFrom(candidate, closer, lowestCloser, memo)) {
+                found.add(candidate);
+            }
+        }
+    }
+
+    private boolean descendsFrom(Person person, Set<Person> closer, int lowestCloser, Map<Person, Boolean> memo) {
+        if (closer.contains(person)) {
+            return true;
+        }
+        // Parents sit strictly lower, so nothing above can reach a closer ancestor
+        if (generations.generation(person) <= lowestCloser) {
+            return false;
+        }
+        Boolean known = memo.get(person);
+        if (known != null) {
+            return known;
+        }
+        boolean result = false;
+        for (Person parent : new Person[]{person.getParent1(), person.getParent2()}) {
+            if (parent != null && descendsFrom(parent, closer, lowestCloser, memo)) {
+                result = true;
+                break;
+            }
+        }
+        memo.put(person, result);
+        return result;
+    }
+}
@@ -0,0 +1,12 @@
+package core;
+
+import model.Person;
+
+import java.util.Set;
+
+/**
+ * Receives changes to a standing query's result set.
+ */
+public interface DeltaListener {
+    void onDelta(StandingQuery query, Set<Person> added, Set<Person> removed);
+}
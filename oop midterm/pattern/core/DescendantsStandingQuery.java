@@ -0,0 +1,99 @@
+package core;
+
+import event.TreeEvent;
+import model.Person;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Standing version of descendantsOf: everyone within N generations below a person,
+ * optionally living people only. Links only ever shorten distances, so a new edge
+ * relaxes depths below the child and touches nothing else.
+ */
+public class DescendantsStandingQuery extends StandingQuery {
+    private String rootId;
+    private final int generations;
+    private final boolean livingOnly;
+    private final Map<Person, Integer> depth;
+
+    public DescendantsStandingQuery(String rootId, int generations, boolean livingOnly) {
+        this.rootId = rootId;
+        this.generations = generations;
+        this.livingOnly = livingOnly;
+        this.depth = new HashMap<>();
+    }
+
+    @Override
+    protected void initialize() {
+        if (generations >= 0) {
+            relax(tree().getPerson(rootId), 0);
+        }
+    }
+
+    @Override
+    protected void clearState() {
+        depth.clear();
+    }
+
+    @Override
+    protected void onMerged(String keepId, String dropId) {
+        if (rootId.equals(dropId)) {
+            rootId = keepId;
+        }
+    }
+
+    @Override
+    protected void onEvent(TreeEvent event) {
+        if (event.getType() == TreeEvent.Type.PARENT_CHILD_LINKED) {
+            Integer parentDepth = depth.get(tree().getPerson(event.getPersonId()));
+            if (parentDepth != null && parentDepth < generations) {
+                relax(tree().getPerson(event.getOtherId()), parentDepth + 1);
+            }
+        } else if (event.getType() == TreeEvent.Type.FIELD_UPDATED
+                && TreeEvent.DEATH_YEAR.equals(event.getField()) && livingOnly) {
+            Person person = tree().getPerson(event.getPersonId());
+            if (depth.containsKey(person)) {
+                refresh(person);
+            }
+        }
+    }
+
+    /**
+     * Lower depths starting at person and propagate to children still within range.
+     */
+    private void relax(Person start, int startDepth) {
+        Queue<Person> queue = new ArrayDeque<>();
+        Queue<Integer> depths = new ArrayDeque<>();
+        queue.add(start);
+        depths.add(startDepth);
+
+        while (!queue.isEmpty()) {
+            Person person = queue.poll();
+            int d = depths.poll();
+            Integer known = depth.get(person);
+            if (known != null && known <= d) {
+                continue;
+            }
+            depth.put(person, d);
+            refresh(person);
+
+            if (d < generations) {
+                for (Person child : person.getChildren()) {
+                    queue.add(child);
+                    depths.add(d + 1);
+                }
+            }
+        }
+    }
+
+    private void refresh(Person person) {
+        if (!livingOnly || person.isAlive()) {
+            include(person);
+        } else {
+            exclude(person);
+        }
+    }
+}
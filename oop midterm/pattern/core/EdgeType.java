@@ -0,0 +1,19 @@
+package core;
+
+/**
+ * Kinds of links between people. Each value names what the next person is to the previous one.
+ */
+public enum EdgeType {
+    PARENT, CHILD, SPOUSE;
+
+    public EdgeType inverse() {
+        switch (this) {
+            case PARENT:
+                return CHILD;
+            case CHILD:
+                return PARENT;
+            default:
+                return SPOUSE;
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package core;
 
-import composite.PersonNode;
+import event.ChangeFeed;
+import event.TreeEvent;
+import model.NameStore;
 import model.Person;
+import strategy.GraphRenderer;
 import strategy.IndentedTreeRenderer;
-import strategy.Renderer;
+import strategy.MemoizingRenderer;
+import trace.CycleCheckEvent;
+import trace.MutationEvent;
+import trace.TraversalEvent;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Main registry for managing the family tree.
@@ -13,21 +23,54 @@ import java.util.*;
  */
 public class FamilyTree {
     private final Map<String, Person> people;
-    private final Renderer defaultRenderer;
+    private final MemoizingRenderer defaultRenderer;
+    private final ComponentIndex components;
+    private final TreeValidator validator;
+    private final Set<Person> changedSinceValidation;
+    private boolean validatedOnce;
+    // Parent-child links where the parent is not born before the child
+    private int birthOrderViolations;
+    private final ChangeFeed changes;
+    private final SubtreeAggregates aggregates;
+    private final GenerationIndex generations;
+    private final MemoryAccounting memory;
+    private final NameStore names;
 
     public FamilyTree() {
         this.people = new HashMap<>();
         this.defaultRenderer = new IndentedTreeRenderer();
+        this.components = new ComponentIndex();
+        this.validator = new TreeValidator();
+        this.changedSinceValidation = new HashSet<>();
+        this.changes = new ChangeFeed();
+        this.aggregates = new SubtreeAggregates();
+        this.generations = new GenerationIndex();
+        this.memory = new MemoryAccounting();
+        this.names = new NameStore();
     }
 
     /**
      * Add a person to the tree.
      */
     public void addPerson(Person person) {
+        MutationEvent event = new MutationEvent();
+        event.begin();
         if (people.containsKey(person.getId())) {
             throw new IllegalArgumentException("Person with ID " + person.getId() + " already exists");
         }
+        names.add(person);
         people.put(person.getId(), person);
+        components.add(person.getId());
+        touched(person);
+        aggregates.onPersonAdded(person);
+        generations.onPersonAdded(person);
+        memory.onPersonAdded(person);
+        changes.publish(TreeEvent.personAdded(person.getId(), person.getFullName(), person.getGender(),
+                person.getBirthYear(), person.getDeathYear()));
+        if (people.size() % MemoryAccounting.SAMPLE_EVERY == 0) {
+            memoryReport();
+        }
+        event.complete("addPerson", person.getId(), -1, 1, 0);
     }
 
     /**
@@ -41,10 +84,86 @@ public class FamilyTree {
         return person;
     }
 
+    /**
+     * Check whether a person with this ID is in the tree.
+     */
+    public boolean containsPerson(String id) {
+        return people.containsKey(id);
+    }
+
+    /**
+     * Number of people in the tree.
+     */
+    public int size() {
+        return people.size();
+    }
+
+    /**
+     * Read-only view of everyone in the tree (not a copy).
+     */
+    public Collection<Person> people() {
+        return Collections.unmodifiableCollection(people.values());
+    }
+
+    /**
+     * Every parent-child link as (parent, child), ordered so that replaying them through
+     * addParentChild rebuilds each parent's children in list order and each child's
+     * parent1/parent2 the same way round. A link waits until the child's first parent
+     * is linked; if records disagree so that no such order exists, the remaining links
+     * keep children order.
+     */
+    public List<Map.Entry<Person, Person>> parentChildLinks() {
+        List<Map.Entry<Person, Person>> links = new ArrayList<>();
+        // Children each parent still has to link, in list order
+        Map<Person, Deque<Person>> pending = new HashMap<>();
+        Set<Person> firstParentLinked = new HashSet<>();
+        Deque<Person> ready = new ArrayDeque<>();
+        for (Person person : people.values()) {
+            if (person.getChildCount() > 0) {
+                pending.put(person, new ArrayDeque<>(person.getChildren()));
+                ready.add(person);
+            }
+        }
+
+        while (!pending.isEmpty()) {
+            Person parent;
+            if (ready.isEmpty()) {
+                // Conflicting orders: let one parent go ahead regardless
+                parent = pending.keySet().iterator().next();
+            } else {
+                parent = ready.poll();
+                Deque<Person> children = pending.get(parent);
+                if (children == null) {
+                    continue;
+                }
+                Person child = children.peek();
+                if (child.getParent1() != parent && !firstParentLinked.contains(child)) {
+                    // Waits until the first parent links this child
+                    continue;
+                }
+            }
+
+            Deque<Person> children = pending.get(parent);
+            Person child = children.poll();
+            links.add(new AbstractMap.SimpleImmutableEntry<>(parent, child));
+            if (children.isEmpty()) {
+                pending.remove(parent);
+            } else {
+                ready.addFirst(parent);
+            }
+            if (firstParentLinked.add(child) && child.getParent2() != null && child.getParent2() != parent) {
+                ready.add(child.getParent2());
+            }
+        }
+        return links;
+    }
+
     /**
      * Link parent and child, enforcing rules.
      */
     public void addParentChild(String parentId, String childId) {
+        MutationEvent event = new MutationEvent();
+        event.begin();
         Person parent = getPerson(parentId);
         Person child = getPerson(childId);
 
@@ -56,21 +175,34 @@ public class FamilyTree {
         // Add relationships
         child.addParent(parent);
         parent.addChild(child);
+        if (parent.getBirthYear() >= child.getBirthYear()) {
+            birthOrderViolations++;
+        }
+        components.union(parentId, childId);
+        touched(parent, child);
+        aggregates.onLinked(parent, child);
+        generations.onLinked(parent, child);
+        memory.onLinked(parent);
+        defaultRenderer.invalidateLink(parent, child);
+        changes.publish(TreeEvent.parentChildLinked(parentId, childId));
+        event.otherId = childId;
+        event.complete("addParentChild", parentId, -1, 2, 0);
     }
 
     /**
      * Check if person1 is an ancestor of person2.
      */
     private boolean isAncestor(Person person1, Person person2) {
-        if (person1.equals(person2)) {
-            return true;
-        }
+        CycleCheckEvent event = new CycleCheckEvent();
+        event.begin();
+        boolean found = person1.equals(person2);
 
         Set<Person> visited = new HashSet<>();
         Queue<Person> queue = new LinkedList<>();
         queue.add(person2);
+        int maxFrontier = 1;
 
-        while (!queue.isEmpty()) {
+        while (!found && !queue.isEmpty()) {
             Person current = queue.poll();
             if (visited.contains(current)) {
                 continue;
@@ -78,7 +210,8 @@ public class FamilyTree {
             visited.add(current);
 
             if (current.equals(person1)) {
-                return true;
+                found = true;
+                break;
             }
 
             if (current.getParent1() != null) {
@@ -87,69 +220,453 @@ public class FamilyTree {
             if (current.getParent2() != null) {
                 queue.add(current.getParent2());
             }
+            maxFrontier = Math.max(maxFrontier, queue.size());
         }
 
-        return false;
+        event.ancestorId = person1.getId();
+        event.found = found;
+        event.complete("isAncestor", person2.getId(), -1, visited.size(), maxFrontier);
+        return found;
     }
 
     /**
      * Marry two people.
      */
     public void marry(String personAId, String personBId, int year) {
+        MutationEvent event = new MutationEvent();
+        event.begin();
         Person personA = getPerson(personAId);
         Person personB = getPerson(personBId);
+        boolean firstMarriageA = personA.getSpouse() == null;
+        boolean firstMarriageB = personB.getSpouse() == null;
 
         personA.setSpouse(personB, year);
         personB.setSpouse(personA, year);
+        components.union(personAId, personBId);
+        touched(personA, personB);
+        memory.onMarried(firstMarriageA, firstMarriageB);
+        changes.publish(TreeEvent.married(personAId, personBId, year));
+        event.otherId = personBId;
+        event.complete("marry", personAId, -1, 2, 0);
+    }
+
+    /**
+     * Rename a person.
+     */
+    public void setFullName(String personId, String fullName) {
+        MutationEvent event = new MutationEvent();
+        event.begin();
+        Person person = getPerson(personId);
+        person.setFullName(fullName);
+        defaultRenderer.invalidate(person);
+        changes.publish(TreeEvent.fieldUpdated(personId, TreeEvent.FULL_NAME, fullName));
+        event.complete("setFullName", personId, -1, 1, 0);
+    }
+
+    /**
+     * Set or clear (null) a person's death year.
+     */
+    public void setDeathYear(String personId, Integer deathYear) {
+        MutationEvent event = new MutationEvent();
+        event.begin();
+        Person person = getPerson(personId);
+        boolean wasAlive = person.isAlive();
+        person.setDeathYear(deathYear);
+        touched(person);
+        defaultRenderer.invalidate(person);
+        if (wasAlive != person.isAlive()) {
+            aggregates.onAliveChanged(person);
+            memory.onDeathYearChanged(!wasAlive, !person.isAlive());
+        }
+        changes.publish(TreeEvent.fieldUpdated(personId, TreeEvent.DEATH_YEAR,
+                deathYear == null ? null : deathYear.toString()));
+        event.complete("setDeathYear", personId, -1, 1, 0);
+    }
+
+    /**
+     * Merge a duplicate record into the one to keep: children, parents and spouse of
+     * dropId are moved to keepId and dropId is removed. All rules are checked before
+     * anything changes, so a failed merge leaves the tree untouched.
+     */
+    public void merge(String keepId, String dropId) {
+        MutationEvent event = new MutationEvent();
+        event.begin();
+        Person keep = getPerson(keepId);
+        Person drop = getPerson(dropId);
+        if (keep.equals(drop)) {
+            throw new IllegalArgumentException("Cannot merge a person into itself");
+        }
+        if (isAncestor(keep, drop) || isAncestor(drop, keep)) {
+            throw new IllegalArgumentException("Cannot merge " + dropId + " into " + keepId + ": one is an ancestor of the other");
+        }
+
+        Set<Person> parents = new LinkedHashSet<>();
+        for (Person person : new Person[]{keep.getParent1(), keep.getParent2(), drop.getParent1(), drop.getParent2()}) {
+            if (person != null) {
+                parents.add(person);
+            }
+        }
+        if (parents.size() > 2) {
+            throw new IllegalArgumentException("Cannot merge " + dropId + " into " + keepId + ": more than two parents");
+        }
+        Person spouse = drop.getSpouse();
+        if (spouse != null && keep.getSpouse() != null && !keep.getSpouse().equals(spouse)) {
+            throw new IllegalArgumentException("Cannot merge " + dropId + " into " + keepId + ": different spouses");
+        }
+
+        // Counters are taken back for everyone rewired and counted again afterwards
+        Set<Person> rewired = new LinkedHashSet<>(parents);
+        rewired.add(keep);
+        rewired.add(drop);
+        if (spouse != null) {
+            rewired.add(spouse);
+        }
+        for (Person person : rewired) {
+            memory.count(person, -1);
+        }
+        birthOrderViolations -= birthOrderViolations(keep) + birthOrderViolations(drop);
+
+        // Relatives keep drop's place: the same parent slot and position among siblings
+        for (Person child : drop.getChildren()) {
+            child.replaceParent(drop, keep);
+            keep.addChild(child);
+        }
+        for (Person parent : new Person[]{drop.getParent1(), drop.getParent2()}) {
+            if (parent != null) {
+                parent.replaceChild(drop, keep);
+                if (!keep.hasParent(parent)) {
+                    keep.addParent(parent);
+                }
+            }
+        }
+        if (spouse != null && keep.getSpouse() == null) {
+            int year = drop.getMarriageYear();
+            Integer divorceYear = drop.getDivorceYear();
+            Integer spouseDivorceYear = spouse.getDivorceYear();
+            spouse.removeSpouse();
+            spouse.setSpouse(keep, year);
+            keep.setSpouse(spouse, year);
+            keep.setDivorceYear(divorceYear);
+            spouse.setDivorceYear(spouseDivorceYear);
+        }
+        drop.removeSpouse();
+        people.remove(dropId);
+        names.remove(drop);
+
+        // Only keep's neighbourhood changed, so every index is updated in place
+        rewired.remove(drop);
+        for (Person person : rewired) {
+            memory.count(person, 1);
+        }
+        birthOrderViolations += birthOrderViolations(keep);
+        components.remove(dropId, keepId);
+        aggregates.onMerged(keep, drop);
+        generations.onMerged(keep, drop);
+        defaultRenderer.invalidate(keep, drop);
+        validator.forget(dropId);
+        changedSinceValidation.remove(drop);
+        touched(keep);
+
+        changes.publish(TreeEvent.merged(keepId, dropId));
+        event.otherId = dropId;
+        event.complete("merge", keepId, -1, 1, 0);
+    }
+
+    /**
+     * Links of a person, to its parents and to its children, breaking birth order.
+     */
+    private static int birthOrderViolations(Person person) {
+        int violations = 0;
+        for (Person parent : new Person[]{person.getParent1(), person.getParent2()}) {
+            if (parent != null && parent.getBirthYear() >= person.getBirthYear()) {
+                violations++;
+            }
+        }
+        for (Person child : person.getChildren()) {
+            if (person.getBirthYear() >= child.getBirthYear()) {
+                violations++;
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Number of distinct descendants (exact for small lines, estimated within ~3% for large ones).
+     */
+    public long descendantCountOf(String personId) {
+        return aggregates.descendantCount(getPerson(personId));
+    }
+
+    /**
+     * Number of distinct living descendants (same accuracy as descendantCountOf).
+     */
+    public long livingDescendantCountOf(String personId) {
+        return aggregates.livingDescendantCount(getPerson(personId));
+    }
+
+    /**
+     * Generations in the longest line below a person (0 when childless).
+     */
+    public int lineDepthOf(String personId) {
+        return aggregates.lineDepth(getPerson(personId));
+    }
+
+    /**
+     * Estimated retained heap by component, from counters kept current by every mutation.
+     * Each call also records a growth sample.
+     */
+    public MemoryReport memoryReport() {
+        return memoryReport(true);
+    }
+
+    /**
+     * Estimated total retained bytes, without recording a sample.
+     */
+    public long estimatedBytes() {
+        return memoryReport(false).totalBytes();
+    }
+
+    private MemoryReport memoryReport(boolean recordSample) {
+        long count = memory.people();
+        long indexBytes = count * 2 * MemoryAccounting.MAP_ENTRY
+                + count * (MemoryAccounting.MAP_ENTRY + MemoryAccounting.BOXED_INTEGER)
+                + aggregates.footprint();
+        long cacheBytes = changes.capacity() * MemoryAccounting.REFERENCE
+                + changes.retained() * MemoryAccounting.EVENT
+                + changedSinceValidation.size() * MemoryAccounting.MAP_ENTRY
+                + defaultRenderer.retainedBytes();
+        return memory.report(indexBytes, cacheBytes, names.footprint(), recordSample);
+    }
+
+    /**
+     * Everyone whose surname (last name word) is exactly this, from the name store's posting list.
+     */
+    public List<Person> withSurname(String surname) {
+        return names.withSurname(surname);
+    }
+
+    /**
+     * Most frequent surnames with their head counts, largest first.
+     */
+    public List<Map.Entry<String, Integer>> commonSurnames(int limit) {
+        return names.commonSurnames(limit);
+    }
+
+    /**
+     * Generation number: 0 without recorded parents, else one more than the deepest parent.
+     */
+    public int generationOf(String personId) {
+        return generations.generation(getPerson(personId));
+    }
+
+    /**
+     * N-th cousins (degree 1 = first cousins) removed by the given number of generations,
+     * younger or older. Siblings, descendants and closer cousins are never included.
+     */
+    public List<Person> cousinsOf(String personId, int degree, int removal) {
+        if (degree < 1) {
+            throw new IllegalArgumentException("Cousin degree must be at least 1");
+        }
+        if (removal < 0) {
+            throw new IllegalArgumentException("Removal cannot be negative");
+        }
+        return new CousinFinder(generations).find(getPerson(personId), degree, removal);
+    }
+
+    /**
+     * Founders (people without recorded parents) with the most descendants.
+     */
+    public List<Person> mostProlificFounders(int limit) {
+        return aggregates.mostProlificFounders(limit);
+    }
+
+    /**
+     * Register a standing query; its results then follow every mutation of this tree.
+     */
+    public <Q extends StandingQuery> Q register(Q query) {
+        query.attach(this);
+        return query;
+    }
+
+    /**
+     * Mutation feed; subscribe to receive batches of events or read from a sequence number.
+     */
+    public ChangeFeed changes() {
+        return changes;
     }
 
     /**
      * Get ancestors up to specified generations.
      */
     public List<Person> ancestorsOf(String personId, int generations) {
+        TraversalEvent event = new TraversalEvent();
+        event.begin();
         Person person = getPerson(personId);
         List<Person> ancestors = new ArrayList<>();
-        collectAncestors(person, generations, ancestors, new HashSet<>());
+        int depth = collectAncestors(person, generations, ancestors, new HashSet<>());
+        event.complete("ancestorsOf", personId, generations, ancestors.size(), depth);
         return ancestors;
     }
 
-    private void collectAncestors(Person person, int generations, List<Person> result, Set<Person> visited) {
+    /**
+     * Returns the deepest recursion reached, which bounds the depth-first frontier.
+     */
+    private int collectAncestors(Person person, int generations, List<Person> result, Set<Person> visited) {
         if (person == null || visited.contains(person) || generations < 0) {
-            return;
+            return 0;
         }
 
         visited.add(person);
         result.add(person);
 
+        int depth = 0;
         if (generations > 0) {
-            collectAncestors(person.getParent1(), generations - 1, result, visited);
-            collectAncestors(person.getParent2(), generations - 1, result, visited);
+            depth = Math.max(collectAncestors(person.getParent1(), generations - 1, result, visited),
+                    collectAncestors(person.getParent2(), generations - 1, result, visited));
         }
+        return depth + 1;
     }
 
     /**
      * Get descendants up to specified generations.
      */
     public List<Person> descendantsOf(String personId, int generations) {
+        TraversalEvent event = new TraversalEvent();
+        event.begin();
         Person person = getPerson(personId);
         List<Person> descendants = new ArrayList<>();
-        collectDescendants(person, generations, descendants, new HashSet<>());
+        int depth = collectDescendants(person, generations, descendants, new HashSet<>());
+        event.complete("descendantsOf", personId, generations, descendants.size(), depth);
         return descendants;
     }
 
-    private void collectDescendants(Person person, int generations, List<Person> result, Set<Person> visited) {
+    private int collectDescendants(Person person, int generations, List<Person> result, Set<Person> visited) {
         if (person == null || visited.contains(person) || generations < 0) {
-            return;
+            return 0;
         }
 
         visited.add(person);
         result.add(person);
 
+        int depth = 0;
         if (generations > 0) {
             for (Person child : person.getChildren()) {
-                collectDescendants(child, generations - 1, result, visited);
+                depth = Math.max(depth, collectDescendants(child, generations - 1, result, visited));
             }
         }
+        return depth + 1;
+    }
+
+    /**
+     * Get ancestors for many people in one shared multi-source traversal.
+     * Keys are person IDs in input order.
+     */
+    public Map<String, List<Person>> ancestorsOfAll(Collection<String> personIds, int generations) {
+        return byId(new BatchTraversal(true, generations, true).run(resolve(personIds)));
+    }
+
+    /**
+     * Get descendants for many people in one shared multi-source traversal.
+     */
+    public Map<String, List<Person>> descendantsOfAll(Collection<String> personIds, int generations) {
+        return byId(new BatchTraversal(false, generations, true).run(resolve(personIds)));
+    }
+
+    /**
+     * Count ancestors (including the person) for many people without building result lists.
+     */
+    public Map<String, Integer> ancestorCounts(Collection<String> personIds, int generations) {
+        return byId(new BatchTraversal(true, generations, false).count(resolve(personIds)));
+    }
+
+    /**
+     * Count descendants (including the person) for many people without building result lists.
+     */
+    public Map<String, Integer> descendantCounts(Collection<String> personIds, int generations) {
+        return byId(new BatchTraversal(false, generations, false).count(resolve(personIds)));
+    }
+
+    private List<Person> resolve(Collection<String> personIds) {
+        List<Person> result = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(personIds)) {
+            result.add(getPerson(id));
+        }
+        return result;
+    }
+
+    private static <V> Map<String, V> byId(Map<Person, V> byPerson) {
+        Map<String, V> result = new LinkedHashMap<>();
+        for (Map.Entry<Person, V> entry : byPerson.entrySet()) {
+            result.put(entry.getKey().getId(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Lazily stream ancestors breadth-first (includes the person).
+     * Supports parallel streams; memory is the frontier plus a reference and an int per
+     * person reached, not a result list.
+     */
+    public Stream<Person> ancestorsStream(String personId, int generations) {
+        Person person = getPerson(personId);
+        return StreamSupport.stream(new TraversalSpliterator(person, generations, true), false);
+    }
+
+    /**
+     * Lazily stream descendants breadth-first (includes the person).
+     */
+    public Stream<Person> descendantsStream(String personId, int generations) {
+        Person person = getPerson(personId);
+        return StreamSupport.stream(new TraversalSpliterator(person, generations, false), false);
+    }
+
+    /**
+     * Lazily stream ancestors, expanding only people that match expandIf.
+     * People failing expandIf are still produced, but their parents are not visited.
+     */
+    public Stream<Person> ancestorsStream(String personId, int generations, Predicate<Person> expandIf) {
+        Person person = getPerson(personId);
+        return StreamSupport.stream(new TraversalSpliterator(person, generations, true, expandIf), false);
+    }
+
+    /**
+     * Lazily stream descendants, expanding only people that match expandIf.
+     */
+    public Stream<Person> descendantsStream(String personId, int generations, Predicate<Person> expandIf) {
+        Person person = getPerson(personId);
+        return StreamSupport.stream(new TraversalSpliterator(person, generations, false, expandIf), false);
+    }
+
+    /**
+     * Fetch one page of an ancestor or descendant query and the cursor for the next page.
+     * Following the returned cursor on an unchanged tree resumes the walk where this page
+     * stopped; a decoded token, or a tree changed since, replays the walk to the offset.
+     */
+    public TraversalCursor.Page page(TraversalCursor cursor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        long version = changes.lastSequence();
+        TraversalSpliterator walk = cursor.resume(version);
+        if (walk == null) {
+            walk = new TraversalSpliterator(getPerson(cursor.getPersonId()), cursor.getGenerations(),
+                    cursor.isAncestors());
+            for (long skipped = 0; skipped < cursor.getOffset() && walk.tryAdvance(person -> { }); skipped++) {
+                // Replaying up to the offset
+            }
+        }
+
+        List<Person> items = new ArrayList<>(pageSize);
+        while (items.size() < pageSize && walk.tryAdvance(items::add)) {
+            // Filling the page
+        }
+        // Look one ahead to know whether another page exists, then hand it back to the walk
+        List<Person> lookahead = new ArrayList<>(1);
+        if (!walk.tryAdvance(lookahead::add)) {
+            return new TraversalCursor.Page(items, null);
+        }
+        walk.unread(lookahead.get(0));
+        return new TraversalCursor.Page(items, cursor.advance(items.size(), walk, version));
     }
 
     /**
@@ -194,21 +711,126 @@ public class FamilyTree {
         return person.getSpouse();
     }
 
+    /**
+     * Check in near-constant time whether two people share any blood or marriage connection.
+     */
+    public boolean relatedAtAll(String personAId, String personBId) {
+        getPerson(personAId);
+        getPerson(personBId);
+        return components.connected(personAId, personBId);
+    }
+
+    /**
+     * Shortest chain of parent, child and spouse links between two people, or null if none.
+     */
+    public RelationshipPath pathBetween(String fromId, String toId) {
+        return pathBetween(fromId, toId, EnumSet.allOf(EdgeType.class), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Shortest chain using only the given link types and at most maxHops links, or null if none.
+     */
+    public RelationshipPath pathBetween(String fromId, String toId, Set<EdgeType> edgeTypes, int maxHops) {
+        Person from = getPerson(fromId);
+        Person to = getPerson(toId);
+        // Different components can never be joined, whatever the edge types
+        if (!components.connected(fromId, toId)) {
+            return null;
+        }
+        return new PathFinder(edgeTypes, maxHops).find(from, to);
+    }
+
+    /**
+     * Get the connected-component ID of a person (stable until components merge).
+     */
+    public String componentIdOf(String personId) {
+        getPerson(personId);
+        return components.find(personId);
+    }
+
+    /**
+     * Get the number of people connected to this person, including the person.
+     */
+    public int componentSizeOf(String personId) {
+        getPerson(personId);
+        return components.sizeOf(personId);
+    }
+
+    /**
+     * Get the largest families as component ID to size, largest first.
+     */
+    public List<Map.Entry<String, Integer>> largestFamilies(int limit) {
+        return components.largest(limit);
+    }
+
+    private void touched(Person... changed) {
+        // Nothing to track until a first full validation exists
+        if (validatedOnce) {
+            changedSinceValidation.addAll(Arrays.asList(changed));
+        }
+    }
+
+    /**
+     * Audit the whole tree in parallel (birth order, parent/child links, marriages).
+     */
+    public ValidationReport validate() {
+        changedSinceValidation.clear();
+        validatedOnce = true;
+        return validator.validateAll(people.values());
+    }
+
+    /**
+     * Number of parent-child links where the parent is not born before the child
+     * (the PARENT_BORN_AFTER_CHILD rule), kept current on every link and merge.
+     */
+    public int birthOrderViolations() {
+        return birthOrderViolations;
+    }
+
+    /**
+     * Re-check only people touched since the last validation; falls back to a full pass the first time.
+     */
+    public ValidationReport revalidate() {
+        if (!validatedOnce) {
+            return validate();
+        }
+        List<Person> changed = new ArrayList<>(changedSinceValidation);
+        changedSinceValidation.clear();
+        return validator.revalidate(changed, people.size());
+    }
+
     /**
      * Render ancestors tree.
      */
     public String renderAncestors(String personId, int generations) {
-        Person person = getPerson(personId);
-        PersonNode tree = PersonNode.buildAncestorTree(person, generations);
-        return defaultRenderer.render(tree);
+        return defaultRenderer.renderAncestors(getPerson(personId), generations);
     }
 
     /**
-     * Render descendants tree.
+     * Render descendants tree; unchanged subtrees are reused from earlier renders.
      */
     public String renderDescendants(String personId, int generations) {
-        Person person = getPerson(personId);
-        PersonNode tree = PersonNode.buildDescendantTree(person, generations);
-        return defaultRenderer.render(tree);
+        return defaultRenderer.renderDescendants(getPerson(personId), generations);
+    }
+
+    /**
+     * Stream ancestors as a graph (each person and edge once) to out.
+     */
+    public void exportAncestors(String personId, int generations, GraphRenderer renderer, Appendable out) throws IOException {
+        renderer.writeReachable(getPerson(personId), generations, true, out);
+    }
+
+    /**
+     * Stream descendants as a graph (each person and edge once) to out.
+     */
+    public void exportDescendants(String personId, int generations, GraphRenderer renderer, Appendable out) throws IOException {
+        renderer.writeReachable(getPerson(personId), generations, false, out);
+    }
+
+    /**
+     * Stream the whole tree as a graph, formatting chunks in parallel.
+     */
+    public void exportAll(GraphRenderer renderer, Appendable out) throws IOException {
+        renderer.writeAll(people.values(), out);
     }
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package core;
+
+import model.Person;
+
+import java.util.*;
+
+/**
+ * Generation number of every person: 0 for people without recorded parents, otherwise
+ * one more than their deepest parent. A parent is therefore always strictly below its
+ * children, so an upward walk can stop as soon as it drops under a target generation.
+ */
+class GenerationIndex {
+    private final Map<Person, Integer> generations;
+
+    GenerationIndex() {
+        this.generations = new HashMap<>();
+    }
+
+    void clear() {
+        generations.clear();
+    }
+
+    void onPersonAdded(Person person) {
+        generations.put(person, 0);
+    }
+
+    /**
+     * Push a deeper generation down the child's line, stopping where nothing changes.
+     */
+    void onLinked(Person parent, Person child) {
+        Deque<Person> queue = new ArrayDeque<>();
+        if (raise(child, generation(parent) + 1)) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Person current = queue.poll();
+            int next = generation(current) + 1;
+            for (Person grandchild : current.getChildren()) {
+                if (raise(grandchild, next)) {
+                    queue.add(grandchild);
+                }
+            }
+        }
+    }
+
+    /**
+     * Called once drop's links have moved to keep. Keep now has drop's parents, so it is at
+     * least as deep as drop was, and drop's children only ever move down.
+     */
+    void onMerged(Person keep, Person drop) {
+        generations.remove(drop);
+        for (Person parent : new Person[]{keep.getParent1(), keep.getParent2()}) {
+            if (parent != null) {
+                onLinked(parent, keep);
+            }
+        }
+        for (Person child : keep.getChildren()) {
+            onLinked(keep, child);
+        }
+    }
+
+    int generation(Person person) {
+        Integer generation = generations.get(person);
+        return generation == null ? 0 : generation;
+    }
+
+    private boolean raise(Person person, int generation) {
+        if (generation(person) >= generation) {
+            return false;
+        }
+        generations.put(person, generation);
+        return true;
+    }
+}
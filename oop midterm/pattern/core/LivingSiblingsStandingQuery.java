@@ -0,0 +1,69 @@
+package core;
+
+import event.TreeEvent;
+import model.Person;
+
+/**
+ * Standing version of siblingsOf restricted to living siblings.
+ * Each change looks at most at the children of one parent.
+ */
+public class LivingSiblingsStandingQuery extends StandingQuery {
+    private String personId;
+
+    public LivingSiblingsStandingQuery(String personId) {
+        this.personId = personId;
+    }
+
+    @Override
+    protected void initialize() {
+        for (Person sibling : tree().siblingsOf(personId)) {
+            refresh(sibling);
+        }
+    }
+
+    @Override
+    protected void onMerged(String keepId, String dropId) {
+        if (personId.equals(dropId)) {
+            personId = keepId;
+        }
+    }
+
+    @Override
+    protected void onEvent(TreeEvent event) {
+        Person person = tree().getPerson(personId);
+
+        if (event.getType() == TreeEvent.Type.PARENT_CHILD_LINKED) {
+            Person parent = tree().getPerson(event.getPersonId());
+            Person child = tree().getPerson(event.getOtherId());
+            if (child.equals(person)) {
+                // New parent: all of its other children become siblings
+                for (Person sibling : parent.getChildren()) {
+                    if (!sibling.equals(person)) {
+                        refresh(sibling);
+                    }
+                }
+            } else if (person.hasParent(parent)) {
+                refresh(child);
+            }
+        } else if (event.getType() == TreeEvent.Type.FIELD_UPDATED && TreeEvent.DEATH_YEAR.equals(event.getField())) {
+            Person changed = tree().getPerson(event.getPersonId());
+            if (isSibling(person, changed)) {
+                refresh(changed);
+            }
+        }
+    }
+
+    private static boolean isSibling(Person person, Person other) {
+        return !other.equals(person)
+                && ((person.getParent1() != null && other.hasParent(person.getParent1()))
+                || (person.getParent2() != null && other.hasParent(person.getParent2())));
+    }
+
+    private void refresh(Person sibling) {
+        if (sibling.isAlive()) {
+            include(sibling);
+        } else {
+            exclude(sibling);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package core;
+
+import model.Person;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Counters behind FamilyTree's memory report, kept current by every mutation so a
+ * report never walks the heap. Sizes assume a 64-bit JVM with compressed references
+ * and compact (one byte per character) strings; they are estimates, not measurements.
+ */
+class MemoryAccounting {
+    static final long MAP_ENTRY = 40;
+    static final long PERSON = 72;
+    static final long BOXED_INTEGER = 16;
+    static final long STRING = 40;
+    static final long EMPTY_LIST = 24;
+    static final long CHILD_ARRAY = 56;
+    static final long REFERENCE = 4;
+    static final long EVENT = 64;
+    static final int SAMPLE_EVERY = 1024;
+    private static final int MAX_SAMPLES = 32;
+
+    private long people;
+    private long idChars;
+    private long deceased;
+    private long married;
+    private long childLinks;
+    private long parents;
+    private final Deque<MemoryReport.Sample> samples;
+
+    MemoryAccounting() {
+        this.samples = new ArrayDeque<>();
+    }
+
+    void clear() {
+        people = 0;
+        idChars = 0;
+        deceased = 0;
+        married = 0;
+        childLinks = 0;
+        parents = 0;
+    }
+
+    void onPersonAdded(Person person) {
+        people++;
+        idChars += person.getId().length();
+        if (person.getDeathYear() != null) {
+            deceased++;
+        }
+    }
+
+    /**
+     * Called after the link; the parent's first child allocates its list's backing array.
+     */
+    void onLinked(Person parent) {
+        childLinks++;
+        if (parent.getChildCount() == 1) {
+            parents++;
+        }
+    }
+
+    void onMarried(boolean firstMarriageA, boolean firstMarriageB) {
+        married += (firstMarriageA ? 1 : 0) + (firstMarriageB ? 1 : 0);
+    }
+
+    void onDeathYearChanged(boolean wasDeceased, boolean isDeceased) {
+        deceased += (isDeceased ? 1 : 0) - (wasDeceased ? 1 : 0);
+    }
+
+    /**
+     * Add (sign 1) or take back (sign -1) everything a person contributes, links included.
+     * A merge takes back the people it rewires, then counts the survivors again.
+     */
+    void count(Person person, int sign) {
+        people += sign;
+        idChars += sign * person.getId().length();
+        if (person.getDeathYear() != null) {
+            deceased += sign;
+        }
+        if (person.getChildCount() > 0) {
+            parents += sign;
+            childLinks += sign * person.getChildCount();
+        }
+        if (person.getSpouse() != null) {
+            married += sign;
+        }
+    }
+
+    long people() {
+        return people;
+    }
+
+    /**
+     * Build a report from the counters plus the index, cache and name store sizes the tree supplies.
+     */
+    MemoryReport report(long indexBytes, long cacheBytes, long nameBytes, boolean recordSample) {
+        Map<MemoryReport.Component, Long> bytes = new EnumMap<>(MemoryReport.Component.class);
+        bytes.put(MemoryReport.Component.RECORDS,
+                people * (PERSON + MAP_ENTRY) + (deceased + married) * BOXED_INTEGER);
+        bytes.put(MemoryReport.Component.ADJACENCY,
+                people * EMPTY_LIST + parents * CHILD_ARRAY + childLinks * REFERENCE);
+        bytes.put(MemoryReport.Component.STRINGS, people * STRING + idChars + nameBytes);
+        bytes.put(MemoryReport.Component.CACHES, cacheBytes);
+        bytes.put(MemoryReport.Component.INDEXES, indexBytes);
+
+        long total = 0;
+        for (long value : bytes.values()) {
+            total += value;
+        }
+        if (recordSample) {
+            samples.addLast(new MemoryReport.Sample(System.currentTimeMillis(), people, total));
+            if (samples.size() > MAX_SAMPLES) {
+                samples.removeFirst();
+            }
+        }
+        return new MemoryReport(people, bytes, new ArrayList<>(samples));
+    }
+}
@@ -0,0 +1,130 @@
+package core;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimated retained heap of one FamilyTree, split by component, with recent growth.
+ * Built from counters maintained on every mutation, so producing one is cheap.
+ */
+public final class MemoryReport {
+    public enum Component {
+        /** Person objects, the people map and boxed years. */
+        RECORDS,
+        /** Children lists and their backing arrays. */
+        ADJACENCY,
+        /** IDs and names. */
+        STRINGS,
+        /** Change-feed ring buffer, pending validation set and the default renderer's fragments. */
+        CACHES,
+        /** Union-find, generation index and descendant sketches. */
+        INDEXES
+    }
+
+    /**
+     * Size of the tree at one point in time.
+     */
+    public static final class Sample {
+        private final long timeMillis;
+        private final long people;
+        private final long bytes;
+
+        Sample(long timeMillis, long people, long bytes) {
+            this.timeMillis = timeMillis;
+            this.people = people;
+            this.bytes = bytes;
+        }
+
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+
+        public long getPeople() {
+            return people;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    private final long people;
+    private final Map<Component, Long> bytes;
+    private final List<Sample> samples;
+
+    MemoryReport(long people, Map<Component, Long> bytes, List<Sample> samples) {
+        this.people = people;
+        this.bytes = Collections.unmodifiableMap(new EnumMap<>(bytes));
+        this.samples = Collections.unmodifiableList(samples);
+    }
+
+    public long getPeople() {
+        return people;
+    }
+
+    public long bytes(Component component) {
+        return bytes.get(component);
+    }
+
+    public long totalBytes() {
+        long total = 0;
+        for (long value : bytes.values()) {
+            total += value;
+        }
+        return total;
+    }
+
+    public long bytesPerPerson() {
+        return people == 0 ? 0 : totalBytes() / people;
+    }
+
+    /**
+     * Samples taken every few thousand additions and on each report, oldest first.
+     */
+    public List<Sample> getSamples() {
+        return samples;
+    }
+
+    /**
+     * Marginal bytes per person added between the oldest and newest sample (0 without growth).
+     */
+    public long growthBytesPerPerson() {
+        if (samples.size() < 2) {
+            return 0;
+        }
+        Sample first = samples.get(0);
+        Sample last = samples.get(samples.size() - 1);
+        long added = last.people - first.people;
+        return added <= 0 ? 0 : (last.bytes - first.bytes) / added;
+    }
+
+    /**
+     * Bytes gained per minute between the oldest and newest sample.
+     */
+    public double growthBytesPerMinute() {
+        if (samples.size() < 2) {
+            return 0;
+        }
+        Sample first = samples.get(0);
+        Sample last = samples.get(samples.size() - 1);
+        long elapsed = last.timeMillis - first.timeMillis;
+        return elapsed <= 0 ? 0 : (last.bytes - first.bytes) * 60000.0 / elapsed;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Component component : Component.values()) {
+            sb.append(String.format("%-10s %,14d bytes%n", component.name().toLowerCase(), bytes(component)));
+        }
+        sb.append(String.format("%-10s %,14d bytes%n", "total", totalBytes()));
+        sb.append(String.format("%,d people, %,d bytes/person", people, bytesPerPerson()));
+        if (samples.size() >= 2) {
+            sb.append(String.format("%ngrowth: %,d bytes/person added, %,.0f bytes/minute over %d samples",
+                    growthBytesPerPerson(), growthBytesPerMinute(), samples.size()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,136 @@
+package core;
+
+import model.Person;
+
+import java.util.*;
+
+/**
+ * Bidirectional breadth-first search for the shortest chain of links between two people.
+ * Always grows the smaller frontier by one full level, so the search touches roughly
+ * two balls of half the distance instead of one ball of the full distance.
+ */
+class PathFinder {
+    private final Set<EdgeType> allowed;
+    private final int maxHops;
+
+    PathFinder(Set<EdgeType> allowed, int maxHops) {
+        this.allowed = EnumSet.noneOf(EdgeType.class);
+        this.allowed.addAll(allowed);
+        this.maxHops = maxHops;
+    }
+
+    /**
+     * Where a visited person was reached from and by which forward-direction link.
+     */
+    private static final class Step {
+        final Person previous;
+        final EdgeType edge;
+        final int depth;
+
+        Step(Person previous, EdgeType edge, int depth) {
+            this.previous = previous;
+            this.edge = edge;
+            this.depth = depth;
+        }
+    }
+
+    RelationshipPath find(Person from, Person to) {
+        if (from.equals(to)) {
+            return new RelationshipPath(Collections.singletonList(from), Collections.emptyList());
+        }
+
+        Map<Person, Step> forward = new HashMap<>();
+        Map<Person, Step> backward = new HashMap<>();
+        forward.put(from, new Step(null, null, 0));
+        backward.put(to, new Step(null, null, 0));
+        List<Person> forwardFrontier = new ArrayList<>(Collections.singletonList(from));
+        List<Person> backwardFrontier = new ArrayList<>(Collections.singletonList(to));
+        int hops = 0;
+
+        while (!forwardFrontier.isEmpty() && !backwardFrontier.isEmpty() && hops < maxHops) {
+            boolean expandForward = forwardFrontier.size() <= backwardFrontier.size();
+            Person meeting = null;
+            int best = Integer.MAX_VALUE;
+            List<Person> next = new ArrayList<>();
+
+            for (Person person : expandForward ? forwardFrontier : backwardFrontier) {
+                Map<Person, Step> own = expandForward ? forward : backward;
+                Map<Person, Step> other = expandForward ? backward : forward;
+                int depth = own.get(person).depth + 1;
+
+                for (EdgeType type : EdgeType.values()) {
+                    // Backward steps walk links in reverse, so the forward label is the inverse
+                    EdgeType forwardLabel = expandForward ? type : type.inverse();
+                    if (!allowed.contains(forwardLabel)) {
+                        continue;
+                    }
+                    for (Person neighbour : neighbours(person, type)) {
+                        if (own.containsKey(neighbour)) {
+                            continue;
+                        }
+                        own.put(neighbour, new Step(person, forwardLabel, depth));
+                        next.add(neighbour);
+                        Step met = other.get(neighbour);
+                        if (met != null && depth + met.depth < best) {
+                            best = depth + met.depth;
+                            meeting = neighbour;
+                        }
+                    }
+                }
+            }
+
+            if (meeting != null) {
+                return best <= maxHops ? build(meeting, forward, backward) : null;
+            }
+            if (expandForward) {
+                forwardFrontier = next;
+            } else {
+                backwardFrontier = next;
+            }
+            hops++;
+        }
+        return null;
+    }
+
+    private static List<Person> neighbours(Person person, EdgeType type) {
+        List<Person> result = new ArrayList<>(2);
+        switch (type) {
+            case PARENT:
+                if (person.getParent1() != null) {
+                    result.add(person.getParent1());
+                }
+                if (person.getParent2() != null) {
+                    result.add(person.getParent2());
+                }
+                return result;
+            case CHILD:
+                return person.getChildren();
+            default:
+                if (person.getSpouse() != null) {
+                    result.add(person.getSpouse());
+                }
+                return result;
+        }
+    }
+
+    private static RelationshipPath build(Person meeting, Map<Person, Step> forward, Map<Person, Step> backward) {
+        LinkedList<Person> people = new LinkedList<>();
+        LinkedList<EdgeType> edges = new LinkedList<>();
+
+        people.add(meeting);
+        for (Step step = forward.get(meeting); step.previous != null; step = forward.get(step.previous)) {
+            people.addFirst(step.previous);
+            edges.addFirst(step.edge);
+        }
+        for (Person current = meeting; ; ) {
+            Step step = backward.get(current);
+            if (step.previous == null) {
+                break;
+            }
+            people.addLast(step.previous);
+            edges.addLast(step.edge);
+            current = step.previous;
+        }
+        return new RelationshipPath(people, edges);
+    }
+}
@@ -0,0 +1,45 @@
+package core;
+
+import model.Person;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A chain of people joined by labelled links, e.g. P001 -CHILD-> P002 -SPOUSE-> P003
+ * reads "P002 is a child of P001, P003 is the spouse of P002".
+ */
+public final class RelationshipPath {
+    private final List<Person> people;
+    private final List<EdgeType> edges;
+
+    RelationshipPath(List<Person> people, List<EdgeType> edges) {
+        this.people = Collections.unmodifiableList(new ArrayList<>(people));
+        this.edges = Collections.unmodifiableList(new ArrayList<>(edges));
+    }
+
+    public List<Person> getPeople() {
+        return people;
+    }
+
+    /**
+     * edges.get(i) is what people.get(i + 1) is to people.get(i).
+     */
+    public List<EdgeType> getEdges() {
+        return edges;
+    }
+
+    public int hops() {
+        return edges.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(people.get(0).getId());
+        for (int i = 0; i < edges.size(); i++) {
+            sb.append(" -").append(edges.get(i)).append("-> ").append(people.get(i + 1).getId());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,122 @@
+package core;
+
+import event.ChangeFeed;
+import event.TreeEvent;
+import model.Person;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A query registered on a FamilyTree whose result set is kept up to date
+ * from the change feed. Subclasses update results per event instead of re-running the query.
+ */
+public abstract class StandingQuery {
+    private final Set<Person> results;
+    private final List<DeltaListener> listeners;
+    private final Set<Person> added;
+    private final Set<Person> removed;
+    private FamilyTree tree;
+    private ChangeFeed.Subscription subscription;
+
+    protected StandingQuery() {
+        this.results = new LinkedHashSet<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.added = new LinkedHashSet<>();
+        this.removed = new LinkedHashSet<>();
+    }
+
+    /**
+     * Compute the initial result set.
+     */
+    protected abstract void initialize();
+
+    /**
+     * Update results for one mutation using include()/exclude().
+     */
+    protected abstract void onEvent(TreeEvent event);
+
+    void attach(FamilyTree tree) {
+        if (this.tree != null) {
+            throw new IllegalArgumentException("Standing query is already registered");
+        }
+        this.tree = tree;
+        initialize();
+        added.clear();
+        removed.clear();
+        // Batch size 1 keeps results in step with every mutation
+        this.subscription = tree.changes().subscribe(this::handle, tree.changes().lastSequence() + 1, 1);
+    }
+
+    /**
+     * Drop any per-query state before results are recomputed from scratch.
+     */
+    protected void clearState() {
+    }
+
+    /**
+     * dropId was merged into keepId and no longer exists; re-point any ID the query is
+     * anchored on before results are recomputed.
+     */
+    protected void onMerged(String keepId, String dropId) {
+    }
+
+    private synchronized void handle(List<TreeEvent> batch) {
+        for (TreeEvent event : batch) {
+            if (event.getType() == TreeEvent.Type.MERGED) {
+                // A merge can move whole subtrees; recompute and report the difference
+                for (Person person : new ArrayList<>(results)) {
+                    exclude(person);
+                }
+                clearState();
+                onMerged(event.getPersonId(), event.getOtherId());
+                initialize();
+            } else {
+                onEvent(event);
+            }
+        }
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        Set<Person> addedNow = Collections.unmodifiableSet(new LinkedHashSet<>(added));
+        Set<Person> removedNow = Collections.unmodifiableSet(new LinkedHashSet<>(removed));
+        added.clear();
+        removed.clear();
+        for (DeltaListener listener : listeners) {
+            listener.onDelta(this, addedNow, removedNow);
+        }
+    }
+
+    protected FamilyTree tree() {
+        return tree;
+    }
+
+    protected void include(Person person) {
+        if (results.add(person) && !removed.remove(person)) {
+            added.add(person);
+        }
+    }
+
+    protected void exclude(Person person) {
+        if (results.remove(person) && !added.remove(person)) {
+            removed.add(person);
+        }
+    }
+
+    public synchronized Set<Person> results() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(results));
+    }
+
+    public void subscribe(DeltaListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stop receiving updates from the tree.
+     */
+    public void cancel() {
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package core;
+
+import model.Person;
+
+import java.util.*;
+
+/**
+ * Per-person descendant aggregates kept current as links and death years change.
+ * Descendant and living-descendant counts come from mergeable sketches (exact for
+ * small lines, HyperLogLog estimates for large ones); line depth is exact.
+ */
+class SubtreeAggregates {
+
+    private static final class Entry {
+        final long hash;
+        final CardinalitySketch descendants;
+        final CardinalitySketch living;
+        int depth;
+
+        Entry(Person person) {
+            this.hash = CardinalitySketch.hash(person.getId());
+            this.descendants = new CardinalitySketch();
+            this.living = new CardinalitySketch();
+            descendants.add(hash);
+            if (person.isAlive()) {
+                living.add(hash);
+            }
+        }
+    }
+
+    private final Map<Person, Entry> entries;
+    private final Set<Person> founders;
+    private long sketchBytes;
+
+    SubtreeAggregates() {
+        this.entries = new HashMap<>();
+        this.founders = new HashSet<>();
+    }
+
+    void clear() {
+        entries.clear();
+        founders.clear();
+        sketchBytes = 0;
+    }
+
+    void onPersonAdded(Person person) {
+        Entry entry = new Entry(person);
+        entries.put(person, entry);
+        founders.add(person);
+        sketchBytes += sketchBytes(entry);
+    }
+
+    /**
+     * Merge the child's sketches into the parent and its ancestors, stopping where nothing changes.
+     */
+    void onLinked(Person parent, Person child) {
+        founders.remove(child);
+        Entry childEntry = entries.get(child);
+
+        Deque<Person> queue = new ArrayDeque<>();
+        queue.add(parent);
+        while (!queue.isEmpty()) {
+            Person ancestor = queue.poll();
+            Entry entry = entries.get(ancestor);
+            long before = sketchBytes(entry);
+            boolean changed = entry.descendants.addAll(childEntry.descendants);
+            changed |= entry.living.addAll(childEntry.living);
+            sketchBytes += sketchBytes(entry) - before;
+            if (changed) {
+                enqueueParents(ancestor, queue);
+            }
+        }
+
+        // Depth only grows; push it up while it improves
+        queue.add(child);
+        while (!queue.isEmpty()) {
+            Person current = queue.poll();
+            int depth = entries.get(current).depth;
+            for (Person up : new Person[]{current.getParent1(), current.getParent2()}) {
+                if (up != null && entries.get(up).depth < depth + 1) {
+                    entries.get(up).depth = depth + 1;
+                    queue.add(up);
+                }
+            }
+        }
+    }
+
+    /**
+     * Living counts cannot be decremented in a sketch, so rebuild them for the
+     * person and its ancestors, children before parents.
+     */
+    void onAliveChanged(Person person) {
+        rebuildUpwards(person, false);
+    }
+
+    /**
+     * Called once drop's links have moved to keep. Only drop's former ancestors can hold
+     * its hash, and they are all keep's ancestors now, so rebuilding keep's line is enough.
+     */
+    void onMerged(Person keep, Person drop) {
+        Entry dropped = entries.remove(drop);
+        sketchBytes -= sketchBytes(dropped);
+        founders.remove(drop);
+        if (keep.getParent1() != null) {
+            founders.remove(keep);
+        }
+        rebuildUpwards(keep, true);
+    }
+
+    /**
+     * Recompute the living sketch (all: every aggregate) of a person and its ancestors
+     * from their children, children before parents.
+     */
+    private void rebuildUpwards(Person person, boolean all) {
+        Set<Person> ancestors = new HashSet<>();
+        Deque<Person> queue = new ArrayDeque<>();
+        queue.add(person);
+        while (!queue.isEmpty()) {
+            Person current = queue.poll();
+            if (ancestors.add(current)) {
+                enqueueParents(current, queue);
+            }
+        }
+
+        Map<Person, Integer> pendingChildren = new HashMap<>();
+        for (Person ancestor : ancestors) {
+            for (Person up : new Person[]{ancestor.getParent1(), ancestor.getParent2()}) {
+                if (up != null) {
+                    pendingChildren.merge(up, 1, Integer::sum);
+                }
+            }
+        }
+
+        queue.add(person);
+        while (!queue.isEmpty()) {
+            Person current = queue.poll();
+            Entry entry = entries.get(current);
+            long before = sketchBytes(entry);
+            entry.living.clear();
+            if (current.isAlive()) {
+                entry.living.add(entry.hash);
+            }
+            if (all) {
+                entry.descendants.clear();
+                entry.descendants.add(entry.hash);
+                entry.depth = 0;
+            }
+            for (Person child : current.getChildren()) {
+                Entry childEntry = entries.get(child);
+                entry.living.addAll(childEntry.living);
+                if (all) {
+                    entry.descendants.addAll(childEntry.descendants);
+                    entry.depth = Math.max(entry.depth, childEntry.depth + 1);
+                }
+            }
+            sketchBytes += sketchBytes(entry) - before;
+            for (Person up : new Person[]{current.getParent1(), current.getParent2()}) {
+                if (up != null && pendingChildren.merge(up, -1, Integer::sum) == 0) {
+                    queue.add(up);
+                }
+            }
+        }
+    }
+
+    private static void enqueueParents(Person person, Deque<Person> queue) {
+        if (person.getParent1() != null) {
+            queue.add(person.getParent1());
+        }
+        if (person.getParent2() != null) {
+            queue.add(person.getParent2());
+        }
+    }
+
+    long descendantCount(Person person) {
+        return Math.max(0, entries.get(person).descendants.estimate() - 1);
+    }
+
+    long livingDescendantCount(Person person) {
+        return Math.max(0, entries.get(person).living.estimate() - (person.isAlive() ? 1 : 0));
+    }
+
+    int lineDepth(Person person) {
+        return entries.get(person).depth;
+    }
+
+    /**
+     * Founders (no recorded parents) with the most descendants, largest first.
+     */
+    List<Person> mostProlificFounders(int k) {
+        Comparator<Person> byCount = Comparator.comparingLong(this::descendantCount)
+                .thenComparing(Person::getId, Comparator.reverseOrder());
+        PriorityQueue<Person> top = new PriorityQueue<>(byCount);
+        for (Person founder : founders) {
+            top.add(founder);
+            if (top.size() > k) {
+                top.poll();
+            }
+        }
+        List<Person> result = new ArrayList<>(top);
+        result.sort(byCount.reversed());
+        return result;
+    }
+
+    /**
+     * Retained bytes from maintained counters: map and set entries plus sketch contents.
+     */
+    long footprint() {
+        return entries.size() * (MemoryAccounting.MAP_ENTRY + 32L) + founders.size() * MemoryAccounting.MAP_ENTRY
+                + sketchBytes;
+    }
+
+    private static long sketchBytes(Entry entry) {
+        return entry.descendants.footprint() + entry.living.footprint();
+    }
+}
@@ -0,0 +1,119 @@
+package core;
+
+import model.Person;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resumable position in an ancestor or descendant query.
+ * Encodes to an opaque token so a page request can continue where the previous one stopped.
+ * A cursor returned by a page also holds the paused walk, so the next page continues it
+ * directly; a decoded token, which carries only the offset, replays the lazy walk up to it.
+ */
+public final class TraversalCursor {
+    private final boolean ancestors;
+    private final String personId;
+    private final int generations;
+    private final long offset;
+    // Paused walk and the tree's last change sequence when it paused; taken by the first resume
+    private TraversalSpliterator walk;
+    private final long version;
+
+    private TraversalCursor(boolean ancestors, String personId, int generations, long offset) {
+        this(ancestors, personId, generations, offset, null, -1);
+    }
+
+    private TraversalCursor(boolean ancestors, String personId, int generations, long offset,
+                            TraversalSpliterator walk, long version) {
+        this.ancestors = ancestors;
+        this.personId = personId;
+        this.generations = generations;
+        this.offset = offset;
+        this.walk = walk;
+        this.version = version;
+    }
+
+    public static TraversalCursor ancestors(String personId, int generations) {
+        return new TraversalCursor(true, personId, generations, 0);
+    }
+
+    public static TraversalCursor descendants(String personId, int generations) {
+        return new TraversalCursor(false, personId, generations, 0);
+    }
+
+    /**
+     * Parse a token produced by encode().
+     */
+    public static TraversalCursor decode(String token) {
+        String[] parts = token == null ? new String[0] : token.split(":");
+        if (parts.length != 4 || !(parts[0].equals("A") || parts[0].equals("D"))) {
+            throw new IllegalArgumentException("Invalid cursor token: " + token);
+        }
+        try {
+            return new TraversalCursor(parts[0].equals("A"), parts[1],
+                    Integer.parseInt(parts[2]), Long.parseLong(parts[3]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor token: " + token);
+        }
+    }
+
+    public String encode() {
+        return (ancestors ? "A" : "D") + ":" + personId + ":" + generations + ":" + offset;
+    }
+
+    public boolean isAncestors() {
+        return ancestors;
+    }
+
+    public String getPersonId() {
+        return personId;
+    }
+
+    public int getGenerations() {
+        return generations;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    TraversalCursor advance(long count, TraversalSpliterator paused, long treeVersion) {
+        return new TraversalCursor(ancestors, personId, generations, offset + count, paused, treeVersion);
+    }
+
+    /**
+     * The paused walk if the tree is still at treeVersion and no page has resumed it yet, else null.
+     */
+    synchronized TraversalSpliterator resume(long treeVersion) {
+        TraversalSpliterator paused = walk;
+        walk = null;
+        return paused != null && version == treeVersion ? paused : null;
+    }
+
+    /**
+     * One page of results plus the cursor for the following page (null when exhausted).
+     */
+    public static final class Page {
+        private final List<Person> items;
+        private final TraversalCursor next;
+
+        Page(List<Person> items, TraversalCursor next) {
+            this.items = Collections.unmodifiableList(new ArrayList<>(items));
+            this.next = next;
+        }
+
+        public List<Person> getItems() {
+            return items;
+        }
+
+        public TraversalCursor getNext() {
+            return next;
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+    }
+}
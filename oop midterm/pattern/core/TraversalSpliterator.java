@@ -0,0 +1,223 @@
+package core;
+
+import model.Person;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Lazy breadth-first walk over parent or child links.
+ * Only the current and next generation are queued; people are produced one at a time.
+ * Splits share a record of who has been reached at which depth, so parallel streams
+ * return each person once and a person first reached through a longer line is expanded
+ * again when a shorter one turns up. The record holds everyone reached, however far
+ * apart the lines that meet in them, at a reference and an int per person.
+ */
+class TraversalSpliterator implements Spliterator<Person> {
+    // How far trySplit expands ahead of emitting when a level is too small to split
+    private static final int MAX_READY = 64;
+
+    private final boolean up;
+    private final int generations;
+    private final Predicate<Person> expandIf;
+    private final Claims claims;
+    // Expanded already, only waiting to be produced
+    private final ArrayDeque<Person> ready;
+    private ArrayDeque<Person> current;
+    private ArrayDeque<Person> next;
+    // Reached again at a smaller depth: expanded at their level but not produced
+    private ArrayDeque<Person> nextAgain;
+    private int level;
+
+    TraversalSpliterator(Person root, int generations, boolean up) {
+        this(root, generations, up, person -> true);
+    }
+
+    /**
+     * Walk that only expands people matching expandIf (they are still produced).
+     */
+    TraversalSpliterator(Person root, int generations, boolean up, Predicate<Person> expandIf) {
+        this(new ArrayDeque<>(), generations, up, expandIf, new Claims(), 0);
+        if (generations >= 0) {
+            claims.claim(root, 0);
+            current.add(root);
+        }
+    }
+
+    private TraversalSpliterator(ArrayDeque<Person> current, int generations, boolean up,
+                                 Predicate<Person> expandIf, Claims claims, int level) {
+        this.up = up;
+        this.generations = generations;
+        this.expandIf = expandIf;
+        this.claims = claims;
+        this.ready = new ArrayDeque<>();
+        this.current = current;
+        this.next = new ArrayDeque<>();
+        this.nextAgain = new ArrayDeque<>();
+        this.level = level;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Person> action) {
+        if (!ready.isEmpty()) {
+            action.accept(ready.poll());
+            return true;
+        }
+        if (current.isEmpty() && !advanceLevel()) {
+            return false;
+        }
+        Person person = current.poll();
+        expand(person);
+        action.accept(person);
+        return true;
+    }
+
+    /**
+     * Move to the next generation that has someone to produce.
+     */
+    private boolean advanceLevel() {
+        while (current.isEmpty()) {
+            if ((next.isEmpty() && nextAgain.isEmpty()) || level >= generations) {
+                return false;
+            }
+            current = next;
+            ArrayDeque<Person> again = nextAgain;
+            next = new ArrayDeque<>();
+            nextAgain = new ArrayDeque<>();
+            level++;
+            for (Person person : again) {
+                expand(person);
+            }
+        }
+        return true;
+    }
+
+    private void expand(Person person) {
+        if (level >= generations || !expandIf.test(person)) {
+            return;
+        }
+        if (up) {
+            enqueue(person.getParent1());
+            enqueue(person.getParent2());
+        } else {
+            for (Person child : person.getChildren()) {
+                enqueue(child);
+            }
+        }
+    }
+
+    private void enqueue(Person person) {
+        if (person == null) {
+            return;
+        }
+        switch (claims.claim(person, level + 1)) {
+            case NEW:
+                next.add(person);
+                break;
+            case CLOSER:
+                nextAgain.add(person);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Put back a person this walk just produced, so it comes out first again; a page uses
+     * this to look one ahead and still hand that person to the next page.
+     */
+    void unread(Person person) {
+        ready.addFirst(person);
+    }
+
+    /**
+     * Hand half of the current generation to a new spliterator. A generation of one
+     * (the root, or a single line) is expanded first until there is something to split.
+     */
+    @Override
+    public Spliterator<Person> trySplit() {
+        while (current.size() < 2 && ready.size() < MAX_READY) {
+            if (current.size() == 1) {
+                Person person = current.poll();
+                expand(person);
+                ready.add(person);
+            }
+            if (!advanceLevel()) {
+                break;
+            }
+        }
+        int half = current.size() / 2;
+        if (half == 0) {
+            return null;
+        }
+        ArrayDeque<Person> prefix = new ArrayDeque<>(half);
+        for (int i = 0; i < half; i++) {
+            prefix.add(current.poll());
+        }
+        return new TraversalSpliterator(prefix, generations, up, expandIf, claims, level);
+    }
+
+    @Override
+    public long estimateSize() {
+        return ready.isEmpty() && current.isEmpty() && next.isEmpty() && nextAgain.isEmpty() ? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL;
+    }
+
+    /**
+     * Depth at which each reached person was claimed, shared by all splits. An open-addressed
+     * identity table in two parallel arrays, so a person costs a reference and an int.
+     */
+    private static final class Claims {
+        enum Result { NEW, CLOSER, SEEN }
+
+        private Person[] people = new Person[64];
+        private int[] depths = new int[64];
+        private int size;
+
+        synchronized Result claim(Person person, int depth) {
+            int slot = slot(people, person);
+            if (people[slot] != null) {
+                if (depths[slot] <= depth) {
+                    return Result.SEEN;
+                }
+                depths[slot] = depth;
+                return Result.CLOSER;
+            }
+            people[slot] = person;
+            depths[slot] = depth;
+            if (++size * 2 > people.length) {
+                grow();
+            }
+            return Result.NEW;
+        }
+
+        private static int slot(Person[] table, Person person) {
+            int mask = table.length - 1;
+            int hash = System.identityHashCode(person) * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (table[slot] != null && table[slot] != person) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            Person[] oldPeople = people;
+            int[] oldDepths = depths;
+            people = new Person[oldPeople.length * 2];
+            depths = new int[oldPeople.length * 2];
+            for (int i = 0; i < oldPeople.length; i++) {
+                if (oldPeople[i] != null) {
+                    int slot = slot(people, oldPeople[i]);
+                    people[slot] = oldPeople[i];
+                    depths[slot] = oldDepths[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package core;
+
+import model.Person;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Audits cross-person rules that Person cannot check on its own.
+ * A full pass runs in parallel over fixed-size chunks of people; later passes
+ * re-check only people whose rules depend on someone that changed.
+ */
+class TreeValidator {
+    private static final int CHUNK_SIZE = 1024;
+
+    private final Map<String, List<ValidationReport.Issue>> issuesByPerson;
+
+    TreeValidator() {
+        this.issuesByPerson = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Check every person, replacing any previous results.
+     */
+    ValidationReport validateAll(Collection<Person> people) {
+        List<Person> handles = new ArrayList<>(people);
+        issuesByPerson.clear();
+
+        int chunks = (handles.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int end = Math.min((c + 1) * CHUNK_SIZE, handles.size());
+            for (int i = c * CHUNK_SIZE; i < end; i++) {
+                store(handles.get(i));
+            }
+        });
+        return report(handles.size());
+    }
+
+    /**
+     * Re-check the neighbourhoods of changed people and return the updated full report.
+     */
+    ValidationReport revalidate(Collection<Person> changed, int totalPeople) {
+        Set<Person> affected = new HashSet<>();
+        for (Person person : changed) {
+            // Rules on a person read its parents, children and spouse, so they are affected too
+            affected.add(person);
+            if (person.getParent1() != null) {
+                affected.add(person.getParent1());
+            }
+            if (person.getParent2() != null) {
+                affected.add(person.getParent2());
+            }
+            affected.addAll(person.getChildren());
+            if (person.getSpouse() != null) {
+                affected.add(person.getSpouse());
+            }
+        }
+        affected.parallelStream().forEach(this::store);
+        return report(totalPeople);
+    }
+
+    /**
+     * Drop stored results for someone no longer in the tree.
+     */
+    void forget(String id) {
+        issuesByPerson.remove(id);
+    }
+
+    private void store(Person person) {
+        List<ValidationReport.Issue> issues = check(person);
+        if (issues.isEmpty()) {
+            issuesByPerson.remove(person.getId());
+        } else {
+            issuesByPerson.put(person.getId(), issues);
+        }
+    }
+
+    private ValidationReport report(int checkedPeople) {
+        List<ValidationReport.Issue> all = new ArrayList<>();
+        for (List<ValidationReport.Issue> issues : issuesByPerson.values()) {
+            all.addAll(issues);
+        }
+        all.sort(Comparator.comparing(ValidationReport.Issue::getPersonId)
+                .thenComparing(ValidationReport.Issue::getRule));
+        return new ValidationReport(checkedPeople, all);
+    }
+
+    /**
+     * All rule violations attributed to this person.
+     */
+    static List<ValidationReport.Issue> check(Person person) {
+        List<ValidationReport.Issue> issues = new ArrayList<>();
+        String id = person.getId();
+
+        for (Person parent : new Person[]{person.getParent1(), person.getParent2()}) {
+            if (parent == null) {
+                continue;
+            }
+            if (parent.getBirthYear() >= person.getBirthYear()) {
+                issues.add(new ValidationReport.Issue(id, ValidationReport.Rule.PARENT_BORN_AFTER_CHILD,
+                        "parent " + parent.getId() + " b." + parent.getBirthYear() + " not born before b." + person.getBirthYear()));
+            }
+            if (!parent.hasChild(person)) {
+                issues.add(new ValidationReport.Issue(id, ValidationReport.Rule.PARENT_CHILD_MISMATCH,
+                        "parent " + parent.getId() + " does not list this person as a child"));
+            }
+        }
+
+        for (Person child : person.getChildren()) {
+            if (!child.hasParent(person)) {
+                issues.add(new ValidationReport.Issue(id, ValidationReport.Rule.PARENT_CHILD_MISMATCH,
+                        "child " + child.getId() + " does not list this person as a parent"));
+            }
+        }
+
+        Person spouse = person.getSpouse();
+        Integer marriageYear = person.getMarriageYear();
+        if (spouse != null) {
+            if (spouse.getSpouse() != person) {
+                issues.add(new ValidationReport.Issue(id, ValidationReport.Rule.SPOUSE_MISMATCH,
+                        "spouse " + spouse.getId() + " is not married to this person"));
+            }
+            if (marriageYear != null && !aliveIn(person, marriageYear)) {
+                issues.add(new ValidationReport.Issue(id, ValidationReport.Rule.SPOUSE_NOT_ALIVE_AT_MARRIAGE,
+                        "not alive in marriage year " + marriageYear));
+            }
+        }
+
+        return issues;
+    }
+
+    private static boolean aliveIn(Person person, int year) {
+        return year >= person.getBirthYear() && (person.getDeathYear() == null || person.getDeathYear() >= year);
+    }
+}
@@ -0,0 +1,84 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of a whole-tree integrity check.
+ */
+public class ValidationReport {
+
+    /**
+     * Integrity rules checked across people.
+     */
+    public enum Rule {
+        PARENT_BORN_AFTER_CHILD,
+        PARENT_CHILD_MISMATCH,
+        SPOUSE_MISMATCH,
+        SPOUSE_NOT_ALIVE_AT_MARRIAGE
+    }
+
+    /**
+     * A single rule violation attributed to one person.
+     */
+    public static final class Issue {
+        private final String personId;
+        private final Rule rule;
+        private final String message;
+
+        public Issue(String personId, Rule rule, String message) {
+            this.personId = personId;
+            this.rule = rule;
+            this.message = message;
+        }
+
+        public String getPersonId() {
+            return personId;
+        }
+
+        public Rule getRule() {
+            return rule;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return personId + " | " + rule + " | " + message;
+        }
+    }
+
+    private final int checkedPeople;
+    private final List<Issue> issues;
+
+    public ValidationReport(int checkedPeople, List<Issue> issues) {
+        this.checkedPeople = checkedPeople;
+        this.issues = Collections.unmodifiableList(new ArrayList<>(issues));
+    }
+
+    public int getCheckedPeople() {
+        return checkedPeople;
+    }
+
+    public List<Issue> getIssues() {
+        return issues;
+    }
+
+    public boolean isValid() {
+        return issues.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Checked ").append(checkedPeople).append(" people, ")
+                .append(issues.size()).append(" issue(s)");
+        for (Issue issue : issues) {
+            sb.append("\n  ").append(issue);
+        }
+        return sb.toString();
+    }
+}
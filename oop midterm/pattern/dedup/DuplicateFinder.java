@@ -0,0 +1,232 @@
+package dedup;
+
+import core.FamilyTree;
+import model.Person;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Finds likely duplicate records without comparing every pair.
+ * Candidates share at least one blocking key:
+ *  - Soundex of the surname plus a birth-year window,
+ *  - the same set of parents plus the Soundex of the given name,
+ *  - the Soundex of the given name plus the spouse's given name and surname, which
+ *    pairs records filed under different surnames (maiden and married names).
+ * A block too large to pair everyone in is split by given-name Soundex; parts that are
+ * still too large are skipped and counted (see skippedBlocks and skippedPairs).
+ * Candidate pairs are scored in parallel and returned best first.
+ */
+public class DuplicateFinder {
+    private static final int YEAR_WINDOW = 2;
+    private static final int MAX_BLOCK = 500;
+
+    private final FamilyTree tree;
+    private int skippedBlocks;
+    private long skippedPairs;
+
+    public DuplicateFinder(FamilyTree tree) {
+        this.tree = tree;
+    }
+
+    /**
+     * Ranked merge list of pairs scoring at least threshold (0..1).
+     */
+    public List<MatchCandidate> findDuplicates(double threshold) {
+        Map<String, List<Person>> blocks = new HashMap<>();
+        for (Person person : tree.people()) {
+            for (String key : blockingKeys(person)) {
+                blocks.computeIfAbsent(key, k -> new ArrayList<>()).add(person);
+            }
+        }
+
+        Set<List<Person>> pairs = new HashSet<>();
+        skippedBlocks = 0;
+        skippedPairs = 0;
+        for (List<Person> block : blocks.values()) {
+            if (block.size() <= MAX_BLOCK) {
+                addPairs(block, pairs);
+                continue;
+            }
+            // Oversized blocks would bring back the quadratic blow-up, so narrow them by given name
+            Map<String, List<Person>> parts = new HashMap<>();
+            for (Person person : block) {
+                parts.computeIfAbsent(Soundex.encode(givenName(person.getFullName())), k -> new ArrayList<>()).add(person);
+            }
+            for (List<Person> part : parts.values()) {
+                if (part.size() <= MAX_BLOCK) {
+                    addPairs(part, pairs);
+                } else {
+                    skippedBlocks++;
+                    skippedPairs += (long) part.size() * (part.size() - 1) / 2;
+                }
+            }
+        }
+
+        return pairs.parallelStream()
+                .map(pair -> score(pair.get(0), pair.get(1)))
+                .filter(candidate -> candidate.getScore() >= threshold)
+                .sorted(Comparator.comparingDouble(MatchCandidate::getScore).reversed()
+                        .thenComparing(c -> c.getFirst().getId())
+                        .thenComparing(c -> c.getSecond().getId()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Blocks the last findDuplicates call left out because they stayed over MAX_BLOCK
+     * people after splitting by given name.
+     */
+    public int skippedBlocks() {
+        return skippedBlocks;
+    }
+
+    /**
+     * Pairs in those skipped blocks, i.e. comparisons that were not made.
+     */
+    public long skippedPairs() {
+        return skippedPairs;
+    }
+
+    private static void addPairs(List<Person> block, Set<List<Person>> pairs) {
+        for (int i = 0; i < block.size(); i++) {
+            for (int j = i + 1; j < block.size(); j++) {
+                Person a = block.get(i);
+                Person b = block.get(j);
+                pairs.add(a.getId().compareTo(b.getId()) < 0 ? List.of(a, b) : List.of(b, a));
+            }
+        }
+    }
+
+    private static List<String> blockingKeys(Person person) {
+        List<String> keys = new ArrayList<>();
+        String surname = Soundex.encode(surname(person.getFullName()));
+        // Two overlapping buckets so years within the window always share one
+        int bucket = Math.floorDiv(person.getBirthYear(), YEAR_WINDOW);
+        keys.add("S|" + surname + "|" + bucket);
+        keys.add("S|" + surname + "|" + (bucket + 1));
+
+        String given = Soundex.encode(givenName(person.getFullName()));
+        String parents = parentSignature(person);
+        if (!parents.isEmpty()) {
+            keys.add("P|" + parents + "|" + given);
+        }
+        Person spouse = person.getSpouse();
+        if (spouse != null) {
+            keys.add("M|" + given + "|" + Soundex.encode(givenName(spouse.getFullName()))
+                    + "|" + Soundex.encode(surname(spouse.getFullName())));
+        }
+        return keys;
+    }
+
+    private static String parentSignature(Person person) {
+        List<String> ids = new ArrayList<>();
+        if (person.getParent1() != null) {
+            ids.add(person.getParent1().getId());
+        }
+        if (person.getParent2() != null) {
+            ids.add(person.getParent2().getId());
+        }
+        Collections.sort(ids);
+        return String.join(",", ids);
+    }
+
+    static String surname(String fullName) {
+        String[] parts = fullName.trim().split("\\s+");
+        return parts[parts.length - 1];
+    }
+
+    static String givenName(String fullName) {
+        return fullName.trim().split("\\s+")[0];
+    }
+
+    /**
+     * Weighted evidence: names, birth/death years, shared parents and spouse.
+     * Conflicting gender or an existing link between the two rules a pair out.
+     */
+    MatchCandidate score(Person a, Person b) {
+        List<String> reasons = new ArrayList<>();
+        if (a.getGender() != b.getGender() || a.hasParent(b) || b.hasParent(a) || a.getSpouse() == b) {
+            return new MatchCandidate(a, b, 0, reasons);
+        }
+
+        double score = 0;
+        double name = jaroWinkler(a.getFullName().toLowerCase(Locale.ROOT), b.getFullName().toLowerCase(Locale.ROOT));
+        score += 0.5 * name;
+        reasons.add(String.format("name %.2f", name));
+
+        int yearGap = Math.abs(a.getBirthYear() - b.getBirthYear());
+        if (yearGap <= YEAR_WINDOW) {
+            score += 0.3 * (1 - yearGap / (double) (YEAR_WINDOW + 1));
+            reasons.add(yearGap == 0 ? "same birth year" : "birth years " + yearGap + " apart");
+        }
+
+        if (a.getDeathYear() != null && b.getDeathYear() != null) {
+            if (a.getDeathYear().equals(b.getDeathYear())) {
+                score += 0.1;
+                reasons.add("same death year");
+            } else {
+                score -= 0.1;
+            }
+        }
+
+        String parentsA = parentSignature(a);
+        if (!parentsA.isEmpty() && parentsA.equals(parentSignature(b))) {
+            score += 0.2;
+            reasons.add("same parents");
+        }
+        if (a.getSpouse() != null && a.getSpouse() == b.getSpouse()) {
+            score += 0.2;
+            reasons.add("same spouse");
+        }
+        return new MatchCandidate(a, b, Math.max(0, Math.min(1, score)), reasons);
+    }
+
+    /**
+     * Jaro-Winkler string similarity in 0..1.
+     */
+    static double jaroWinkler(String s, String t) {
+        if (s.equals(t)) {
+            return 1;
+        }
+        int range = Math.max(0, Math.max(s.length(), t.length()) / 2 - 1);
+        boolean[] sMatched = new boolean[s.length()];
+        boolean[] tMatched = new boolean[t.length()];
+        int matches = 0;
+        for (int i = 0; i < s.length(); i++) {
+            int from = Math.max(0, i - range);
+            int to = Math.min(t.length() - 1, i + range);
+            for (int j = from; j <= to; j++) {
+                if (!tMatched[j] && s.charAt(i) == t.charAt(j)) {
+                    sMatched[i] = true;
+                    tMatched[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0;
+        }
+
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < s.length(); i++) {
+            if (sMatched[i]) {
+                while (!tMatched[j]) {
+                    j++;
+                }
+                if (s.charAt(i) != t.charAt(j)) {
+                    transpositions++;
+                }
+                j++;
+            }
+        }
+        double m = matches;
+        double jaro = (m / s.length() + m / t.length() + (m - transpositions / 2.0) / m) / 3;
+
+        int prefix = 0;
+        while (prefix < Math.min(4, Math.min(s.length(), t.length())) && s.charAt(prefix) == t.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+}
@@ -0,0 +1,44 @@
+package dedup;
+
+import model.Person;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A scored pair of records that may describe the same person.
+ */
+public final class MatchCandidate {
+    private final Person first;
+    private final Person second;
+    private final double score;
+    private final List<String> reasons;
+
+    MatchCandidate(Person first, Person second, double score, List<String> reasons) {
+        this.first = first;
+        this.second = second;
+        this.score = score;
+        this.reasons = Collections.unmodifiableList(reasons);
+    }
+
+    public Person getFirst() {
+        return first;
+    }
+
+    public Person getSecond() {
+        return second;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public List<String> getReasons() {
+        return reasons;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.2f %s ~ %s (%s)", score, first.getId(), second.getId(), String.join(", ", reasons));
+    }
+}
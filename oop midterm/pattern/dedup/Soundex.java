@@ -0,0 +1,44 @@
+package dedup;
+
+import java.util.Locale;
+
+/**
+ * American Soundex phonetic code, used to block surnames that sound alike.
+ */
+public final class Soundex {
+    //                                      ABCDEFGHIJKLMNOPQRSTUVWXYZ
+    private static final String CODES = "01230120022455012623010202";
+
+    private Soundex() {
+        // Prevent instantiation
+    }
+
+    public static String encode(String name) {
+        String upper = name.toUpperCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(4);
+        char last = 0;
+        for (int i = 0; i < upper.length() && sb.length() < 4; i++) {
+            char c = upper.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                continue;
+            }
+            char code = CODES.charAt(c - 'A');
+            if (sb.length() == 0) {
+                sb.append(c);
+            } else if (code != '0' && code != last) {
+                sb.append(code);
+            }
+            // H and W do not separate equal codes; vowels do
+            if (c != 'H' && c != 'W') {
+                last = code;
+            }
+        }
+        if (sb.length() == 0) {
+            return "";
+        }
+        while (sb.length() < 4) {
+            sb.append('0');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,258 @@
+package event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ring buffer of tree mutations with monotonically increasing sequence numbers.
+ * Producers claim a sequence from an atomic counter, then spin until every earlier claim
+ * is published, so a stalled producer blocks the ones behind it. Consumers read by
+ * sequence and may resume from any sequence still held in the buffer. The ring starts
+ * small and doubles as events arrive, up to the capacity given at construction.
+ * Full batches are delivered synchronously on the publishing thread, so publish() - and
+ * the tree mutation behind it - returns only after every due listener has run.
+ * A subscriber that throws or falls behind never fails a publish: its failure is recorded
+ * on the subscription, and one that falls further behind than the ring holds is detached.
+ */
+public class ChangeFeed {
+    private static final int INITIAL_SLOTS = 64;
+
+    private volatile AtomicReferenceArray<TreeEvent> slots;
+    private final int maxSlots;
+    private final AtomicLong claimed;
+    private final AtomicLong published;
+    private final List<Subscription> subscriptions;
+
+    public ChangeFeed() {
+        this(1 << 16);
+    }
+
+    /**
+     * Create a feed keeping the most recent capacity events (rounded up to a power of two).
+     */
+    public ChangeFeed(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.maxSlots = Math.max(Integer.highestOneBit(capacity - 1) << 1, 1);
+        this.slots = new AtomicReferenceArray<>(Math.min(maxSlots, INITIAL_SLOTS));
+        this.claimed = new AtomicLong(-1);
+        this.published = new AtomicLong(-1);
+        this.subscriptions = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Append an event and return its sequence number.
+     */
+    public long publish(TreeEvent event) {
+        long sequence = claimed.incrementAndGet();
+        TreeEvent stamped = event.withSequence(sequence);
+
+        // Publish in claim order so readers never see a gap; only the producer whose turn
+        // it is touches the ring, which lets it grow the ring without a lock
+        while (published.get() != sequence - 1) {
+            Thread.onSpinWait();
+        }
+        AtomicReferenceArray<TreeEvent> ring = slots;
+        if (sequence >= ring.length() && ring.length() < maxSlots) {
+            ring = grow(ring, sequence);
+        }
+        ring.set((int) (sequence & (ring.length() - 1)), stamped);
+        published.set(sequence);
+
+        for (Subscription subscription : subscriptions) {
+            if (subscription.lag() >= subscription.batchSize) {
+                subscription.drainOnPublish();
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Copy the retained events into a ring twice the size; readers still holding the old
+     * ring see the same events there.
+     */
+    private AtomicReferenceArray<TreeEvent> grow(AtomicReferenceArray<TreeEvent> ring, long sequence) {
+        AtomicReferenceArray<TreeEvent> bigger = new AtomicReferenceArray<>(ring.length() * 2);
+        int mask = bigger.length() - 1;
+        for (long seq = Math.max(0, sequence - ring.length()); seq < sequence; seq++) {
+            bigger.set((int) (seq & mask), ring.get((int) (seq & (ring.length() - 1))));
+        }
+        slots = bigger;
+        return bigger;
+    }
+
+    /**
+     * Sequence of the latest published event, or -1 if none.
+     */
+    public long lastSequence() {
+        return published.get();
+    }
+
+    /**
+     * Number of event slots allocated now (grows up to maxCapacity()).
+     */
+    public int capacity() {
+        return slots.length();
+    }
+
+    /**
+     * Most events the ring will ever hold.
+     */
+    public int maxCapacity() {
+        return maxSlots;
+    }
+
+    /**
+     * Number of events currently held for replay.
+     */
+    public long retained() {
+        return Math.min(published.get() + 1, slots.length());
+    }
+
+    /**
+     * Oldest sequence still available for replay.
+     */
+    public long oldestSequence() {
+        long last = published.get();
+        return Math.max(0, last - slots.length() + 1);
+    }
+
+    /**
+     * Read up to maxEvents events starting at fromSequence.
+     */
+    public List<TreeEvent> read(long fromSequence, int maxEvents) {
+        long last = published.get();
+        if (fromSequence < oldestSequence() && fromSequence <= last) {
+            throw new IllegalArgumentException("Sequence " + fromSequence + " is no longer available");
+        }
+
+        AtomicReferenceArray<TreeEvent> ring = slots;
+        int mask = ring.length() - 1;
+        List<TreeEvent> batch = new ArrayList<>();
+        for (long seq = fromSequence; seq <= last && batch.size() < maxEvents; seq++) {
+            TreeEvent event = ring.get((int) (seq & mask));
+            if (event == null || event.getSequence() != seq) {
+                throw new IllegalArgumentException("Sequence " + seq + " is no longer available");
+            }
+            batch.add(event);
+        }
+        return batch;
+    }
+
+    /**
+     * Register a listener receiving batches of batchSize events, starting at fromSequence.
+     * Full batches are delivered on publish; call flush() on the subscription for the rest.
+     * A batch cannot be larger than the ring, which would evict it before it filled.
+     */
+    public Subscription subscribe(ChangeListener listener, long fromSequence, int batchSize) {
+        if (batchSize <= 0 || batchSize > maxSlots) {
+            throw new IllegalArgumentException("Batch size must be between 1 and " + maxSlots);
+        }
+        if (fromSequence < 0 || (fromSequence < oldestSequence() && fromSequence <= lastSequence())) {
+            throw new IllegalArgumentException("Sequence " + fromSequence + " is no longer available");
+        }
+        Subscription subscription = new Subscription(listener, fromSequence, batchSize);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * A consumer position in the feed.
+     */
+    public final class Subscription {
+        private final ChangeListener listener;
+        private final int batchSize;
+        private long nextSequence;
+        private RuntimeException failure;
+        private boolean detached;
+        private boolean delivering;
+
+        private Subscription(ChangeListener listener, long nextSequence, int batchSize) {
+            this.listener = listener;
+            this.nextSequence = nextSequence;
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * Next sequence this consumer will receive; store it to resume later.
+         */
+        public synchronized long position() {
+            return nextSequence;
+        }
+
+        public long lag() {
+            return published.get() + 1 - position();
+        }
+
+        /**
+         * Deliver every full batch available now. Called from inside this subscription's
+         * listener it does nothing; the outer delivery picks up the new events.
+         */
+        public synchronized void drain() {
+            while (!delivering && lag() >= batchSize) {
+                deliver();
+            }
+        }
+
+        /**
+         * Deliver everything available, including a final partial batch.
+         */
+        public synchronized void flush() {
+            while (!delivering && lag() > 0) {
+                deliver();
+            }
+        }
+
+        /**
+         * Full batches from publish(): a throwing listener keeps its position and is retried
+         * on the next publish; one whose position has left the ring is detached.
+         */
+        private synchronized void drainOnPublish() {
+            try {
+                drain();
+                failure = null;
+            } catch (RuntimeException e) {
+                failure = e;
+                if (nextSequence < oldestSequence()) {
+                    detached = true;
+                    cancel();
+                }
+            }
+        }
+
+        private void deliver() {
+            List<TreeEvent> batch = read(nextSequence, batchSize);
+            // Advance only once the listener has taken the batch, so a failure loses nothing;
+            // a listener that publishes must not be handed the same batch again meanwhile
+            delivering = true;
+            try {
+                listener.onEvents(batch);
+            } finally {
+                delivering = false;
+            }
+            nextSequence += batch.size();
+        }
+
+        /**
+         * The error from the last delivery attempted during publish, or null if it succeeded.
+         */
+        public synchronized RuntimeException failure() {
+            return failure;
+        }
+
+        /**
+         * Whether the feed dropped this subscription for falling out of the ring.
+         */
+        public synchronized boolean isDetached() {
+            return detached;
+        }
+
+        public void cancel() {
+            subscriptions.remove(this);
+        }
+    }
+}
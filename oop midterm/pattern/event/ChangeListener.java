@@ -0,0 +1,10 @@
+package event;
+
+import java.util.List;
+
+/**
+ * Receives FamilyTree mutations in sequence order, a batch at a time.
+ */
+public interface ChangeListener {
+    void onEvents(List<TreeEvent> batch);
+}
@@ -0,0 +1,143 @@
+package event;
+
+import model.Gender;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes TreeEvents as single tab-separated lines for logs and snapshots.
+ * Empty fields stand for null; tabs, newlines and backslashes are escaped.
+ */
+public final class EventCodec {
+    private static final int FIELDS = 10;
+
+    private EventCodec() {
+        // Prevent instantiation
+    }
+
+    public static String encode(TreeEvent event) {
+        String[] fields = {
+                String.valueOf(event.getSequence()),
+                event.getType().name(),
+                event.getPersonId(),
+                event.getOtherId(),
+                event.getFullName(),
+                event.getGender() == null ? null : event.getGender().name(),
+                event.getYear() == null ? null : event.getYear().toString(),
+                event.getDeathYear() == null ? null : event.getDeathYear().toString(),
+                event.getField(),
+                event.getValue()
+        };
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                sb.append('\t');
+            }
+            if (fields[i] != null) {
+                escape(fields[i], sb);
+            }
+        }
+        return sb.toString();
+    }
+
+    public static TreeEvent decode(String line) {
+        String[] f = line.split("\t", -1);
+        if (f.length != FIELDS) {
+            throw new IllegalArgumentException("Malformed event line: " + line);
+        }
+        for (int i = 0; i < f.length; i++) {
+            f[i] = f[i].isEmpty() ? null : unescape(f[i]);
+        }
+
+        TreeEvent event;
+        TreeEvent.Type type = TreeEvent.Type.valueOf(f[1]);
+        switch (type) {
+            case PERSON_ADDED:
+                event = TreeEvent.personAdded(f[2], f[4], Gender.valueOf(f[5]), Integer.parseInt(f[6]), toInteger(f[7]));
+                break;
+            case PARENT_CHILD_LINKED:
+                event = TreeEvent.parentChildLinked(f[2], f[3]);
+                break;
+            case MARRIED:
+                event = TreeEvent.married(f[2], f[3], Integer.parseInt(f[6]));
+                break;
+            case MERGED:
+                event = TreeEvent.merged(f[2], f[3]);
+                break;
+            default:
+                event = TreeEvent.fieldUpdated(f[2], f[8], f[9]);
+        }
+        return event.withSequence(Long.parseLong(f[0]));
+    }
+
+    /**
+     * Join fields into one line with the same escaping as events; null is written as empty.
+     */
+    public static String joinFields(List<String> fields) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                sb.append('\t');
+            }
+            if (fields.get(i) != null) {
+                escape(fields.get(i), sb);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Split a line written by joinFields back into its fields.
+     */
+    public static List<String> splitFields(String line) {
+        List<String> fields = new ArrayList<>();
+        for (String field : line.split("\t", -1)) {
+            fields.add(unescape(field));
+        }
+        return fields;
+    }
+
+    private static Integer toInteger(String value) {
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    private static void escape(String value, StringBuilder sb) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
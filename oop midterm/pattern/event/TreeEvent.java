@@ -0,0 +1,137 @@
+package event;
+
+import model.Gender;
+
+/**
+ * Immutable record of one FamilyTree mutation.
+ * The sequence number is assigned by the ChangeFeed when the event is published.
+ */
+public final class TreeEvent {
+
+    /**
+     * Kinds of mutations.
+     */
+    public enum Type {
+        PERSON_ADDED, PARENT_CHILD_LINKED, MARRIED, FIELD_UPDATED, MERGED
+    }
+
+    public static final String FULL_NAME = "fullName";
+    public static final String DEATH_YEAR = "deathYear";
+
+    private final long sequence;
+    private final Type type;
+    private final String personId;
+    private final String otherId;
+    private final String fullName;
+    private final Gender gender;
+    private final Integer year;
+    private final Integer deathYear;
+    private final String field;
+    private final String value;
+
+    private TreeEvent(long sequence, Type type, String personId, String otherId, String fullName, Gender gender,
+                      Integer year, Integer deathYear, String field, String value) {
+        this.sequence = sequence;
+        this.type = type;
+        this.personId = personId;
+        this.otherId = otherId;
+        this.fullName = fullName;
+        this.gender = gender;
+        this.year = year;
+        this.deathYear = deathYear;
+        this.field = field;
+        this.value = value;
+    }
+
+    public static TreeEvent personAdded(String id, String fullName, Gender gender, int birthYear, Integer deathYear) {
+        return new TreeEvent(-1, Type.PERSON_ADDED, id, null, fullName, gender, birthYear, deathYear, null, null);
+    }
+
+    public static TreeEvent parentChildLinked(String parentId, String childId) {
+        return new TreeEvent(-1, Type.PARENT_CHILD_LINKED, parentId, childId, null, null, null, null, null, null);
+    }
+
+    public static TreeEvent married(String personAId, String personBId, int year) {
+        return new TreeEvent(-1, Type.MARRIED, personAId, personBId, null, null, year, null, null, null);
+    }
+
+    /**
+     * dropId was merged into keepId and removed.
+     */
+    public static TreeEvent merged(String keepId, String dropId) {
+        return new TreeEvent(-1, Type.MERGED, keepId, dropId, null, null, null, null, null, null);
+    }
+
+    /**
+     * A scalar field changed; value is null when the field was cleared.
+     */
+    public static TreeEvent fieldUpdated(String id, String field, String value) {
+        return new TreeEvent(-1, Type.FIELD_UPDATED, id, null, null, null, null, null, field, value);
+    }
+
+    TreeEvent withSequence(long sequence) {
+        return new TreeEvent(sequence, type, personId, otherId, fullName, gender, year, deathYear, field, value);
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Person added or updated, the parent for links, the first spouse, or the merge survivor.
+     */
+    public String getPersonId() {
+        return personId;
+    }
+
+    /**
+     * The child for links, the second spouse, or the merged-away person.
+     */
+    public String getOtherId() {
+        return otherId;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public Gender getGender() {
+        return gender;
+    }
+
+    /**
+     * Birth year for PERSON_ADDED, marriage year for MARRIED.
+     */
+    public Integer getYear() {
+        return year;
+    }
+
+    public Integer getDeathYear() {
+        return deathYear;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('#').append(sequence).append(' ').append(type).append(' ').append(personId);
+        if (otherId != null) {
+            sb.append(' ').append(otherId);
+        }
+        if (field != null) {
+            sb.append(' ').append(field).append('=').append(value);
+        }
+        return sb.toString();
+    }
+}
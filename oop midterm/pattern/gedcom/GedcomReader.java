@@ -0,0 +1,508 @@
+package gedcom;
+
+import core.FamilyTree;
+import factory.PersonFactory;
+import model.Gender;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streams a GEDCOM 5.5.1 file into a FamilyTree.
+ * A parser thread turns lines into INDI/FAM records and hands them over in batches
+ * through a small bounded queue, while the calling thread adds and links them, so
+ * only a few batches are ever held in memory. Families that point at individuals
+ * not seen yet are deferred and linked in a final pass. Individuals that were skipped
+ * are remembered by ID so their families are linked at once instead of waiting; when
+ * more than maxDeferred families still wait, those that can be linked are, and the
+ * rest are spilled to a temporary file.
+ */
+public class GedcomReader {
+    private static final int QUEUE_BATCHES = 4;
+    private static final int DEFAULT_MAX_DEFERRED = 10_000;
+    private static final Pattern YEAR = Pattern.compile("\\b(\\d{4})\\b");
+    private static final List<Object> END = new ArrayList<>();
+
+    private final FamilyTree tree;
+    private final int batchSize;
+    private final int maxDeferred;
+
+    public GedcomReader(FamilyTree tree, int batchSize) {
+        this(tree, batchSize, DEFAULT_MAX_DEFERRED);
+    }
+
+    public GedcomReader(FamilyTree tree, int batchSize, int maxDeferred) {
+        if (batchSize < 1 || maxDeferred < 1) {
+            throw new IllegalArgumentException("Batch size and deferred family limit must be positive");
+        }
+        this.tree = tree;
+        this.batchSize = batchSize;
+        this.maxDeferred = maxDeferred;
+    }
+
+    /**
+     * Import everything from in, returning counts of what was added and skipped.
+     * The tree is only touched from the calling thread.
+     */
+    public Result read(Reader in) throws IOException {
+        BlockingQueue<List<Object>> queue = new ArrayBlockingQueue<>(QUEUE_BATCHES);
+        Throwable[] failure = new Throwable[1];
+        Thread parser = new Thread(() -> {
+            try {
+                parse(in, queue);
+            } catch (Throwable t) {
+                failure[0] = t;
+            } finally {
+                if (!Thread.currentThread().isInterrupted()) {
+                    putQuietly(queue, END);
+                }
+            }
+        }, "gedcom-parser");
+        parser.setDaemon(true);
+        parser.start();
+
+        Result result = new Result();
+        Set<String> skipped = new HashSet<>();
+        List<Family> deferred = new ArrayList<>();
+        try (SpillFile spill = new SpillFile()) {
+            boolean finished = false;
+            try {
+                for (List<Object> batch = queue.take(); batch != END; batch = queue.take()) {
+                    for (Object record : batch) {
+                        if (record instanceof Individual) {
+                            add((Individual) record, skipped, result);
+                        } else if (resolvable((Family) record, skipped)) {
+                            link((Family) record, result);
+                        } else {
+                            result.deferredFamilies++;
+                            deferred.add((Family) record);
+                            if (deferred.size() >= maxDeferred) {
+                                relieve(deferred, skipped, spill, result);
+                            }
+                        }
+                    }
+                }
+                parser.join();
+                finished = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("GEDCOM import interrupted", e);
+            } finally {
+                if (!finished) {
+                    // Unblock a parser waiting on the full queue
+                    parser.interrupt();
+                }
+            }
+            rethrow(failure[0]);
+
+            // Forward references: everything that will ever exist has been added by now
+            for (Family family : deferred) {
+                link(family, result);
+            }
+            spill.replay(family -> link(family, result));
+        }
+        return result;
+    }
+
+    /**
+     * Throw what the parser thread failed with, if anything, on the calling thread.
+     */
+    private static void rethrow(Throwable failure) throws IOException {
+        if (failure instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) failure).getCause();
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+    }
+
+    /**
+     * Link the deferred families whose people have all turned up (or been skipped) since,
+     * then spill the rest if that did not free at least half of the limit.
+     */
+    private void relieve(List<Family> deferred, Set<String> skipped, SpillFile spill, Result result) throws IOException {
+        for (Iterator<Family> it = deferred.iterator(); it.hasNext(); ) {
+            Family family = it.next();
+            if (resolvable(family, skipped)) {
+                link(family, result);
+                it.remove();
+            }
+        }
+        if (deferred.size() > maxDeferred / 2) {
+            for (Family family : deferred) {
+                spill.write(family);
+            }
+            result.spilledFamilies += deferred.size();
+            deferred.clear();
+        }
+    }
+
+    private void parse(Reader in, BlockingQueue<List<Object>> queue) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        List<Object> batch = new ArrayList<>(batchSize);
+        Object record = null;
+        String event = null;
+        String line;
+        long lineNumber = 0;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (lineNumber == 1 && !line.isEmpty() && line.charAt(0) == '\uFEFF') {
+                line = line.substring(1);
+            }
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            String[] parts = line.split(" ", 3);
+            int level;
+            try {
+                level = Integer.parseInt(parts[0]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": invalid level '" + parts[0] + "'");
+            }
+            if (parts.length < 2) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": missing tag");
+            }
+
+            if (level == 0) {
+                if (record != null) {
+                    batch.add(record);
+                    if (batch.size() == batchSize) {
+                        putQuietly(queue, batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                record = null;
+                String tag = parts.length > 2 ? parts[2].trim() : "";
+                if (parts[1].startsWith("@") && tag.equals("INDI")) {
+                    record = new Individual(xref(parts[1]));
+                } else if (parts[1].startsWith("@") && tag.equals("FAM")) {
+                    record = new Family();
+                }
+                continue;
+            }
+            if (record == null) {
+                continue;
+            }
+
+            String tag = parts[1];
+            String value = parts.length > 2 ? parts[2].trim() : "";
+            if (level == 1) {
+                event = tag;
+                if (record instanceof Individual) {
+                    Individual person = (Individual) record;
+                    if (tag.equals("NAME") && person.name == null) {
+                        person.name = name(value);
+                    } else if (tag.equals("SEX")) {
+                        person.gender = gender(value);
+                    }
+                } else {
+                    Family family = (Family) record;
+                    if (tag.equals("HUSB")) {
+                        family.husband = xref(value);
+                    } else if (tag.equals("WIFE")) {
+                        family.wife = xref(value);
+                    } else if (tag.equals("CHIL")) {
+                        family.children.add(xref(value));
+                    }
+                }
+            } else if (level == 2 && tag.equals("DATE") && event != null) {
+                Integer year = year(value);
+                if (record instanceof Individual) {
+                    if (event.equals("BIRT")) {
+                        ((Individual) record).birthYear = year;
+                    } else if (event.equals("DEAT")) {
+                        ((Individual) record).deathYear = year;
+                    }
+                } else if (event.equals("MARR")) {
+                    ((Family) record).marriageYear = year;
+                }
+            }
+        }
+
+        if (record != null) {
+            batch.add(record);
+        }
+        if (!batch.isEmpty()) {
+            putQuietly(queue, batch);
+        }
+    }
+
+    private void add(Individual record, Set<String> skipped, Result result) {
+        if (tree.containsPerson(record.id)) {
+            result.skippedIndividuals++;
+            return;
+        }
+        if (record.birthYear == null) {
+            skip(record, skipped, result);
+            return;
+        }
+        String name = record.name == null || record.name.isEmpty() ? record.id : record.name;
+        try {
+            tree.addPerson(PersonFactory.createPerson(record.id, name, record.gender, record.birthYear,
+                    record.deathYear));
+            result.individuals++;
+        } catch (IllegalArgumentException e) {
+            skip(record, skipped, result);
+        }
+    }
+
+    private static void skip(Individual record, Set<String> skipped, Result result) {
+        // Families waiting on this ID need not wait any longer
+        skipped.add(record.id);
+        result.skippedIndividuals++;
+    }
+
+    /**
+     * Whether every member is in the tree or known to have been skipped, so linking now
+     * gives the same result as linking at the end.
+     */
+    private boolean resolvable(Family family, Set<String> skipped) {
+        if (!settled(family.husband, skipped) || !settled(family.wife, skipped)) {
+            return false;
+        }
+        for (String child : family.children) {
+            if (!settled(child, skipped)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean settled(String id, Set<String> skipped) {
+        return id == null || tree.containsPerson(id) || skipped.contains(id);
+    }
+
+    private void link(Family family, Result result) {
+        result.families++;
+        if (family.husband != null && family.wife != null && family.marriageYear != null) {
+            tryLink(result, () -> tree.marry(family.husband, family.wife, family.marriageYear));
+        }
+        for (String child : family.children) {
+            if (family.husband != null) {
+                tryLink(result, () -> tree.addParentChild(family.husband, child));
+            }
+            if (family.wife != null) {
+                tryLink(result, () -> tree.addParentChild(family.wife, child));
+            }
+        }
+    }
+
+    private static void tryLink(Result result, Runnable link) {
+        try {
+            link.run();
+            result.links++;
+        } catch (IllegalArgumentException e) {
+            // Missing person, cycle, third parent or remarriage without divorce
+            result.rejectedLinks++;
+        }
+    }
+
+    private static void putQuietly(BlockingQueue<List<Object>> queue, List<Object> batch) {
+        try {
+            queue.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("GEDCOM parser interrupted", e);
+        }
+    }
+
+    static String xref(String pointer) {
+        String trimmed = pointer.trim();
+        if (trimmed.length() > 1 && trimmed.startsWith("@") && trimmed.endsWith("@")) {
+            return trimmed.substring(1, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+
+    /**
+     * "John /Smith/" becomes "John Smith".
+     */
+    static String name(String value) {
+        return value.replace('/', ' ').trim().replaceAll("\\s+", " ");
+    }
+
+    static Gender gender(String value) {
+        switch (value.toUpperCase()) {
+            case "M":
+                return Gender.MALE;
+            case "F":
+                return Gender.FEMALE;
+            default:
+                return Gender.OTHER;
+        }
+    }
+
+    /**
+     * First four-digit year in a date such as "12 JAN 1850" or "ABT 1850".
+     */
+    static Integer year(String date) {
+        Matcher matcher = YEAR.matcher(date);
+        return matcher.find() ? Integer.valueOf(matcher.group(1)) : null;
+    }
+
+    private static final class Individual {
+        final String id;
+        String name;
+        Gender gender = Gender.OTHER;
+        Integer birthYear;
+        Integer deathYear;
+
+        Individual(String id) {
+            this.id = id;
+        }
+    }
+
+    private static final class Family {
+        final List<String> children = new ArrayList<>();
+        String husband;
+        String wife;
+        Integer marriageYear;
+    }
+
+    private interface FamilyConsumer {
+        void accept(Family family);
+    }
+
+    /**
+     * Temporary file of deferred families, created on first write and deleted on close.
+     */
+    private static final class SpillFile implements Closeable {
+        private Path file;
+        private DataOutputStream out;
+        private long count;
+
+        void write(Family family) throws IOException {
+            if (out == null) {
+                file = Files.createTempFile("gedcom-deferred", ".bin");
+                out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+            }
+            writeId(family.husband);
+            writeId(family.wife);
+            out.writeInt(family.marriageYear == null ? Integer.MIN_VALUE : family.marriageYear);
+            out.writeInt(family.children.size());
+            for (String child : family.children) {
+                out.writeUTF(child);
+            }
+            count++;
+        }
+
+        private void writeId(String id) throws IOException {
+            out.writeBoolean(id != null);
+            if (id != null) {
+                out.writeUTF(id);
+            }
+        }
+
+        /**
+         * Read the families back in the order they were written.
+         */
+        void replay(FamilyConsumer consumer) throws IOException {
+            if (out == null) {
+                return;
+            }
+            out.close();
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                for (long i = 0; i < count; i++) {
+                    Family family = new Family();
+                    family.husband = in.readBoolean() ? in.readUTF() : null;
+                    family.wife = in.readBoolean() ? in.readUTF() : null;
+                    int year = in.readInt();
+                    family.marriageYear = year == Integer.MIN_VALUE ? null : year;
+                    for (int children = in.readInt(); children > 0; children--) {
+                        family.children.add(in.readUTF());
+                    }
+                    consumer.accept(family);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (out != null) {
+                out.close();
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Counts from one import.
+     */
+    public static final class Result {
+        private long individuals;
+        private long skippedIndividuals;
+        private long families;
+        private long deferredFamilies;
+        private long spilledFamilies;
+        private long links;
+        private long rejectedLinks;
+
+        public long getIndividuals() {
+            return individuals;
+        }
+
+        /**
+         * Individuals without a birth year, with invalid data, or whose ID was already taken.
+         */
+        public long getSkippedIndividuals() {
+            return skippedIndividuals;
+        }
+
+        public long getFamilies() {
+            return families;
+        }
+
+        /**
+         * Families that referenced someone later in the file and had to wait for them.
+         */
+        public long getDeferredFamilies() {
+            return deferredFamilies;
+        }
+
+        /**
+         * Deferred families that were written to a temporary file while they waited.
+         */
+        public long getSpilledFamilies() {
+            return spilledFamilies;
+        }
+
+        public long getLinks() {
+            return links;
+        }
+
+        public long getRejectedLinks() {
+            return rejectedLinks;
+        }
+
+        @Override
+        public String toString() {
+            return "Imported " + individuals + " people (" + skippedIndividuals + " skipped), "
+                    + families + " families (" + deferredFamilies + " deferred, " + spilledFamilies + " spilled), "
+                    + links + " links (" + rejectedLinks + " rejected)";
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package gedcom;
+
+import model.Gender;
+import model.Person;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams people to GEDCOM 5.5.1.
+ * Each family is emitted by the parent with the smaller ID while that parent is visited,
+ * so the writer only ever holds one person's children in memory. INDI records carry
+ * no FAMC/FAMS back-pointers, which would need the family numbering up front.
+ */
+public class GedcomWriter {
+    private final Appendable out;
+    private long families;
+
+    public GedcomWriter(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * Write a complete file: header, all individuals, their families and trailer.
+     */
+    public void write(Collection<Person> people) throws IOException {
+        out.append("0 HEAD\n1 SOUR FamilyTree\n1 GEDC\n2 VERS 5.5.1\n2 FORM LINEAGE-LINKED\n1 CHAR UTF-8\n");
+        StringBuilder record = new StringBuilder();
+        for (Person person : people) {
+            record.setLength(0);
+            individual(person, record);
+            out.append(record);
+        }
+        for (Person person : people) {
+            record.setLength(0);
+            familiesOf(person, record);
+            out.append(record);
+        }
+        out.append("0 TRLR\n");
+    }
+
+    private static void individual(Person person, StringBuilder sb) {
+        sb.append("0 @").append(person.getId()).append("@ INDI\n");
+        sb.append("1 NAME ").append(name(person.getFullName())).append('\n');
+        sb.append("1 SEX ").append(sex(person.getGender())).append('\n');
+        sb.append("1 BIRT\n2 DATE ").append(person.getBirthYear()).append('\n');
+        if (person.getDeathYear() != null) {
+            sb.append("1 DEAT\n2 DATE ").append(person.getDeathYear()).append('\n');
+        }
+    }
+
+    private void familiesOf(Person person, StringBuilder sb) {
+        // Children grouped by the other parent; null key for a single known parent
+        Map<Person, List<Person>> byPartner = new LinkedHashMap<>();
+        for (Person child : person.getChildren()) {
+            Person other = child.getParent1() == person ? child.getParent2() : child.getParent1();
+            if (other == null || isFirst(person, other)) {
+                byPartner.computeIfAbsent(other, k -> new ArrayList<>()).add(child);
+            }
+        }
+        Person spouse = person.getSpouse();
+        if (spouse != null && isFirst(person, spouse)) {
+            byPartner.putIfAbsent(spouse, new ArrayList<>());
+        }
+
+        for (Map.Entry<Person, List<Person>> entry : byPartner.entrySet()) {
+            Person partner = entry.getKey();
+            sb.append("0 @F").append(++families).append("@ FAM\n");
+            boolean asWife = person.getGender() == Gender.FEMALE
+                    && (partner == null || partner.getGender() != Gender.FEMALE);
+            spouseLine(asWife ? partner : person, sb, "HUSB");
+            spouseLine(asWife ? person : partner, sb, "WIFE");
+            if (partner != null && partner == spouse && person.getMarriageYear() != null) {
+                sb.append("1 MARR\n2 DATE ").append(person.getMarriageYear()).append('\n');
+                if (person.getDivorceYear() != null) {
+                    sb.append("1 DIV\n2 DATE ").append(person.getDivorceYear()).append('\n');
+                }
+            }
+            for (Person child : entry.getValue()) {
+                sb.append("1 CHIL @").append(child.getId()).append("@\n");
+            }
+        }
+    }
+
+    private static void spouseLine(Person person, StringBuilder sb, String tag) {
+        if (person != null) {
+            sb.append("1 ").append(tag).append(" @").append(person.getId()).append("@\n");
+        }
+    }
+
+    /**
+     * The partner with the smaller ID owns the family record.
+     */
+    private static boolean isFirst(Person person, Person other) {
+        return person.getId().compareTo(other.getId()) < 0;
+    }
+
+    /**
+     * Last word becomes the surname: "John Smith" is written as "John /Smith/".
+     */
+    static String name(String fullName) {
+        String trimmed = fullName.trim().replace('/', ' ');
+        int space = trimmed.lastIndexOf(' ');
+        if (space < 0) {
+            return trimmed;
+        }
+        return trimmed.substring(0, space) + " /" + trimmed.substring(space + 1) + "/";
+    }
+
+    private static String sex(Gender gender) {
+        switch (gender) {
+            case MALE:
+                return "M";
+            case FEMALE:
+                return "F";
+            default:
+                return "U";
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package query;
+
+import core.FamilyTree;
+import model.Gender;
+import model.Person;
+
+/**
+ * A single filter in a query, with a rough selectivity used by the planner.
+ */
+public final class Condition {
+
+    /**
+     * Supported filter kinds.
+     */
+    public enum Kind {
+        GENDER, TYPE, ALIVE, DECEASED, BORN_BETWEEN, RELATED_TO
+    }
+
+    // Birth years are validated to this range by Person
+    public static final int MIN_YEAR = 1800;
+    public static final int MAX_YEAR = 2100;
+
+    private final Kind kind;
+    private final Gender gender;
+    private final String text;
+    private final int from;
+    private final int to;
+
+    private Condition(Kind kind, Gender gender, String text, int from, int to) {
+        this.kind = kind;
+        this.gender = gender;
+        this.text = text;
+        this.from = from;
+        this.to = to;
+    }
+
+    public static Condition gender(Gender gender) {
+        return new Condition(Kind.GENDER, gender, null, 0, 0);
+    }
+
+    public static Condition personType(String type) {
+        return new Condition(Kind.TYPE, null, type, 0, 0);
+    }
+
+    public static Condition alive() {
+        return new Condition(Kind.ALIVE, null, null, 0, 0);
+    }
+
+    public static Condition deceased() {
+        return new Condition(Kind.DECEASED, null, null, 0, 0);
+    }
+
+    public static Condition bornBetween(int from, int to) {
+        if (from > to) {
+            throw new IllegalArgumentException("Empty birth year range: " + from + ".." + to);
+        }
+        return new Condition(Kind.BORN_BETWEEN, null, null, from, to);
+    }
+
+    public static Condition relatedTo(String personId) {
+        return new Condition(Kind.RELATED_TO, null, personId, 0, 0);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getPersonId() {
+        return text;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    boolean test(Person person, FamilyTree tree) {
+        switch (kind) {
+            case GENDER:
+                return person.getGender() == gender;
+            case TYPE:
+                return person.getPersonType().equalsIgnoreCase(text);
+            case ALIVE:
+                return person.isAlive();
+            case DECEASED:
+                return !person.isAlive();
+            case BORN_BETWEEN:
+                return person.getBirthYear() >= from && person.getBirthYear() <= to;
+            default:
+                return tree.relatedAtAll(person.getId(), text);
+        }
+    }
+
+    /**
+     * Estimated fraction of people passing this filter.
+     */
+    double selectivity() {
+        switch (kind) {
+            case GENDER:
+                return 1.0 / Gender.values().length;
+            case TYPE:
+            case ALIVE:
+            case DECEASED:
+                return 0.5;
+            case BORN_BETWEEN:
+                int overlap = Math.min(to, MAX_YEAR) - Math.max(from, MIN_YEAR) + 1;
+                return Math.max(0, overlap) / (double) (MAX_YEAR - MIN_YEAR + 1);
+            default:
+                return 0.5;
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case GENDER:
+                return "gender = " + gender;
+            case TYPE:
+                return "type = " + text;
+            case ALIVE:
+                return "alive";
+            case DECEASED:
+                return "deceased";
+            case BORN_BETWEEN:
+                return "born between " + from + " and " + to;
+            default:
+                return "related to " + text;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package query;
+
+import model.Gender;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Declarative people query: a source, filters and an optional limit.
+ * Built fluently from Java or parsed from text by QueryParser.
+ */
+public final class Query {
+
+    /**
+     * Where candidate people come from.
+     */
+    public enum Source {
+        ALL, DESCENDANTS, ANCESTORS, SIBLINGS
+    }
+
+    private final Source source;
+    private final String personId;
+    private int generations;
+    private final List<Condition> conditions;
+    private long limit;
+
+    private Query(Source source, String personId) {
+        this.source = source;
+        this.personId = personId;
+        this.generations = Integer.MAX_VALUE;
+        this.conditions = new ArrayList<>();
+        this.limit = Long.MAX_VALUE;
+    }
+
+    public static Query all() {
+        return new Query(Source.ALL, null);
+    }
+
+    public static Query descendantsOf(String personId) {
+        return new Query(Source.DESCENDANTS, personId);
+    }
+
+    public static Query ancestorsOf(String personId) {
+        return new Query(Source.ANCESTORS, personId);
+    }
+
+    public static Query siblingsOf(String personId) {
+        return new Query(Source.SIBLINGS, personId);
+    }
+
+    /**
+     * Limit a DESCENDANTS or ANCESTORS query to this many generations.
+     */
+    public Query within(int generations) {
+        if (source != Source.DESCENDANTS && source != Source.ANCESTORS) {
+            throw new IllegalArgumentException("WITHIN only applies to DESCENDANTS and ANCESTORS queries");
+        }
+        if (generations < 0) {
+            throw new IllegalArgumentException("Generations cannot be negative");
+        }
+        this.generations = generations;
+        return this;
+    }
+
+    public Query where(Condition condition) {
+        conditions.add(condition);
+        return this;
+    }
+
+    public Query gender(Gender gender) {
+        return where(Condition.gender(gender));
+    }
+
+    public Query personType(String type) {
+        return where(Condition.personType(type));
+    }
+
+    public Query alive() {
+        return where(Condition.alive());
+    }
+
+    public Query deceased() {
+        return where(Condition.deceased());
+    }
+
+    public Query bornBetween(int from, int to) {
+        return where(Condition.bornBetween(from, to));
+    }
+
+    public Query relatedTo(String personId) {
+        return where(Condition.relatedTo(personId));
+    }
+
+    public Query limit(long limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public String getPersonId() {
+        return personId;
+    }
+
+    public int getGenerations() {
+        return generations;
+    }
+
+    public List<Condition> getConditions() {
+        return Collections.unmodifiableList(conditions);
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(source.name());
+        if (personId != null) {
+            sb.append(" OF ").append(personId);
+        }
+        if (generations != Integer.MAX_VALUE) {
+            sb.append(" WITHIN ").append(generations);
+        }
+        for (int i = 0; i < conditions.size(); i++) {
+            sb.append(i == 0 ? " WHERE " : " AND ").append(conditions.get(i));
+        }
+        if (limit != Long.MAX_VALUE) {
+            sb.append(" LIMIT ").append(limit);
+        }
+        return sb.toString();
+    }
+}
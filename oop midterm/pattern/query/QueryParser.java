@@ -0,0 +1,141 @@
+package query;
+
+import model.Gender;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parses the text form of a query.
+ *
+ * query  := source [WHERE cond {AND cond}] [LIMIT n]
+ * source := ALL | DESCENDANTS OF id [WITHIN n] | ANCESTORS OF id [WITHIN n] | SIBLINGS OF id
+ * cond   := GENDER = g | TYPE = t | ALIVE | DECEASED | BORN BETWEEN y AND y
+ *         | BORN BEFORE y | BORN AFTER y | RELATED TO id
+ */
+public final class QueryParser {
+    private final List<String> tokens;
+    private int position;
+
+    private QueryParser(String text) {
+        this.tokens = new ArrayList<>();
+        for (String token : text.trim().replace("=", " = ").split("\\s+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+    }
+
+    public static Query parse(String text) {
+        QueryParser parser = new QueryParser(text);
+        Query query = parser.parseQuery();
+        if (parser.position < parser.tokens.size()) {
+            throw new IllegalArgumentException("Unexpected '" + parser.tokens.get(parser.position) + "' in query");
+        }
+        return query;
+    }
+
+    private Query parseQuery() {
+        Query query;
+        String source = next();
+        switch (source) {
+            case "ALL":
+                query = Query.all();
+                break;
+            case "DESCENDANTS":
+                expect("OF");
+                query = Query.descendantsOf(nextRaw());
+                break;
+            case "ANCESTORS":
+                expect("OF");
+                query = Query.ancestorsOf(nextRaw());
+                break;
+            case "SIBLINGS":
+                expect("OF");
+                query = Query.siblingsOf(nextRaw());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown query source: " + source);
+        }
+
+        if (accept("WITHIN")) {
+            query.within(nextInt());
+        }
+        if (accept("WHERE")) {
+            do {
+                query.where(parseCondition());
+            } while (accept("AND"));
+        }
+        if (accept("LIMIT")) {
+            query.limit(nextInt());
+        }
+        return query;
+    }
+
+    private Condition parseCondition() {
+        String keyword = next();
+        switch (keyword) {
+            case "GENDER":
+                expect("=");
+                return Condition.gender(Gender.valueOf(next()));
+            case "TYPE":
+                expect("=");
+                return Condition.personType(nextRaw());
+            case "ALIVE":
+                return Condition.alive();
+            case "DECEASED":
+                return Condition.deceased();
+            case "BORN":
+                if (accept("BEFORE")) {
+                    return Condition.bornBetween(Condition.MIN_YEAR, nextInt() - 1);
+                }
+                if (accept("AFTER")) {
+                    return Condition.bornBetween(nextInt() + 1, Condition.MAX_YEAR);
+                }
+                expect("BETWEEN");
+                int from = nextInt();
+                expect("AND");
+                return Condition.bornBetween(from, nextInt());
+            case "RELATED":
+                expect("TO");
+                return Condition.relatedTo(nextRaw());
+            default:
+                throw new IllegalArgumentException("Unknown condition: " + keyword);
+        }
+    }
+
+    private String nextRaw() {
+        if (position >= tokens.size()) {
+            throw new IllegalArgumentException("Unexpected end of query");
+        }
+        return tokens.get(position++);
+    }
+
+    private String next() {
+        return nextRaw().toUpperCase(Locale.ROOT);
+    }
+
+    private int nextInt() {
+        String token = nextRaw();
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number but found '" + token + "'");
+        }
+    }
+
+    private boolean accept(String keyword) {
+        if (position < tokens.size() && tokens.get(position).equalsIgnoreCase(keyword)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String keyword) {
+        if (!accept(keyword)) {
+            throw new IllegalArgumentException("Expected " + keyword + " in query");
+        }
+    }
+}
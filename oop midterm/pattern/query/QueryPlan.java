@@ -0,0 +1,115 @@
+package query;
+
+import core.FamilyTree;
+import model.Person;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Executable plan chosen by QueryPlanner. Results are streamed, never collected first.
+ */
+public final class QueryPlan {
+
+    /**
+     * How candidate people are produced.
+     */
+    public enum AccessPath {
+        EMPTY, SCAN_ALL, TRAVERSE_DESCENDANTS, TRAVERSE_ANCESTORS, SIBLINGS, COMPONENT_WALK
+    }
+
+    private final FamilyTree tree;
+    private final Query query;
+    private final AccessPath accessPath;
+    private final Supplier<Stream<Person>> source;
+    private final long estimatedInput;
+    private final List<Condition> residual;
+    private final List<String> notes;
+
+    QueryPlan(FamilyTree tree, Query query, AccessPath accessPath, Supplier<Stream<Person>> source,
+              long estimatedInput, List<Condition> residual, List<String> notes) {
+        this.tree = tree;
+        this.query = query;
+        this.accessPath = accessPath;
+        this.source = source;
+        this.estimatedInput = estimatedInput;
+        this.residual = Collections.unmodifiableList(new ArrayList<>(residual));
+        this.notes = Collections.unmodifiableList(new ArrayList<>(notes));
+    }
+
+    public AccessPath getAccessPath() {
+        return accessPath;
+    }
+
+    public List<Condition> getResidualConditions() {
+        return residual;
+    }
+
+    public long getEstimatedInput() {
+        return estimatedInput;
+    }
+
+    /**
+     * Estimated result size assuming independent filters.
+     */
+    public long getEstimatedOutput() {
+        double rows = estimatedInput;
+        for (Condition condition : residual) {
+            rows *= condition.selectivity();
+        }
+        return Math.min(query.getLimit(), Math.round(rows));
+    }
+
+    /**
+     * Run the plan; people are produced lazily in breadth-first order for traversals.
+     */
+    public Stream<Person> stream() {
+        Stream<Person> stream = source.get();
+        if (!residual.isEmpty()) {
+            Predicate<Person> filter = person -> {
+                for (Condition condition : residual) {
+                    if (!condition.test(person, tree)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+            stream = stream.filter(filter);
+        }
+        if (query.getLimit() != Long.MAX_VALUE) {
+            stream = stream.limit(query.getLimit());
+        }
+        return stream;
+    }
+
+    /**
+     * Human-readable plan description.
+     */
+    public String explain() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Query: ").append(query).append('\n');
+        sb.append("Access: ").append(accessPath).append(" (est. ").append(estimatedInput).append(" rows)\n");
+        for (String note : notes) {
+            sb.append("  ").append(note).append('\n');
+        }
+        sb.append("Filter: ");
+        if (residual.isEmpty()) {
+            sb.append("<none>");
+        }
+        for (int i = 0; i < residual.size(); i++) {
+            Condition condition = residual.get(i);
+            sb.append(i == 0 ? "" : " -> ").append(condition)
+                    .append(String.format(" [sel %.2f]", condition.selectivity()));
+        }
+        sb.append('\n');
+        if (query.getLimit() != Long.MAX_VALUE) {
+            sb.append("Limit: ").append(query.getLimit()).append('\n');
+        }
+        sb.append("Estimated output: ").append(getEstimatedOutput());
+        return sb.toString();
+    }
+}
@@ -0,0 +1,207 @@
+package query;
+
+import core.FamilyTree;
+import model.Person;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Cost-based planner. Estimates candidate counts from the tree's indexes
+ * (subtree aggregates, connected components); where a query can be answered by more
+ * than one access path (a scan of everyone or a walk of a RELATED_TO person's
+ * component) it compares their estimated costs and takes the cheapest. It also folds
+ * conditions the indexes can answer outright, pushes birth-year bounds into traversals
+ * as pruning, and orders the remaining filters by selectivity.
+ */
+public final class QueryPlanner {
+    // A walked person costs a queue entry, a neighbour list and visited-set inserts; a scanned one costs one step
+    private static final double WALK_COST_PER_PERSON = 3.0;
+
+    private QueryPlanner() {
+        // Prevent instantiation
+    }
+
+    public static QueryPlan plan(FamilyTree tree, Query query) {
+        List<String> notes = new ArrayList<>();
+        List<Condition> residual = new ArrayList<>(query.getConditions());
+        String rootId = query.getPersonId();
+        if (rootId != null) {
+            tree.getPerson(rootId);
+        }
+
+        String walkFrom = query.getSource() == Query.Source.ALL ? cheapestWalk(tree, residual, notes) : null;
+
+        // RELATED TO: every traversal result shares the root's component, so the index answers it once
+        for (Iterator<Condition> it = residual.iterator(); it.hasNext(); ) {
+            Condition condition = it.next();
+            if (condition.getKind() != Condition.Kind.RELATED_TO) {
+                continue;
+            }
+            String anchor = rootId != null ? rootId : walkFrom;
+            if (anchor == null) {
+                continue;
+            }
+            boolean related = tree.relatedAtAll(anchor, condition.getPersonId());
+            notes.add("index: " + condition + " is " + related + " for every candidate");
+            if (!related) {
+                return empty(tree, query, notes);
+            }
+            it.remove();
+        }
+
+        residual.sort(Comparator.comparingDouble(Condition::selectivity));
+
+        switch (query.getSource()) {
+            case DESCENDANTS: {
+                long estimate = Math.min(descendantEstimate(tree, rootId, query.getGenerations()) + 1, tree.size());
+                notes.add("index: subtree aggregates estimate " + estimate + " descendants");
+                Predicate<Person> prune = pushdown(tree, residual, false, notes);
+                int generations = query.getGenerations();
+                return new QueryPlan(tree, query, QueryPlan.AccessPath.TRAVERSE_DESCENDANTS,
+                        () -> tree.descendantsStream(rootId, generations, prune), estimate, residual, notes);
+            }
+            case ANCESTORS: {
+                int bounded = Math.min(query.getGenerations(), 30);
+                long estimate = Math.min((1L << (bounded + 1)) - 1, tree.size());
+                Predicate<Person> prune = pushdown(tree, residual, true, notes);
+                int generations = query.getGenerations();
+                return new QueryPlan(tree, query, QueryPlan.AccessPath.TRAVERSE_ANCESTORS,
+                        () -> tree.ancestorsStream(rootId, generations, prune), estimate, residual, notes);
+            }
+            case SIBLINGS: {
+                Person person = tree.getPerson(rootId);
+                long estimate = 0;
+                for (Person parent : new Person[]{person.getParent1(), person.getParent2()}) {
+                    if (parent != null) {
+                        estimate += parent.getChildren().size();
+                    }
+                }
+                return new QueryPlan(tree, query, QueryPlan.AccessPath.SIBLINGS,
+                        () -> tree.siblingsOf(rootId).stream(), estimate, residual, notes);
+            }
+            default: {
+                if (walkFrom != null) {
+                    String from = walkFrom;
+                    return new QueryPlan(tree, query, QueryPlan.AccessPath.COMPONENT_WALK,
+                            () -> componentStream(tree.getPerson(from)), tree.componentSizeOf(from), residual, notes);
+                }
+                return new QueryPlan(tree, query, QueryPlan.AccessPath.SCAN_ALL,
+                        () -> tree.people().stream(), tree.size(), residual, notes);
+            }
+        }
+    }
+
+    /**
+     * Cost a scan of everyone against walking the component of each RELATED_TO person;
+     * returns the person to walk from, or null when the scan is cheapest.
+     */
+    private static String cheapestWalk(FamilyTree tree, List<Condition> residual, List<String> notes) {
+        double best = tree.size();
+        String walkFrom = null;
+        notes.add(String.format("cost: %s %.0f", QueryPlan.AccessPath.SCAN_ALL, best));
+        for (Condition condition : residual) {
+            if (condition.getKind() != Condition.Kind.RELATED_TO) {
+                continue;
+            }
+            int component = tree.componentSizeOf(condition.getPersonId());
+            double cost = component * WALK_COST_PER_PERSON;
+            notes.add(String.format("cost: %s from %s %.0f (%d of %d people)", QueryPlan.AccessPath.COMPONENT_WALK,
+                    condition.getPersonId(), cost, component, tree.size()));
+            if (cost < best) {
+                best = cost;
+                walkFrom = condition.getPersonId();
+            }
+        }
+        return walkFrom;
+    }
+
+    /**
+     * Descendants within a generation limit. The aggregates give the whole line's count and
+     * depth; lines widen with depth, so assume a constant branching factor that reproduces
+     * the count over that depth and sum it over the levels the limit allows.
+     */
+    private static long descendantEstimate(FamilyTree tree, String rootId, int generations) {
+        long total = tree.descendantCountOf(rootId);
+        int depth = tree.lineDepthOf(rootId);
+        if (generations >= depth || total == 0) {
+            return total;
+        }
+        double branching = Math.max(1.0, Math.pow(total, 1.0 / depth));
+        double levels = 0;
+        double width = 1;
+        for (int level = 0; level < generations; level++) {
+            width *= branching;
+            levels += width;
+        }
+        return Math.min(total, Math.round(levels));
+    }
+
+    private static QueryPlan empty(FamilyTree tree, Query query, List<String> notes) {
+        return new QueryPlan(tree, query, QueryPlan.AccessPath.EMPTY, Stream::empty, 0,
+                Collections.emptyList(), notes);
+    }
+
+    /**
+     * Parents are born before children, so a birth-year bound also bounds everyone
+     * further along the traversal. Only used while no link in the tree breaks that rule.
+     */
+    private static Predicate<Person> pushdown(FamilyTree tree, List<Condition> residual, boolean up, List<String> notes) {
+        int bound = up ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        for (Condition condition : residual) {
+            if (condition.getKind() == Condition.Kind.BORN_BETWEEN) {
+                bound = up ? Math.max(bound, condition.getFrom()) : Math.min(bound, condition.getTo());
+            }
+        }
+        if (bound == Integer.MIN_VALUE || bound == Integer.MAX_VALUE) {
+            return person -> true;
+        }
+
+        int violations = tree.birthOrderViolations();
+        if (violations > 0) {
+            notes.add("pushdown: disabled, birth order violated on " + violations + " link(s)");
+            return person -> true;
+        }
+
+        int limit = bound;
+        notes.add("pushdown: stop expanding people born " + (up ? "before " : "after ") + limit);
+        return up ? person -> person.getBirthYear() >= limit : person -> person.getBirthYear() <= limit;
+    }
+
+    /**
+     * Lazily walk everyone linked to start by parent, child or spouse edges.
+     */
+    private static Stream<Person> componentStream(Person start) {
+        Iterator<Person> iterator = new Iterator<>() {
+            private final Set<Person> visited = new HashSet<>(Collections.singleton(start));
+            private final Deque<Person> queue = new ArrayDeque<>(Collections.singleton(start));
+
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public Person next() {
+                Person person = queue.poll();
+                if (person == null) {
+                    throw new NoSuchElementException();
+                }
+                List<Person> neighbours = new ArrayList<>(person.getChildren());
+                neighbours.add(person.getParent1());
+                neighbours.add(person.getParent2());
+                neighbours.add(person.getSpouse());
+                for (Person neighbour : neighbours) {
+                    if (neighbour != null && visited.add(neighbour)) {
+                        queue.add(neighbour);
+                    }
+                }
+                return person;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+}
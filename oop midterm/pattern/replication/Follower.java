@@ -0,0 +1,265 @@
+package replication;
+
+import core.FamilyTree;
+import event.EventCodec;
+import event.TreeEvent;
+import factory.PersonFactory;
+import model.Person;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Read replica that tails a leader's log file and applies mutations in batches.
+ * The log is streamed a line at a time from the last consumed offset, and reading stops
+ * once a batch is applied, so a follower far behind never holds more than one line.
+ * Serves read queries from its own FamilyTree.
+ */
+public class Follower {
+    private static final int READ_BUFFER = 64 * 1024;
+
+    private final Path logFile;
+    private FamilyTree replica;
+    private long appliedSequence;
+    private long lastSeenSequence;
+    private long logOffset;
+
+    public Follower(Path logFile) {
+        this.logFile = logFile;
+        this.replica = new FamilyTree();
+        this.appliedSequence = -1;
+        this.lastSeenSequence = -1;
+    }
+
+    /**
+     * Replace local state with a leader snapshot; the log is then read from the offset the
+     * snapshot recorded (from the start for snapshots that have none).
+     */
+    public void catchUpFromSnapshot(Path snapshotFile) throws IOException {
+        FamilyTree fresh = new FamilyTree();
+        String[] header;
+        try (BufferedReader reader = Files.newBufferedReader(snapshotFile, StandardCharsets.UTF_8)) {
+            String first = reader.readLine();
+            header = first == null ? new String[]{""} : first.split("\t");
+            if (!header[0].equals(LogShipper.SNAPSHOT_HEADER)) {
+                throw new IllegalArgumentException("Not a snapshot file: " + snapshotFile);
+            }
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                apply(fresh, EventCodec.decode(line));
+            }
+        }
+        replica = fresh;
+        appliedSequence = Long.parseLong(header[1]);
+        lastSeenSequence = Math.max(lastSeenSequence, appliedSequence);
+        logOffset = header.length > 2 ? Long.parseLong(header[2]) : 0;
+    }
+
+    /**
+     * Read new log entries and apply at most maxBatch of them; returns how many were applied.
+     */
+    public int poll(int maxBatch) throws IOException {
+        if (!Files.exists(logFile)) {
+            return 0;
+        }
+        int applied = 0;
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER);
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long position = logOffset;
+            channel.position(position);
+            while (applied < maxBatch && channel.read(buffer) > 0) {
+                buffer.flip();
+                while (applied < maxBatch && buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    position++;
+                    if (b != '\n') {
+                        line.write(b);
+                        continue;
+                    }
+                    // Only complete lines are consumed; the leader may be mid-write
+                    logOffset = position;
+                    String text = line.toString(StandardCharsets.UTF_8);
+                    line.reset();
+                    if (!text.isEmpty() && apply(EventCodec.decode(text))) {
+                        applied++;
+                    }
+                }
+                buffer.clear();
+            }
+            lastSeenSequence = Math.max(lastSeenSequence, lastLoggedSequence(channel));
+        }
+        return applied;
+    }
+
+    /**
+     * Apply the next event from the log; false if it was already applied.
+     */
+    private boolean apply(TreeEvent event) {
+        lastSeenSequence = Math.max(lastSeenSequence, event.getSequence());
+        if (event.getSequence() <= appliedSequence) {
+            return false;
+        }
+        if (event.getSequence() != appliedSequence + 1) {
+            throw new IllegalStateException("Log is missing sequence " + (appliedSequence + 1)
+                    + "; catch up from a snapshot");
+        }
+        apply(replica, event);
+        appliedSequence = event.getSequence();
+        return true;
+    }
+
+    /**
+     * Apply everything currently in the log.
+     */
+    public void catchUp() throws IOException {
+        while (poll(Integer.MAX_VALUE) > 0) {
+            // keep applying
+        }
+    }
+
+    /**
+     * Sequence of the last complete line in the log, read from the end of the file
+     * (-1 if there is none past the consumed offset).
+     */
+    private long lastLoggedSequence(FileChannel channel) throws IOException {
+        long size = channel.size();
+        for (long window = 4096; ; window *= 2) {
+            long from = Math.max(logOffset, size - window);
+            ByteBuffer tail = ByteBuffer.allocate((int) (size - from));
+            channel.read(tail, from);
+            byte[] bytes = tail.array();
+            int end = bytes.length - 1;
+            while (end >= 0 && bytes[end] != '\n') {
+                end--;
+            }
+            if (end < 0 && from == logOffset) {
+                return -1;
+            }
+            int start = end - 1;
+            while (start >= 0 && bytes[start] != '\n') {
+                start--;
+            }
+            if (end >= 0 && (start >= 0 || from == logOffset)) {
+                int tab = start + 1;
+                while (tab < end && bytes[tab] != '\t') {
+                    tab++;
+                }
+                return tab == start + 1 ? -1
+                        : Long.parseLong(new String(bytes, start + 1, tab - start - 1, StandardCharsets.US_ASCII));
+            }
+            if (from == logOffset) {
+                return -1;
+            }
+        }
+    }
+
+    private static void apply(FamilyTree tree, TreeEvent event) {
+        switch (event.getType()) {
+            case PERSON_ADDED:
+                Person person = PersonFactory.createPerson(event.getPersonId(), event.getFullName(),
+                        event.getGender(), event.getYear(), event.getDeathYear());
+                tree.addPerson(person);
+                break;
+            case PARENT_CHILD_LINKED:
+                tree.addParentChild(event.getPersonId(), event.getOtherId());
+                break;
+            case MARRIED:
+                tree.marry(event.getPersonId(), event.getOtherId(), event.getYear());
+                break;
+            case MERGED:
+                tree.merge(event.getPersonId(), event.getOtherId());
+                break;
+            case FIELD_UPDATED:
+                if (TreeEvent.FULL_NAME.equals(event.getField())) {
+                    tree.setFullName(event.getPersonId(), event.getValue());
+                } else if (TreeEvent.DEATH_YEAR.equals(event.getField())) {
+                    tree.setDeathYear(event.getPersonId(), event.getValue() == null ? null : Integer.valueOf(event.getValue()));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown event type: " + event.getType());
+        }
+    }
+
+    /**
+     * Last leader sequence applied locally.
+     */
+    public long appliedSequence() {
+        return appliedSequence;
+    }
+
+    /**
+     * Events seen in the log but not yet applied.
+     */
+    public long lag() {
+        return lastSeenSequence - appliedSequence;
+    }
+
+    public Person getPerson(String id) {
+        return replica.getPerson(id);
+    }
+
+    public List<Person> ancestorsOf(String personId, int generations) {
+        return replica.ancestorsOf(personId, generations);
+    }
+
+    public List<Person> descendantsOf(String personId, int generations) {
+        return replica.descendantsOf(personId, generations);
+    }
+
+    public String renderAncestors(String personId, int generations) {
+        return replica.renderAncestors(personId, generations);
+    }
+
+    public String renderDescendants(String personId, int generations) {
+        return replica.renderDescendants(personId, generations);
+    }
+
+    /**
+     * Usage: java replication.Follower <logFile> [snapshotFile]
+     * Reads ANCESTORS/DESCENDANTS/LAG commands from stdin, catching up before each one.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java replication.Follower <logFile> [snapshotFile]");
+            return;
+        }
+        Follower follower = new Follower(Paths.get(args[0]));
+        if (args.length > 1) {
+            follower.catchUpFromSnapshot(Paths.get(args[1]));
+        }
+
+        Scanner scanner = new Scanner(System.in);
+        while (scanner.hasNextLine()) {
+            String[] parts = scanner.nextLine().trim().split("\\s+");
+            try {
+                follower.catchUp();
+                switch (parts[0].toUpperCase()) {
+                    case "ANCESTORS":
+                        System.out.println(follower.renderAncestors(parts[1], Integer.parseInt(parts[2])));
+                        break;
+                    case "DESCENDANTS":
+                        System.out.println(follower.renderDescendants(parts[1], Integer.parseInt(parts[2])));
+                        break;
+                    case "LAG":
+                        System.out.println("applied=" + follower.appliedSequence() + " lag=" + follower.lag());
+                        break;
+                    default:
+                        System.out.println("Unknown command: " + parts[0]);
+                }
+            } catch (RuntimeException e) {
+                System.out.println("Error: " + e.getMessage());
+            }
+        }
+    }
+}
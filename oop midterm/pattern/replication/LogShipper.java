@@ -0,0 +1,104 @@
+package replication;
+
+import core.FamilyTree;
+import event.ChangeFeed;
+import event.EventCodec;
+import event.TreeEvent;
+import model.Person;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Leader side of replication: appends the leader's change feed to a shared log file
+ * in batches and writes snapshots followers can start from.
+ */
+public class LogShipper implements AutoCloseable {
+    static final String SNAPSHOT_HEADER = "SNAPSHOT";
+
+    private final FamilyTree leader;
+    private final Path logFile;
+    private final ChangeFeed.Subscription subscription;
+
+    /**
+     * Ship every mutation made from now on, writing once per batchSize events.
+     */
+    public LogShipper(FamilyTree leader, Path logFile, int batchSize) {
+        this.leader = leader;
+        this.logFile = logFile;
+        this.subscription = leader.changes().subscribe(this::append, leader.changes().lastSequence() + 1, batchSize);
+    }
+
+    private void append(List<TreeEvent> batch) {
+        StringBuilder sb = new StringBuilder();
+        for (TreeEvent event : batch) {
+            sb.append(EventCodec.encode(event)).append('\n');
+        }
+        try {
+            Files.writeString(logFile, sb, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write any partial batch to the log now.
+     */
+    public void flush() {
+        subscription.flush();
+    }
+
+    /**
+     * Sequence of the last event written to the log.
+     */
+    public long shippedSequence() {
+        return subscription.position() - 1;
+    }
+
+    /**
+     * Write the leader's current state; followers apply it, then continue from the log.
+     * The header records the snapshot's sequence and the log offset where later events start.
+     */
+    public void snapshot(Path snapshotFile) throws IOException {
+        flush();
+        long logOffset = Files.exists(logFile) ? Files.size(logFile) : 0;
+        List<String> lines = new ArrayList<>();
+        lines.add(SNAPSHOT_HEADER + "\t" + leader.changes().lastSequence() + "\t" + logOffset);
+
+        for (Person person : leader.people()) {
+            lines.add(EventCodec.encode(TreeEvent.personAdded(person.getId(), person.getFullName(),
+                    person.getGender(), person.getBirthYear(), person.getDeathYear())));
+        }
+        // Replay order that keeps each parent's children and each child's parents in order
+        for (Map.Entry<Person, Person> link : leader.parentChildLinks()) {
+            lines.add(EventCodec.encode(TreeEvent.parentChildLinked(link.getKey().getId(), link.getValue().getId())));
+        }
+        for (Person person : leader.people()) {
+            Person spouse = person.getSpouse();
+            // Each couple once
+            if (spouse != null && person.getId().compareTo(spouse.getId()) < 0) {
+                lines.add(EventCodec.encode(TreeEvent.married(person.getId(), spouse.getId(), person.getMarriageYear())));
+            }
+        }
+
+        // Write then rename so followers never read a half-written snapshot
+        Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() {
+        flush();
+        subscription.cancel();
+    }
+}
@@ -0,0 +1,113 @@
+package shard;
+
+import core.FamilyTree;
+import factory.PersonFactory;
+import model.Gender;
+import model.Person;
+
+import java.util.*;
+
+/**
+ * Shard backed by an in-process FamilyTree.
+ * Edges to people on other shards are kept as remote references (IDs only).
+ */
+public class LocalShard implements Shard {
+    private final FamilyTree tree;
+    private final Map<String, List<String>> remoteParents;
+    private final Map<String, List<String>> remoteChildren;
+
+    public LocalShard() {
+        this.tree = new FamilyTree();
+        this.remoteParents = new HashMap<>();
+        this.remoteChildren = new HashMap<>();
+    }
+
+    public FamilyTree getTree() {
+        return tree;
+    }
+
+    @Override
+    public synchronized void addPerson(String id, String fullName, Gender gender, int birthYear, Integer deathYear) {
+        tree.addPerson(PersonFactory.createPerson(id, fullName, gender, birthYear, deathYear));
+    }
+
+    @Override
+    public synchronized boolean contains(String id) {
+        return tree.containsPerson(id);
+    }
+
+    @Override
+    public synchronized void linkLocal(String parentId, String childId) {
+        checkParentSlot(childId);
+        tree.addParentChild(parentId, childId);
+    }
+
+    @Override
+    public synchronized void addRemoteParent(String childId, String parentId) {
+        checkParentSlot(childId);
+        remoteParents.computeIfAbsent(childId, k -> new ArrayList<>()).add(parentId);
+    }
+
+    /**
+     * Local and remote parents share the limit of two.
+     */
+    private void checkParentSlot(String childId) {
+        Person child = tree.getPerson(childId);
+        int parentCount = (child.getParent1() != null ? 1 : 0) + (child.getParent2() != null ? 1 : 0)
+                + remoteParents.getOrDefault(childId, Collections.emptyList()).size();
+        if (parentCount >= 2) {
+            throw new IllegalArgumentException("Person already has two parents");
+        }
+    }
+
+    @Override
+    public synchronized void addRemoteChild(String parentId, String childId) {
+        tree.getPerson(parentId);
+        List<String> remote = remoteChildren.computeIfAbsent(parentId, k -> new ArrayList<>());
+        if (!remote.contains(childId)) {
+            remote.add(childId);
+        }
+    }
+
+    @Override
+    public synchronized Map<String, List<String>> parentsOf(Collection<String> ids) {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (String id : ids) {
+            Person person = tree.getPerson(id);
+            List<String> parents = new ArrayList<>();
+            if (person.getParent1() != null) {
+                parents.add(person.getParent1().getId());
+            }
+            if (person.getParent2() != null) {
+                parents.add(person.getParent2().getId());
+            }
+            parents.addAll(remoteParents.getOrDefault(id, Collections.emptyList()));
+            result.put(id, parents);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized Map<String, List<String>> childrenOf(Collection<String> ids) {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (String id : ids) {
+            List<String> children = new ArrayList<>();
+            for (Person child : tree.childrenOf(id)) {
+                children.add(child.getId());
+            }
+            children.addAll(remoteChildren.getOrDefault(id, Collections.emptyList()));
+            result.put(id, children);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized String describe(String id) {
+        return tree.getPerson(id).toString();
+    }
+
+    @Override
+    public synchronized int size() {
+        return tree.size();
+    }
+}
@@ -0,0 +1,112 @@
+package shard;
+
+import event.EventCodec;
+import model.Gender;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Client side of a shard running in another local process (see ShardServer).
+ */
+public class RemoteShard implements Shard, Closeable {
+    private final Socket socket;
+    private final BufferedReader in;
+    private final PrintWriter out;
+
+    public RemoteShard(int port) throws IOException {
+        this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        this.out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+    }
+
+    /**
+     * Send one request and return the fields after the status.
+     */
+    private synchronized List<String> call(List<String> parts) {
+        out.println(EventCodec.joinFields(parts));
+        String response;
+        try {
+            response = in.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (response == null) {
+            throw new UncheckedIOException(new EOFException("Shard connection closed"));
+        }
+        List<String> fields = EventCodec.splitFields(response);
+        List<String> payload = fields.subList(1, fields.size());
+        if (fields.get(0).equals("ERR")) {
+            throw new IllegalArgumentException(payload.isEmpty() ? "Shard error" : payload.get(0));
+        }
+        return payload;
+    }
+
+    private String call(String... parts) {
+        List<String> payload = call(List.of(parts));
+        return payload.isEmpty() ? "" : payload.get(0);
+    }
+
+    private Map<String, List<String>> adjacency(String request, Collection<String> ids) {
+        List<String> parts = new ArrayList<>(ids.size() + 1);
+        parts.add(request);
+        parts.addAll(ids);
+        return ShardServer.decode(call(parts));
+    }
+
+    @Override
+    public void addPerson(String id, String fullName, Gender gender, int birthYear, Integer deathYear) {
+        call("ADD", id, fullName, gender.name(), String.valueOf(birthYear), deathYear == null ? "" : deathYear.toString());
+    }
+
+    @Override
+    public boolean contains(String id) {
+        return Boolean.parseBoolean(call("CONTAINS", id));
+    }
+
+    @Override
+    public void linkLocal(String parentId, String childId) {
+        call("LINK", parentId, childId);
+    }
+
+    @Override
+    public void addRemoteParent(String childId, String parentId) {
+        call("REMOTE_PARENT", childId, parentId);
+    }
+
+    @Override
+    public void addRemoteChild(String parentId, String childId) {
+        call("REMOTE_CHILD", parentId, childId);
+    }
+
+    @Override
+    public Map<String, List<String>> parentsOf(Collection<String> ids) {
+        return adjacency("PARENTS", ids);
+    }
+
+    @Override
+    public Map<String, List<String>> childrenOf(Collection<String> ids) {
+        return adjacency("CHILDREN", ids);
+    }
+
+    @Override
+    public String describe(String id) {
+        return call("DESCRIBE", id);
+    }
+
+    @Override
+    public int size() {
+        return Integer.parseInt(call("SIZE"));
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
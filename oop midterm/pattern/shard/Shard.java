@@ -0,0 +1,53 @@
+package shard;
+
+import model.Gender;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One partition of a sharded family tree.
+ * Implementations may live in this JVM or in another local process.
+ */
+public interface Shard {
+
+    /**
+     * Create a person with a known ID on this shard.
+     */
+    void addPerson(String id, String fullName, Gender gender, int birthYear, Integer deathYear);
+
+    boolean contains(String id);
+
+    /**
+     * Link parent and child when both live on this shard.
+     */
+    void linkLocal(String parentId, String childId);
+
+    /**
+     * Record a parent living on another shard for a child stored here.
+     */
+    void addRemoteParent(String childId, String parentId);
+
+    /**
+     * Record a child living on another shard for a parent stored here.
+     */
+    void addRemoteChild(String parentId, String childId);
+
+    /**
+     * Expand a batch of frontier IDs one generation up (local and remote parents).
+     */
+    Map<String, List<String>> parentsOf(Collection<String> ids);
+
+    /**
+     * Expand a batch of frontier IDs one generation down (local and remote children).
+     */
+    Map<String, List<String>> childrenOf(Collection<String> ids);
+
+    /**
+     * Describe a person stored on this shard, same format as Person.toString().
+     */
+    String describe(String id);
+
+    int size();
+}
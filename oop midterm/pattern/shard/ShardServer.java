@@ -0,0 +1,153 @@
+package shard;
+
+import event.EventCodec;
+import model.Gender;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Serves a LocalShard over a loopback socket so shards can run as separate processes.
+ * Protocol: one tab-separated request per line, one "OK\t..." or "ERR\t..." line back.
+ * Fields are escaped as in EventCodec, and lists are sent as one field per ID.
+ *
+ * Usage: java shard.ShardServer <port>
+ */
+public class ShardServer implements Closeable {
+    private final LocalShard shard;
+    private final ServerSocket serverSocket;
+
+    public ShardServer(LocalShard shard, int port) throws IOException {
+        this.shard = shard;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accept clients until closed, one thread per connection.
+     */
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread worker = new Thread(() -> handle(socket), "shard-client");
+                worker.setDaemon(true);
+                worker.start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.out.println("Error: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Start serving on a daemon thread (used when shards share one JVM in tests).
+     */
+    public ShardServer start() {
+        Thread acceptor = new Thread(this::serve, "shard-server-" + getPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return this;
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                List<String> response = new ArrayList<>();
+                try {
+                    List<String> payload = dispatch(EventCodec.splitFields(line));
+                    response.add("OK");
+                    response.addAll(payload);
+                } catch (RuntimeException e) {
+                    response.clear();
+                    response.add("ERR");
+                    response.add(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+                }
+                out.println(EventCodec.joinFields(response));
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    private List<String> dispatch(List<String> parts) {
+        switch (parts.get(0)) {
+            case "ADD":
+                Integer deathYear = parts.get(5).isEmpty() ? null : Integer.parseInt(parts.get(5));
+                shard.addPerson(parts.get(1), parts.get(2), Gender.valueOf(parts.get(3)),
+                        Integer.parseInt(parts.get(4)), deathYear);
+                return List.of();
+            case "CONTAINS":
+                return List.of(String.valueOf(shard.contains(parts.get(1))));
+            case "LINK":
+                shard.linkLocal(parts.get(1), parts.get(2));
+                return List.of();
+            case "REMOTE_PARENT":
+                shard.addRemoteParent(parts.get(1), parts.get(2));
+                return List.of();
+            case "REMOTE_CHILD":
+                shard.addRemoteChild(parts.get(1), parts.get(2));
+                return List.of();
+            case "PARENTS":
+                return encode(shard.parentsOf(parts.subList(1, parts.size())));
+            case "CHILDREN":
+                return encode(shard.childrenOf(parts.subList(1, parts.size())));
+            case "DESCRIBE":
+                return List.of(shard.describe(parts.get(1)));
+            case "SIZE":
+                return List.of(String.valueOf(shard.size()));
+            default:
+                throw new IllegalArgumentException("Unknown shard request: " + parts.get(0));
+        }
+    }
+
+    /**
+     * Adjacency as fields: each ID, its neighbour count, then the neighbours.
+     */
+    static List<String> encode(Map<String, List<String>> adjacency) {
+        List<String> fields = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : adjacency.entrySet()) {
+            fields.add(entry.getKey());
+            fields.add(String.valueOf(entry.getValue().size()));
+            fields.addAll(entry.getValue());
+        }
+        return fields;
+    }
+
+    static Map<String, List<String>> decode(List<String> fields) {
+        Map<String, List<String>> adjacency = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); ) {
+            String id = fields.get(i);
+            int count = Integer.parseInt(fields.get(i + 1));
+            adjacency.put(id, new ArrayList<>(fields.subList(i + 2, i + 2 + count)));
+            i += 2 + count;
+        }
+        return adjacency;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java shard.ShardServer <port>");
+            return;
+        }
+        ShardServer server = new ShardServer(new LocalShard(), Integer.parseInt(args[0]));
+        System.out.println("Shard listening on 127.0.0.1:" + server.getPort());
+        server.serve();
+    }
+}
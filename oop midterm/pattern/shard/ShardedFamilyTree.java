@@ -0,0 +1,201 @@
+package shard;
+
+import factory.PersonFactory;
+import model.Gender;
+import model.Person;
+
+import java.util.*;
+
+/**
+ * Family tree partitioned across several shards.
+ * People are placed next to a lineage hint (a relative) when one is given,
+ * so most parent/child edges stay local; the rest become remote references.
+ * Traversals run level by level and send one batch per shard per generation.
+ */
+public class ShardedFamilyTree {
+    private final List<Shard> shards;
+    private final Map<String, Integer> placement;
+
+    public ShardedFamilyTree(List<Shard> shards) {
+        if (shards == null || shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = new ArrayList<>(shards);
+        this.placement = new HashMap<>();
+    }
+
+    /**
+     * Add a person on the shard chosen by hashing the ID.
+     */
+    public void addPerson(Person person) {
+        int index = Math.floorMod(person.getId().hashCode(), shards.size());
+        addPerson(person, index);
+    }
+
+    /**
+     * Add a person on the same shard as an existing relative (same lineage).
+     */
+    public void addPerson(Person person, String lineageHintId) {
+        addPerson(person, shardIndexOf(lineageHintId));
+    }
+
+    /**
+     * Convenience: create through PersonFactory and place next to a relative.
+     */
+    public Person addPerson(String fullName, Gender gender, int birthYear, Integer deathYear, String lineageHintId) {
+        Person person = PersonFactory.createPerson(fullName, gender, birthYear, deathYear);
+        if (lineageHintId == null) {
+            addPerson(person);
+        } else {
+            addPerson(person, lineageHintId);
+        }
+        return person;
+    }
+
+    private void addPerson(Person person, int index) {
+        if (placement.containsKey(person.getId())) {
+            throw new IllegalArgumentException("Person with ID " + person.getId() + " already exists");
+        }
+        shards.get(index).addPerson(person.getId(), person.getFullName(), person.getGender(),
+                person.getBirthYear(), person.getDeathYear());
+        placement.put(person.getId(), index);
+    }
+
+    /**
+     * Link parent and child, enforcing the same rules as FamilyTree across shards.
+     */
+    public void addParentChild(String parentId, String childId) {
+        int parentShard = shardIndexOf(parentId);
+        int childShard = shardIndexOf(childId);
+
+        // Cycle check runs as a distributed ancestor walk from the parent
+        if (isAncestor(childId, parentId)) {
+            throw new IllegalArgumentException("Cannot create cycle: " + childId + " is ancestor of " + parentId);
+        }
+
+        if (parentShard == childShard) {
+            shards.get(parentShard).linkLocal(parentId, childId);
+        } else {
+            shards.get(childShard).addRemoteParent(childId, parentId);
+            shards.get(parentShard).addRemoteChild(parentId, childId);
+        }
+    }
+
+    /**
+     * Walk up from a person one generation (one batch per shard) at a time,
+     * stopping as soon as the candidate ancestor turns up.
+     */
+    private boolean isAncestor(String ancestorId, String personId) {
+        if (ancestorId.equals(personId)) {
+            return true;
+        }
+        Set<String> visited = new HashSet<>();
+        List<String> frontier = Collections.singletonList(personId);
+        visited.add(personId);
+        while (!frontier.isEmpty()) {
+            List<String> next = new ArrayList<>();
+            for (List<String> parents : expand(frontier, true).values()) {
+                for (String id : parents) {
+                    if (id.equals(ancestorId)) {
+                        return true;
+                    }
+                    if (visited.add(id)) {
+                        next.add(id);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return false;
+    }
+
+    /**
+     * Describe a person, wherever it is stored.
+     */
+    public String describe(String personId) {
+        return shards.get(shardIndexOf(personId)).describe(personId);
+    }
+
+    /**
+     * Get ancestor IDs up to specified generations (includes the person).
+     */
+    public List<String> ancestorsOf(String personId, int generations) {
+        return traverse(personId, generations, true);
+    }
+
+    /**
+     * Get descendant IDs up to specified generations (includes the person).
+     */
+    public List<String> descendantsOf(String personId, int generations) {
+        return traverse(personId, generations, false);
+    }
+
+    /**
+     * Get sibling IDs (share at least one parent), parents may live on any shard.
+     */
+    public List<String> siblingsOf(String personId) {
+        List<String> parents = expand(Collections.singletonList(personId), true)
+                .getOrDefault(personId, Collections.emptyList());
+        Set<String> siblings = new LinkedHashSet<>();
+        for (List<String> children : expand(parents, false).values()) {
+            siblings.addAll(children);
+        }
+        siblings.remove(personId);
+        return new ArrayList<>(siblings);
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public int shardIndexOf(String personId) {
+        Integer index = placement.get(personId);
+        if (index == null) {
+            throw new IllegalArgumentException("Person with ID " + personId + " not found");
+        }
+        return index;
+    }
+
+    private List<String> traverse(String personId, int generations, boolean up) {
+        shardIndexOf(personId);
+        List<String> result = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        List<String> frontier = new ArrayList<>();
+        frontier.add(personId);
+        visited.add(personId);
+
+        for (int level = 0; !frontier.isEmpty(); level++) {
+            result.addAll(frontier);
+            if (level >= generations) {
+                break;
+            }
+            List<String> next = new ArrayList<>();
+            for (List<String> neighbours : expand(frontier, up).values()) {
+                for (String id : neighbours) {
+                    if (visited.add(id)) {
+                        next.add(id);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return result;
+    }
+
+    /**
+     * Expand a frontier with one batched call per shard.
+     */
+    private Map<String, List<String>> expand(Collection<String> frontier, boolean up) {
+        Map<Integer, List<String>> byShard = new TreeMap<>();
+        for (String id : frontier) {
+            byShard.computeIfAbsent(shardIndexOf(id), k -> new ArrayList<>()).add(id);
+        }
+
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (Map.Entry<Integer, List<String>> entry : byShard.entrySet()) {
+            Shard shard = shards.get(entry.getKey());
+            result.putAll(up ? shard.parentsOf(entry.getValue()) : shard.childrenOf(entry.getValue()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,272 @@
+package storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Fixed number of in-memory frames caching fixed-size pages of one file.
+ * Callers pin a page while they read or write it; unpinned pages are replaced by a
+ * clock sweep that gives recently used pages a second chance, and dirty pages are
+ * written back when evicted or flushed. Pages can be prefetched in file order ahead
+ * of use, and hits, misses, prefetches and write-backs are counted.
+ */
+public class BufferPool implements AutoCloseable {
+    private final FileChannel channel;
+    private final int pageSize;
+    private final ByteBuffer[] frames;
+    private final long[] framePage;
+    private final int[] pins;
+    private final boolean[] dirty;
+    private final boolean[] referenced;
+    private final boolean[] prefetchedFrame;
+    private final Map<Long, Integer> table;
+    private int hand;
+    private long pageCount;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long writeBacks;
+    private long prefetched;
+    private long prefetchHits;
+
+    public BufferPool(Path file, int pageSize, int frameCount) throws IOException {
+        if (pageSize < 256 || pageSize % Long.BYTES != 0 || frameCount < 2) {
+            throw new IllegalArgumentException("Need pages of at least 256 bytes (a multiple of 8) and at least 2 frames");
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.pageSize = pageSize;
+        this.frames = new ByteBuffer[frameCount];
+        this.framePage = new long[frameCount];
+        this.pins = new int[frameCount];
+        this.dirty = new boolean[frameCount];
+        this.referenced = new boolean[frameCount];
+        this.prefetchedFrame = new boolean[frameCount];
+        this.table = new HashMap<>();
+        for (int i = 0; i < frameCount; i++) {
+            frames[i] = ByteBuffer.allocateDirect(pageSize);
+        }
+        Arrays.fill(framePage, -1);
+        this.pageCount = channel.size() / pageSize;
+    }
+
+    public int pageSize() {
+        return pageSize;
+    }
+
+    public synchronized long pageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Pin a page in memory and return its frame; use absolute get/put only, then unpin.
+     */
+    public synchronized ByteBuffer pin(long pageNo) {
+        if (pageNo < 0 || pageNo >= pageCount) {
+            throw new IllegalArgumentException("Page " + pageNo + " does not exist");
+        }
+        Integer frame = table.get(pageNo);
+        if (frame != null) {
+            hits++;
+            if (prefetchedFrame[frame]) {
+                prefetchedFrame[frame] = false;
+                prefetchHits++;
+            }
+        } else {
+            misses++;
+            frame = load(pageNo);
+        }
+        pins[frame]++;
+        referenced[frame] = true;
+        return frames[frame];
+    }
+
+    /**
+     * Release a pin; dirty marks the page for write-back.
+     */
+    public synchronized void unpin(long pageNo, boolean modified) {
+        Integer frame = table.get(pageNo);
+        if (frame == null || pins[frame] == 0) {
+            throw new IllegalStateException("Page " + pageNo + " is not pinned");
+        }
+        pins[frame]--;
+        dirty[frame] |= modified;
+    }
+
+    /**
+     * Append a zeroed page and return its number; the page is not pinned.
+     */
+    public synchronized long allocate() {
+        long pageNo = pageCount++;
+        int frame = victim();
+        ByteBuffer buffer = frames[frame];
+        for (int i = 0; i < pageSize; i += Long.BYTES) {
+            buffer.putLong(i, 0);
+        }
+        install(frame, pageNo);
+        dirty[frame] = true;
+        return pageNo;
+    }
+
+    /**
+     * Read pages that are not resident yet, in file order, so later pins hit memory.
+     * Stops early rather than evict pages that were themselves just prefetched.
+     */
+    public synchronized void prefetch(Collection<Long> pageNos) {
+        int budget = frames.length / 2;
+        for (long pageNo : new TreeSet<>(pageNos)) {
+            if (budget == 0) {
+                break;
+            }
+            if (pageNo < 0 || pageNo >= pageCount || table.containsKey(pageNo)) {
+                continue;
+            }
+            int frame = load(pageNo);
+            referenced[frame] = true;
+            prefetchedFrame[frame] = true;
+            prefetched++;
+            budget--;
+        }
+    }
+
+    private int load(long pageNo) {
+        int frame = victim();
+        ByteBuffer buffer = frames[frame];
+        buffer.clear();
+        try {
+            long position = pageNo * pageSize;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    // Allocated but never written: the rest of the page is zeros
+                    while (buffer.hasRemaining()) {
+                        buffer.put((byte) 0);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read page " + pageNo, e);
+        }
+        buffer.clear();
+        install(frame, pageNo);
+        return frame;
+    }
+
+    private void install(int frame, long pageNo) {
+        framePage[frame] = pageNo;
+        table.put(pageNo, frame);
+        dirty[frame] = false;
+        referenced[frame] = false;
+        prefetchedFrame[frame] = false;
+    }
+
+    /**
+     * Pick a frame to reuse: an empty one, else the clock's next unpinned, unreferenced frame.
+     */
+    private int victim() {
+        for (int step = 0; step <= 2 * frames.length; step++) {
+            int frame = hand;
+            hand = (hand + 1) % frames.length;
+            if (framePage[frame] < 0) {
+                return frame;
+            }
+            if (pins[frame] > 0) {
+                continue;
+            }
+            if (referenced[frame]) {
+                referenced[frame] = false;
+                continue;
+            }
+            if (dirty[frame]) {
+                write(frame);
+            }
+            table.remove(framePage[frame]);
+            framePage[frame] = -1;
+            evictions++;
+            return frame;
+        }
+        throw new IllegalStateException("All " + frames.length + " buffer frames are pinned");
+    }
+
+    private void write(int frame) {
+        ByteBuffer buffer = frames[frame].duplicate();
+        buffer.clear();
+        try {
+            long position = framePage[frame] * pageSize;
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write page " + framePage[frame], e);
+        }
+        dirty[frame] = false;
+        writeBacks++;
+    }
+
+    /**
+     * Write every dirty page back and force it to disk.
+     */
+    public synchronized void flush() throws IOException {
+        for (int frame = 0; frame < frames.length; frame++) {
+            if (framePage[frame] >= 0 && dirty[frame]) {
+                write(frame);
+            }
+        }
+        channel.force(false);
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    public synchronized long writeBacks() {
+        return writeBacks;
+    }
+
+    public synchronized long prefetched() {
+        return prefetched;
+    }
+
+    /**
+     * Prefetched pages that were later pinned before being evicted.
+     */
+    public synchronized long prefetchHits() {
+        return prefetchHits;
+    }
+
+    public synchronized double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d frames x %d bytes, %d pages, hit rate %.1f%% (%d hits, %d misses), "
+                        + "%d prefetched (%d used), %d evictions, %d write-backs",
+                frames.length, pageSize, pageCount, hitRate() * 100, hits, misses, prefetched, prefetchHits,
+                evictions, writeBacks);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
@@ -0,0 +1,476 @@
+package storage;
+
+import factory.PersonFactory;
+import model.Gender;
+import model.Person;
+import shard.Shard;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Shard whose person records and child lists live in fixed-size pages on disk behind a
+ * BufferPool, for trees larger than the heap. Only the ID directory stays in memory.
+ * Plugged into a ShardedFamilyTree (on its own or next to other shards) it gets the
+ * same linking rules and level-by-level traversals as the in-memory shard.
+ *
+ * Record pages hold variable-length person records that never move, so a record is
+ * addressed by page number and offset. Each record has two parent references and the
+ * head of a chain of fixed-size child blocks kept on adjacency pages. People stored on
+ * other shards are represented by stub records holding only their ID. Every frontier
+ * expansion pins the frontier's pages in file order and then prefetches the pages the
+ * next level in the same direction will need.
+ */
+public class PagedShard implements Shard, AutoCloseable {
+    private static final int MAGIC = 0x46545047; // "FTPG"
+    private static final byte RECORD_PAGE = 'R';
+    private static final byte ADJACENCY_PAGE = 'A';
+    private static final int PAGE_HEADER = 4;
+    private static final byte LOCAL = 1;
+    private static final byte STUB = 2;
+
+    // Record layout
+    private static final int FLAGS = 0;
+    private static final int PARENT1 = 1;
+    private static final int PARENT2 = 9;
+    private static final int CHILD_HEAD = 17;
+    private static final int CHILD_COUNT = 25;
+    private static final int GENDER = 29;
+    private static final int BIRTH = 30;
+    private static final int DEATH = 32;
+    private static final int ID = 34;
+
+    // Child block layout: next block, count, then child references
+    private static final int BLOCK_CHILDREN = 14;
+    private static final int BLOCK_SIZE = 8 + 4 + 8 * BLOCK_CHILDREN;
+
+    private static final long NONE = -1;
+
+    private final BufferPool pool;
+    private final Map<String, Long> people;
+    private final Map<String, Long> stubs;
+    private long recordPage = NONE;
+    private long adjacencyPage = NONE;
+
+    /**
+     * Open or create a store; an existing file is scanned once to rebuild the ID directory.
+     */
+    public PagedShard(Path file, int pageSize, int bufferFrames) throws IOException {
+        // Offsets are 16-bit; a link may pin a record page, a block page and allocate a third
+        if (pageSize > 32768 || bufferFrames < 4) {
+            throw new IllegalArgumentException("Pages are limited to 32768 bytes and at least 4 frames are needed");
+        }
+        this.pool = new BufferPool(file, pageSize, bufferFrames);
+        this.people = new HashMap<>();
+        this.stubs = new HashMap<>();
+
+        if (pool.pageCount() == 0) {
+            long meta = pool.allocate();
+            ByteBuffer page = pool.pin(meta);
+            page.putInt(0, MAGIC);
+            page.putInt(4, pageSize);
+            pool.unpin(meta, true);
+        } else {
+            ByteBuffer page = pool.pin(0);
+            boolean valid = page.getInt(0) == MAGIC && page.getInt(4) == pageSize;
+            pool.unpin(0, false);
+            if (!valid) {
+                pool.close();
+                throw new IllegalArgumentException("Not a paged tree with " + pageSize + "-byte pages: " + file);
+            }
+            loadDirectory();
+        }
+    }
+
+    private void loadDirectory() {
+        for (long pageNo = 1; pageNo < pool.pageCount(); pageNo++) {
+            ByteBuffer page = pool.pin(pageNo);
+            try {
+                if (page.get(0) != RECORD_PAGE) {
+                    continue;
+                }
+                int end = page.getShort(2) & 0xFFFF;
+                for (int offset = PAGE_HEADER; offset < end; offset += recordLength(page, offset)) {
+                    long ref = ref(pageNo, offset);
+                    (page.get(offset + FLAGS) == LOCAL ? people : stubs).put(readId(page, offset), ref);
+                }
+            } finally {
+                pool.unpin(pageNo, false);
+            }
+        }
+    }
+
+    public BufferPool getBufferPool() {
+        return pool;
+    }
+
+    @Override
+    public synchronized void addPerson(String id, String fullName, Gender gender, int birthYear, Integer deathYear) {
+        if (people.containsKey(id) || stubs.containsKey(id)) {
+            throw new IllegalArgumentException("Person with ID " + id + " already exists");
+        }
+        // Same name and year rules as every other person
+        Person person = PersonFactory.createPerson(id, fullName, gender, birthYear, deathYear);
+        people.put(id, append(LOCAL, person));
+    }
+
+    /**
+     * Read a person back as a detached record (links are not materialised).
+     */
+    public synchronized Person getPerson(String id) {
+        long ref = local(id);
+        ByteBuffer page = pool.pin(pageOf(ref));
+        try {
+            int offset = offsetOf(ref);
+            int idLength = page.getShort(offset + ID);
+            int death = page.getShort(offset + DEATH);
+            return PersonFactory.createPerson(id, readString(page, offset + ID + 2 + idLength),
+                    Gender.values()[page.get(offset + GENDER)], page.getShort(offset + BIRTH),
+                    death < 0 ? null : death);
+        } finally {
+            pool.unpin(pageOf(ref), false);
+        }
+    }
+
+    @Override
+    public synchronized boolean contains(String id) {
+        return people.containsKey(id);
+    }
+
+    @Override
+    public synchronized void linkLocal(String parentId, String childId) {
+        long parent = local(parentId);
+        long child = local(childId);
+        setParent(child, parent);
+        addChild(parent, child);
+    }
+
+    @Override
+    public synchronized void addRemoteParent(String childId, String parentId) {
+        setParent(local(childId), stub(parentId));
+    }
+
+    @Override
+    public synchronized void addRemoteChild(String parentId, String childId) {
+        addChild(local(parentId), stub(childId));
+    }
+
+    @Override
+    public synchronized Map<String, List<String>> parentsOf(Collection<String> ids) {
+        List<String> idList = new ArrayList<>(ids);
+        List<Long> refs = refsOf(idList);
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        List<Long> next = new ArrayList<>();
+        for (int i = 0; i < refs.size(); i++) {
+            long ref = refs.get(i);
+            List<Long> parents = new ArrayList<>(2);
+            ByteBuffer page = pool.pin(pageOf(ref));
+            try {
+                for (int field : new int[]{PARENT1, PARENT2}) {
+                    long parent = page.getLong(offsetOf(ref) + field);
+                    if (parent != NONE) {
+                        parents.add(parent);
+                    }
+                }
+            } finally {
+                pool.unpin(pageOf(ref), false);
+            }
+            next.addAll(parents);
+            result.put(idList.get(i), idsOf(parents));
+        }
+        // Going up: the parents' own parent references are read next
+        pool.prefetch(pagesOf(next));
+        return result;
+    }
+
+    @Override
+    public synchronized Map<String, List<String>> childrenOf(Collection<String> ids) {
+        List<String> idList = new ArrayList<>(ids);
+        List<Long> refs = refsOf(idList);
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        List<Long> next = new ArrayList<>();
+        for (int i = 0; i < refs.size(); i++) {
+            List<Long> children = children(refs.get(i));
+            next.addAll(children);
+            result.put(idList.get(i), idsOf(children));
+        }
+        // Going down: the children's records (with their child-list heads) are read next
+        pool.prefetch(pagesOf(next));
+        return result;
+    }
+
+    @Override
+    public synchronized String describe(String id) {
+        Person person = getPerson(id);
+        long ref = people.get(id);
+        ByteBuffer page = pool.pin(pageOf(ref));
+        int children;
+        try {
+            children = page.getInt(offsetOf(ref) + CHILD_COUNT);
+        } finally {
+            pool.unpin(pageOf(ref), false);
+        }
+        // Same as Person.toString(); the child list is not materialised
+        String text = person.toString();
+        return text.substring(0, text.lastIndexOf("children=")) + "children=" + children;
+    }
+
+    @Override
+    public synchronized int size() {
+        return people.size();
+    }
+
+    /**
+     * Write all dirty pages to disk.
+     */
+    public synchronized void flush() throws IOException {
+        pool.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        pool.close();
+    }
+
+    private long local(String id) {
+        Long ref = people.get(id);
+        if (ref == null) {
+            throw new IllegalArgumentException("Person with ID " + id + " not found");
+        }
+        return ref;
+    }
+
+    private long stub(String id) {
+        Long ref = stubs.get(id);
+        if (ref == null) {
+            if (people.containsKey(id)) {
+                throw new IllegalArgumentException("Person with ID " + id + " is stored on this shard");
+            }
+            ref = append(STUB, null, id);
+            stubs.put(id, ref);
+        }
+        return ref;
+    }
+
+    /**
+     * Pin the records of a batch in file order first, so the expansion reads pages sequentially.
+     */
+    private List<Long> refsOf(List<String> ids) {
+        List<Long> refs = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            refs.add(local(id));
+        }
+        pool.prefetch(pagesOf(refs));
+        return refs;
+    }
+
+    private List<String> idsOf(List<Long> refs) {
+        List<String> ids = new ArrayList<>(refs.size());
+        for (long ref : refs) {
+            ByteBuffer page = pool.pin(pageOf(ref));
+            try {
+                ids.add(readId(page, offsetOf(ref)));
+            } finally {
+                pool.unpin(pageOf(ref), false);
+            }
+        }
+        return ids;
+    }
+
+    private static List<Long> pagesOf(List<Long> refs) {
+        List<Long> pages = new ArrayList<>(refs.size());
+        for (long ref : refs) {
+            pages.add(pageOf(ref));
+        }
+        return pages;
+    }
+
+    private void setParent(long child, long parent) {
+        ByteBuffer page = pool.pin(pageOf(child));
+        int offset = offsetOf(child);
+        try {
+            if (page.getLong(offset + PARENT1) == NONE) {
+                page.putLong(offset + PARENT1, parent);
+            } else if (page.getLong(offset + PARENT2) == NONE) {
+                page.putLong(offset + PARENT2, parent);
+            } else {
+                throw new IllegalArgumentException("Person already has two parents");
+            }
+        } finally {
+            pool.unpin(pageOf(child), true);
+        }
+    }
+
+    private List<Long> children(long ref) {
+        long block;
+        ByteBuffer page = pool.pin(pageOf(ref));
+        try {
+            block = page.getLong(offsetOf(ref) + CHILD_HEAD);
+        } finally {
+            pool.unpin(pageOf(ref), false);
+        }
+
+        // Blocks are pushed at the head, so read them newest first and reverse at the end
+        List<Long> reversed = new ArrayList<>();
+        while (block != NONE) {
+            long current = block;
+            page = pool.pin(pageOf(current));
+            try {
+                int offset = offsetOf(current);
+                for (int i = page.getInt(offset + 8) - 1; i >= 0; i--) {
+                    reversed.add(page.getLong(offset + 12 + 8 * i));
+                }
+                block = page.getLong(offset);
+            } finally {
+                pool.unpin(pageOf(current), false);
+            }
+        }
+        Collections.reverse(reversed);
+        return reversed;
+    }
+
+    private void addChild(long parent, long child) {
+        if (children(parent).contains(child)) {
+            return;
+        }
+        ByteBuffer page = pool.pin(pageOf(parent));
+        int offset = offsetOf(parent);
+        try {
+            long head = page.getLong(offset + CHILD_HEAD);
+            if (head == NONE || blockCount(head) == BLOCK_CHILDREN) {
+                long block = allocateBlock(head);
+                page.putLong(offset + CHILD_HEAD, block);
+                head = block;
+            }
+            ByteBuffer blockPage = pool.pin(pageOf(head));
+            try {
+                int blockOffset = offsetOf(head);
+                int count = blockPage.getInt(blockOffset + 8);
+                blockPage.putLong(blockOffset + 12 + 8 * count, child);
+                blockPage.putInt(blockOffset + 8, count + 1);
+            } finally {
+                pool.unpin(pageOf(head), true);
+            }
+            page.putInt(offset + CHILD_COUNT, page.getInt(offset + CHILD_COUNT) + 1);
+        } finally {
+            pool.unpin(pageOf(parent), true);
+        }
+    }
+
+    private int blockCount(long block) {
+        ByteBuffer page = pool.pin(pageOf(block));
+        try {
+            return page.getInt(offsetOf(block) + 8);
+        } finally {
+            pool.unpin(pageOf(block), false);
+        }
+    }
+
+    private long allocateBlock(long next) {
+        int end = adjacencyPage == NONE ? Integer.MAX_VALUE : usedBytes(adjacencyPage);
+        if (end > pool.pageSize() - BLOCK_SIZE) {
+            adjacencyPage = newPage(ADJACENCY_PAGE);
+            end = PAGE_HEADER;
+        }
+        ByteBuffer page = pool.pin(adjacencyPage);
+        try {
+            page.putLong(end, next);
+            page.putInt(end + 8, 0);
+            page.putShort(2, (short) (end + BLOCK_SIZE));
+        } finally {
+            pool.unpin(adjacencyPage, true);
+        }
+        return ref(adjacencyPage, end);
+    }
+
+    private long append(byte flags, Person person) {
+        return append(flags, person, person.getId());
+    }
+
+    private long append(byte flags, Person person, String id) {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        byte[] nameBytes = person == null ? new byte[0] : person.getFullName().getBytes(StandardCharsets.UTF_8);
+        int length = ID + 2 + idBytes.length + 2 + nameBytes.length;
+        if (PAGE_HEADER + length > pool.pageSize() || idBytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Record for " + id + " does not fit in a page");
+        }
+
+        int end = recordPage == NONE ? Integer.MAX_VALUE : usedBytes(recordPage);
+        if (end > pool.pageSize() - length) {
+            recordPage = newPage(RECORD_PAGE);
+            end = PAGE_HEADER;
+        }
+        ByteBuffer page = pool.pin(recordPage);
+        try {
+            page.put(end + FLAGS, flags);
+            page.putLong(end + PARENT1, NONE);
+            page.putLong(end + PARENT2, NONE);
+            page.putLong(end + CHILD_HEAD, NONE);
+            page.putInt(end + CHILD_COUNT, 0);
+            if (person != null) {
+                page.put(end + GENDER, (byte) person.getGender().ordinal());
+                page.putShort(end + BIRTH, (short) person.getBirthYear());
+                page.putShort(end + DEATH, (short) (person.getDeathYear() == null ? -1 : person.getDeathYear()));
+            }
+            int position = end + ID;
+            page.putShort(position, (short) idBytes.length);
+            page.put(position + 2, idBytes);
+            position += 2 + idBytes.length;
+            page.putShort(position, (short) nameBytes.length);
+            page.put(position + 2, nameBytes);
+            page.putShort(2, (short) (end + length));
+        } finally {
+            pool.unpin(recordPage, true);
+        }
+        return ref(recordPage, end);
+    }
+
+    private long newPage(byte type) {
+        long pageNo = pool.allocate();
+        ByteBuffer page = pool.pin(pageNo);
+        page.put(0, type);
+        page.putShort(2, (short) PAGE_HEADER);
+        pool.unpin(pageNo, true);
+        return pageNo;
+    }
+
+    private int usedBytes(long pageNo) {
+        ByteBuffer page = pool.pin(pageNo);
+        try {
+            return page.getShort(2) & 0xFFFF;
+        } finally {
+            pool.unpin(pageNo, false);
+        }
+    }
+
+    private static int recordLength(ByteBuffer page, int offset) {
+        int idLength = page.getShort(offset + ID);
+        int nameLength = page.getShort(offset + ID + 2 + idLength);
+        return ID + 2 + idLength + 2 + nameLength;
+    }
+
+    private static String readId(ByteBuffer page, int offset) {
+        return readString(page, offset + ID);
+    }
+
+    private static String readString(ByteBuffer page, int position) {
+        byte[] bytes = new byte[page.getShort(position)];
+        page.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long ref(long pageNo, int offset) {
+        return (pageNo << 16) | offset;
+    }
+
+    private static long pageOf(long ref) {
+        return ref >>> 16;
+    }
+
+    private static int offsetOf(long ref) {
+        return (int) (ref & 0xFFFF);
+    }
+}
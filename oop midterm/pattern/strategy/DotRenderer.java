@@ -0,0 +1,42 @@
+package strategy;
+
+import model.Person;
+
+import java.io.IOException;
+
+/**
+ * Renders a person graph in Graphviz DOT format.
+ * Concrete Strategy implementation.
+ */
+public class DotRenderer extends GraphRenderer {
+
+    @Override
+    protected void header(Appendable out) throws IOException {
+        out.append("digraph FamilyTree {\n  node [shape=box];\n");
+    }
+
+    @Override
+    protected void footer(Appendable out) throws IOException {
+        out.append("}\n");
+    }
+
+    @Override
+    protected void node(Person person, boolean first, Appendable out) throws IOException {
+        out.append("  \"").append(escape(person.getId())).append("\" [label=\"")
+                .append(escape(person.getFullName())).append("\\nb.").append(String.valueOf(person.getBirthYear()));
+        if (person.getDeathYear() != null) {
+            out.append(" d.").append(String.valueOf(person.getDeathYear()));
+        }
+        out.append("\"];\n");
+    }
+
+    @Override
+    protected void edge(Person parent, Person child, boolean first, Appendable out) throws IOException {
+        out.append("  \"").append(escape(parent.getId())).append("\" -> \"")
+                .append(escape(child.getId())).append("\";\n");
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,195 @@
+package strategy;
+
+import composite.PersonNode;
+import model.Person;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Base for renderers that emit a graph (people as nodes, parent-to-child edges)
+ * instead of an indented tree. Every person and edge is written exactly once, however
+ * many paths reach it, and output goes straight to an Appendable without building
+ * the whole document first.
+ */
+public abstract class GraphRenderer implements Renderer {
+    private static final int CHUNK_SIZE = 4096;
+
+    protected abstract void header(Appendable out) throws IOException;
+
+    protected abstract void footer(Appendable out) throws IOException;
+
+    /**
+     * Write one person; first is true only for the very first element in the document.
+     */
+    protected abstract void node(Person person, boolean first, Appendable out) throws IOException;
+
+    /**
+     * Write one parent-to-child edge.
+     */
+    protected abstract void edge(Person parent, Person child, boolean first, Appendable out) throws IOException;
+
+    @Override
+    public String render(PersonNode root) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            write(root, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Stream a PersonNode tree as a graph, collapsing repeated people and edges.
+     * Edge direction follows the parent/child links, not the tree direction.
+     */
+    public void write(PersonNode root, Appendable out) throws IOException {
+        Emitter emitter = new Emitter(out);
+        header(out);
+        Deque<PersonNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            PersonNode node = stack.pop();
+            Person person = node.getPerson();
+            emitter.node(person);
+            for (PersonNode child : node.getChildren()) {
+                Person other = child.getPerson();
+                if (other.hasParent(person)) {
+                    emitter.edge(person, other);
+                } else {
+                    emitter.edge(other, person);
+                }
+                stack.push(child);
+            }
+        }
+        footer(out);
+    }
+
+    /**
+     * Stream everyone within generations of root along parent (up) or child links.
+     * Breadth-first, so work and output grow with the number of people, not paths.
+     */
+    public void writeReachable(Person root, int generations, boolean up, Appendable out) throws IOException {
+        Emitter emitter = new Emitter(out);
+        header(out);
+        Map<Person, Integer> depth = new HashMap<>();
+        Deque<Person> queue = new ArrayDeque<>();
+        depth.put(root, 0);
+        queue.add(root);
+        emitter.node(root);
+
+        while (!queue.isEmpty()) {
+            Person person = queue.poll();
+            int d = depth.get(person);
+            if (d >= generations) {
+                continue;
+            }
+            List<Person> next = new ArrayList<>();
+            if (up) {
+                if (person.getParent1() != null) {
+                    next.add(person.getParent1());
+                }
+                if (person.getParent2() != null) {
+                    next.add(person.getParent2());
+                }
+            } else {
+                next.addAll(person.getChildren());
+            }
+            for (Person other : next) {
+                if (!depth.containsKey(other)) {
+                    depth.put(other, d + 1);
+                    queue.add(other);
+                    emitter.node(other);
+                }
+                emitter.edge(up ? other : person, up ? person : other);
+            }
+        }
+        footer(out);
+    }
+
+    /**
+     * Stream a whole tree: each person with the edges to its parents.
+     * Chunks are formatted in parallel and written in order; at most a few chunks
+     * are held in memory at once.
+     */
+    public void writeAll(Collection<Person> people, Appendable out) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            header(out);
+            Deque<Future<String>> inFlight = new ArrayDeque<>();
+            Iterator<Person> iterator = people.iterator();
+            boolean firstChunk = true;
+
+            while (iterator.hasNext() || !inFlight.isEmpty()) {
+                while (iterator.hasNext() && inFlight.size() < threads * 2) {
+                    List<Person> chunk = new ArrayList<>(CHUNK_SIZE);
+                    while (iterator.hasNext() && chunk.size() < CHUNK_SIZE) {
+                        chunk.add(iterator.next());
+                    }
+                    boolean first = firstChunk;
+                    firstChunk = false;
+                    inFlight.add(pool.submit(() -> formatChunk(chunk, first)));
+                }
+                out.append(inFlight.poll().get());
+            }
+            footer(out);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Export failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private String formatChunk(List<Person> chunk, boolean firstChunk) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        boolean first = firstChunk;
+        for (Person person : chunk) {
+            node(person, first, sb);
+            first = false;
+            for (Person parent : new Person[]{person.getParent1(), person.getParent2()}) {
+                if (parent != null) {
+                    edge(parent, person, false, sb);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Tracks what has been written so each person and edge appears once.
+     */
+    private final class Emitter {
+        private final Appendable out;
+        private final Set<Person> nodes;
+        private final Set<List<Person>> edges;
+        private boolean first;
+
+        Emitter(Appendable out) {
+            this.out = out;
+            this.nodes = new HashSet<>();
+            this.edges = new HashSet<>();
+            this.first = true;
+        }
+
+        void node(Person person) throws IOException {
+            if (nodes.add(person)) {
+                GraphRenderer.this.node(person, first, out);
+                first = false;
+            }
+        }
+
+        void edge(Person parent, Person child) throws IOException {
+            if (edges.add(List.of(parent, child))) {
+                GraphRenderer.this.edge(parent, child, first, out);
+                first = false;
+            }
+        }
+    }
+}
@@ -1,24 +1,15 @@
 package strategy;
 
-import composite.PersonNode;
 import model.Person;
 
 /**
  * Renders a person tree with indentation.
  * Concrete Strategy implementation.
  */
-public class IndentedTreeRenderer implements Renderer {
+public class IndentedTreeRenderer extends MemoizingRenderer {
 
     @Override
-    public String render(PersonNode root) {
-        StringBuilder sb = new StringBuilder();
-        renderNode(root, 0, sb);
-        return sb.toString().trim();
-    }
-
-    private void renderNode(PersonNode node, int level, StringBuilder sb) {
-        Person person = node.getPerson();
-
+    protected void formatLine(Person person, int level, StringBuilder sb) {
         // Add indentation
         for (int i = 0; i < level; i++) {
             sb.append("  ");
@@ -33,10 +24,15 @@ public class IndentedTreeRenderer implements Renderer {
         }
 
         sb.append(")\n");
+    }
 
-        // Render children
-        for (PersonNode child : node.getChildren()) {
-            renderNode(child, level + 1, sb);
-        }
+    @Override
+    protected boolean indented() {
+        return true;
+    }
+
+    @Override
+    protected String finish(String lines) {
+        return lines.trim();
     }
-}
\ No newline at end of file
+}
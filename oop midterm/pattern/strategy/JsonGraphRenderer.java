@@ -0,0 +1,80 @@
+package strategy;
+
+import model.Person;
+
+import java.io.IOException;
+
+/**
+ * Renders a person graph as JSON in a single pass:
+ * {"elements":[{"group":"nodes","data":{...}},{"group":"edges","data":{"source":...,"target":...}}]}
+ * Nodes and edges share one array (Cytoscape style) so nothing has to be held back.
+ * Concrete Strategy implementation.
+ */
+public class JsonGraphRenderer extends GraphRenderer {
+
+    @Override
+    protected void header(Appendable out) throws IOException {
+        out.append("{\"elements\":[");
+    }
+
+    @Override
+    protected void footer(Appendable out) throws IOException {
+        out.append("\n]}\n");
+    }
+
+    @Override
+    protected void node(Person person, boolean first, Appendable out) throws IOException {
+        out.append(first ? "\n" : ",\n");
+        out.append("{\"group\":\"nodes\",\"data\":{\"id\":");
+        string(person.getId(), out);
+        out.append(",\"name\":");
+        string(person.getFullName(), out);
+        out.append(",\"gender\":\"").append(person.getGender().name())
+                .append("\",\"birthYear\":").append(String.valueOf(person.getBirthYear()))
+                .append(",\"deathYear\":").append(person.getDeathYear() == null ? "null" : person.getDeathYear().toString())
+                .append(",\"type\":");
+        string(person.getPersonType(), out);
+        out.append("}}");
+    }
+
+    @Override
+    protected void edge(Person parent, Person child, boolean first, Appendable out) throws IOException {
+        out.append(first ? "\n" : ",\n");
+        out.append("{\"group\":\"edges\",\"data\":{\"source\":");
+        string(parent.getId(), out);
+        out.append(",\"target\":");
+        string(child.getId(), out);
+        out.append("}}");
+    }
+
+    private static void string(String text, Appendable out) throws IOException {
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -1,27 +1,15 @@
 package strategy;
 
-import composite.PersonNode;
 import model.Person;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Renders a person tree as compact lines.
  * Concrete Strategy implementation.
  */
-public class LineRenderer implements Renderer {
+public class LineRenderer extends MemoizingRenderer {
 
     @Override
-    public String render(PersonNode root) {
-        List<String> lines = new ArrayList<>();
-        collectLines(root, lines);
-        return String.join("\n", lines);
-    }
-
-    private void collectLines(PersonNode node, List<String> lines) {
-        Person person = node.getPerson();
-
-        StringBuilder sb = new StringBuilder();
+    protected void formatLine(Person person, int level, StringBuilder sb) {
         sb.append(person.getId()).append(" - ")
                 .append(person.getFullName())
                 .append(" (").append(person.getGender())
@@ -31,12 +19,17 @@ public class LineRenderer implements Renderer {
             sb.append(", d.").append(person.getDeathYear());
         }
 
-        sb.append(")");
-        lines.add(sb.toString());
+        sb.append(")\n");
+    }
 
-        // Collect children
-        for (PersonNode child : node.getChildren()) {
-            collectLines(child, lines);
-        }
+    @Override
+    protected boolean indented() {
+        return false;
+    }
+
+    @Override
+    protected String finish(String lines) {
+        // Lines are joined, not terminated
+        return lines.isEmpty() ? lines : lines.substring(0, lines.length() - 1);
     }
-}
\ No newline at end of file
+}
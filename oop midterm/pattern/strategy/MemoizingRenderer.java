@@ -0,0 +1,300 @@
+package strategy;
+
+import composite.PersonNode;
+import model.Person;
+import trace.RenderEvent;
+import trace.TreeOperationEvent;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Base for line-per-person renderers that can also render straight from Person links,
+ * caching each rendered subtree per person, generation budget and indentation level.
+ * A cached fragment is spliced into its parent's output as-is, so re-rendering after a
+ * change only formats the subtrees on the changed path. invalidate() drops the fragments
+ * of a changed person and of everyone whose rendered subtree contains it; invalidateLink()
+ * drops only those a new parent-child link changes. When the estimated size would pass
+ * the budget (32 MB unless set), the fragments of the least recently used people go first.
+ * <p>
+ * Nothing here notices changes by itself: the cache is only correct when every mutation
+ * goes through a FamilyTree, whose wrappers invalidate its renderer. A renderer used on
+ * its own, or any code changing a Person directly, must call invalidate() or
+ * invalidateLink() itself or get stale output.
+ */
+public abstract class MemoizingRenderer implements Renderer {
+    private static final long DEFAULT_MAX_RETAINED_BYTES = 32L << 20;
+    // String header and array, map entry and boxed key of a fragment, as in core.MemoryAccounting
+    private static final long FRAGMENT_BYTES = 40 + 40 + 16;
+    // Map entry and HashMap of a person with fragments
+    private static final long PERSON_BYTES = 40 + 48;
+
+    // Access order, so the eldest entry is the least recently rendered person
+    private final Map<Person, Map<Long, String>> fragments = new LinkedHashMap<>(16, 0.75f, true);
+    private long maxRetainedBytes = DEFAULT_MAX_RETAINED_BYTES;
+    private int fragmentCount;
+    private long retainedBytes;
+    private int maxGenerations;
+    private long hits;
+    private long misses;
+    // Per-call counters for the render event
+    private long visits;
+    private int deepest;
+
+    /**
+     * Append one person's line, newline included.
+     */
+    protected abstract void formatLine(Person person, int level, StringBuilder sb);
+
+    /**
+     * Whether a fragment's text depends on its indentation level.
+     */
+    protected abstract boolean indented();
+
+    /**
+     * Turn the concatenated lines into the final output.
+     */
+    protected abstract String finish(String lines);
+
+    @Override
+    public String render(PersonNode root) {
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        long hitsBefore = hits;
+        visits = 0;
+        deepest = 0;
+        StringBuilder sb = new StringBuilder();
+        renderNode(root, 0, sb);
+        String text = finish(sb.toString());
+        traced(event, "render", root.getPerson(), -1, hitsBefore, text);
+        return text;
+    }
+
+    private void renderNode(PersonNode node, int level, StringBuilder sb) {
+        visits++;
+        deepest = Math.max(deepest, level + 1);
+        formatLine(node.getPerson(), level, sb);
+        for (PersonNode child : node.getChildren()) {
+            renderNode(child, level + 1, sb);
+        }
+    }
+
+    /**
+     * Same output as render(PersonNode.buildDescendantTree(root, generations)), reusing fragments.
+     */
+    public String renderDescendants(Person root, int generations) {
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        long hitsBefore = hits;
+        visits = 0;
+        deepest = 0;
+        String text = finish(fragment(root, generations, 0, false));
+        traced(event, "renderDescendants", root, generations, hitsBefore, text);
+        return text;
+    }
+
+    /**
+     * Same output as render(PersonNode.buildAncestorTree(root, generations)), reusing fragments.
+     */
+    public String renderAncestors(Person root, int generations) {
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        long hitsBefore = hits;
+        visits = 0;
+        deepest = 0;
+        String text = finish(fragment(root, generations, 0, true));
+        traced(event, "renderAncestors", root, generations, hitsBefore, text);
+        return text;
+    }
+
+    private void traced(RenderEvent event, String operation, Person root, int generations, long hitsBefore, String text) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.renderer = getClass().getSimpleName();
+            event.cacheHits = hits - hitsBefore;
+            event.outputBytes = TreeOperationEvent.utf8Length(text);
+            event.complete(operation, root.getId(), generations, visits, deepest);
+        }
+    }
+
+    private String fragment(Person person, int generations, int level, boolean up) {
+        visits++;
+        deepest = Math.max(deepest, level + 1);
+        long key = ((long) generations << 33) | ((long) (indented() ? level : 0) << 1) | (up ? 1 : 0);
+        Map<Long, String> cached = fragments.get(person);
+        String text = cached == null ? null : cached.get(key);
+        if (text != null) {
+            hits++;
+            return text;
+        }
+        misses++;
+
+        StringBuilder sb = new StringBuilder();
+        formatLine(person, level, sb);
+        if (generations > 0) {
+            if (up) {
+                if (person.getParent1() != null) {
+                    sb.append(fragment(person.getParent1(), generations - 1, level + 1, true));
+                }
+                if (person.getParent2() != null) {
+                    sb.append(fragment(person.getParent2(), generations - 1, level + 1, true));
+                }
+            } else {
+                for (Person child : person.getChildren()) {
+                    sb.append(fragment(child, generations - 1, level + 1, false));
+                }
+            }
+        }
+        text = sb.toString();
+
+        // Text counted at one byte per character, as Latin-1 strings are stored
+        long bytes = FRAGMENT_BYTES + text.length();
+        evictTo(maxRetainedBytes - bytes - PERSON_BYTES);
+        Map<Long, String> stored = fragments.get(person);
+        if (stored == null) {
+            stored = new HashMap<>();
+            fragments.put(person, stored);
+            retainedBytes += PERSON_BYTES;
+        }
+        String replaced = stored.put(key, text);
+        if (replaced == null) {
+            fragmentCount++;
+            retainedBytes += bytes;
+        } else {
+            retainedBytes += text.length() - replaced.length();
+        }
+        maxGenerations = Math.max(maxGenerations, generations);
+        return text;
+    }
+
+    /**
+     * Drop fragments that include a changed person: its own, its ancestors' descendant
+     * fragments and its descendants' ancestor fragments, as far as any cached budget reaches.
+     */
+    public void invalidate(Person... changed) {
+        if (fragmentCount == 0) {
+            return;
+        }
+        for (Person person : changed) {
+            walk(person, false, new HashMap<>(), maxGenerations);
+            walk(person, true, new HashMap<>(), maxGenerations);
+        }
+    }
+
+    /**
+     * Drop fragments a new parent-child link changes: descendant fragments of the parent
+     * and its ancestors, and ancestor fragments of the child and its descendants. The
+     * child's descendant fragments and the parent's ancestor fragments stay.
+     */
+    public void invalidateLink(Person parent, Person child) {
+        if (fragmentCount == 0) {
+            return;
+        }
+        walk(parent, false, new HashMap<>(), maxGenerations);
+        walk(child, true, new HashMap<>(), maxGenerations);
+    }
+
+    /**
+     * Descendant fragments go stale upwards from the change, ancestor fragments downwards.
+     * Each person is expanded again only if reached with more depth left than before.
+     */
+    private void walk(Person person, boolean up, Map<Person, Integer> reached, int depth) {
+        Integer previous = reached.put(person, depth);
+        if (previous != null && previous >= depth) {
+            reached.put(person, previous);
+            return;
+        }
+        remove(person, up);
+        if (depth == 0) {
+            return;
+        }
+        if (up) {
+            for (Person child : person.getChildren()) {
+                walk(child, true, reached, depth - 1);
+            }
+        } else {
+            for (Person parent : new Person[]{person.getParent1(), person.getParent2()}) {
+                if (parent != null) {
+                    walk(parent, false, reached, depth - 1);
+                }
+            }
+        }
+    }
+
+    private void remove(Person person, boolean up) {
+        Map<Long, String> cached = fragments.get(person);
+        if (cached == null) {
+            return;
+        }
+        for (Iterator<Map.Entry<Long, String>> it = cached.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, String> entry = it.next();
+            if (((entry.getKey() & 1) == 1) == up) {
+                fragmentCount--;
+                retainedBytes -= FRAGMENT_BYTES + entry.getValue().length();
+                it.remove();
+            }
+        }
+        if (cached.isEmpty()) {
+            fragments.remove(person);
+            retainedBytes -= PERSON_BYTES;
+        }
+    }
+
+    /**
+     * Drop the fragments of the least recently used people until at most limit bytes remain.
+     */
+    private void evictTo(long limit) {
+        Iterator<Map.Entry<Person, Map<Long, String>>> it = fragments.entrySet().iterator();
+        while (retainedBytes > limit && it.hasNext()) {
+            Map<Long, String> cached = it.next().getValue();
+            for (String text : cached.values()) {
+                retainedBytes -= FRAGMENT_BYTES + text.length();
+            }
+            fragmentCount -= cached.size();
+            retainedBytes -= PERSON_BYTES;
+            it.remove();
+        }
+    }
+
+    /**
+     * Cap the estimated heap held by fragments, evicting least recently used people now if needed.
+     */
+    public void setMaxRetainedBytes(long bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("Cache budget must be positive");
+        }
+        maxRetainedBytes = bytes;
+        evictTo(bytes);
+    }
+
+    /**
+     * Forget every fragment.
+     */
+    public void clear() {
+        fragments.clear();
+        fragmentCount = 0;
+        retainedBytes = 0;
+        maxGenerations = 0;
+    }
+
+    public int fragmentCount() {
+        return fragmentCount;
+    }
+
+    /**
+     * Estimated heap held by cached fragments and their maps.
+     */
+    public long retainedBytes() {
+        return retainedBytes;
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+}
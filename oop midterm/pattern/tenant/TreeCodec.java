@@ -0,0 +1,101 @@
+package tenant;
+
+import core.FamilyTree;
+import factory.PersonFactory;
+import model.Gender;
+import model.Person;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact binary form of a whole tree for cold storage.
+ * People are written once and links refer to them by position, and the stream is
+ * gzipped, so a cold tree costs a fraction of its in-memory size on disk.
+ */
+final class TreeCodec {
+    private static final int MAGIC = 0x46545231; // "FTR1"
+
+    private TreeCodec() {
+        // Prevent instantiation
+    }
+
+    static void write(FamilyTree tree, OutputStream target) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(target)));
+        out.writeInt(MAGIC);
+
+        Map<Person, Integer> index = new HashMap<>();
+        out.writeInt(tree.size());
+        for (Person person : tree.people()) {
+            index.put(person, index.size());
+            out.writeUTF(person.getId());
+            out.writeUTF(person.getFullName());
+            out.writeByte(person.getGender().ordinal());
+            out.writeShort(person.getBirthYear());
+            out.writeShort(person.getDeathYear() == null ? -1 : person.getDeathYear());
+        }
+
+        // Links in replay order, so children lists and parent1/parent2 come back the same way round
+        List<Map.Entry<Person, Person>> links = tree.parentChildLinks();
+        List<int[]> marriages = new ArrayList<>();
+        for (Person person : tree.people()) {
+            Person spouse = person.getSpouse();
+            if (spouse != null && person.getId().compareTo(spouse.getId()) < 0) {
+                marriages.add(new int[]{index.get(person), index.get(spouse), person.getMarriageYear()});
+            }
+        }
+        out.writeInt(links.size());
+        for (Map.Entry<Person, Person> link : links) {
+            out.writeInt(index.get(link.getKey()));
+            out.writeInt(index.get(link.getValue()));
+        }
+        out.writeInt(marriages.size());
+        for (int[] marriage : marriages) {
+            out.writeInt(marriage[0]);
+            out.writeInt(marriage[1]);
+            out.writeShort(marriage[2]);
+        }
+        out.flush();
+        out.close();
+    }
+
+    static FamilyTree read(InputStream source) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(source)));
+        if (in.readInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a stored family tree");
+        }
+
+        FamilyTree tree = new FamilyTree();
+        String[] ids = new String[in.readInt()];
+        Gender[] genders = Gender.values();
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = in.readUTF();
+            String fullName = in.readUTF();
+            Gender gender = genders[in.readByte()];
+            int birthYear = in.readShort();
+            int deathYear = in.readShort();
+            tree.addPerson(PersonFactory.createPerson(ids[i], fullName, gender, birthYear,
+                    deathYear < 0 ? null : deathYear));
+        }
+        int links = in.readInt();
+        for (int i = 0; i < links; i++) {
+            tree.addParentChild(ids[in.readInt()], ids[in.readInt()]);
+        }
+        int marriages = in.readInt();
+        for (int i = 0; i < marriages; i++) {
+            tree.marry(ids[in.readInt()], ids[in.readInt()], in.readShort());
+        }
+        return tree;
+    }
+}
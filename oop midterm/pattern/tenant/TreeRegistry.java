@@ -0,0 +1,292 @@
+package tenant;
+
+import core.FamilyTree;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Holds many independent tenant trees under one memory budget.
+ * Hot trees stay in memory; when the budget is exceeded a clock sweep evicts trees
+ * that have not been used since the hand last passed, writing them to disk in compact
+ * form. Trees in use through a Lease are pinned and never evicted, and an evicted tree
+ * is loaded again transparently the next time it is acquired. A tree that cannot be
+ * saved stays in memory; the failure is counted rather than thrown from acquire or close.
+ */
+public class TreeRegistry implements AutoCloseable {
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final Path directory;
+    private final long memoryBudget;
+    private final Map<String, Tenant> tenants;
+    private final List<Tenant> clock;
+    private int hand;
+    private long memoryInUse;
+    private long hits;
+    private long misses;
+    private long loadNanos;
+    private long evictions;
+    private long evictionFailures;
+    private IOException lastEvictionFailure;
+
+    private static final class Tenant {
+        final String id;
+        final Path file;
+        FamilyTree tree;
+        boolean referenced;
+        int pins;
+        long footprint;
+        long savedSequence;
+
+        Tenant(String id, Path file) {
+            this.id = id;
+            this.file = file;
+        }
+
+        boolean dirty() {
+            return tree.changes().lastSequence() != savedSequence;
+        }
+    }
+
+    /**
+     * Use of one tenant's tree; the tree cannot be evicted until the lease is closed.
+     */
+    public final class Lease implements AutoCloseable {
+        private final Tenant tenant;
+        private boolean closed;
+
+        private Lease(Tenant tenant) {
+            this.tenant = tenant;
+        }
+
+        public FamilyTree tree() {
+            if (closed) {
+                throw new IllegalStateException("Lease for " + tenant.id + " is closed");
+            }
+            return tenant.tree;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(tenant);
+            }
+        }
+    }
+
+    public TreeRegistry(Path directory, long memoryBudget) throws IOException {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("Memory budget cannot be negative");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.memoryBudget = memoryBudget;
+        this.tenants = new HashMap<>();
+        this.clock = new ArrayList<>();
+    }
+
+    /**
+     * Pin a tenant's tree in memory, loading it from disk or starting an empty tree.
+     */
+    public synchronized Lease acquire(String tenantId) {
+        if (tenantId == null || !TENANT_ID.matcher(tenantId).matches()) {
+            throw new IllegalArgumentException("Invalid tenant ID: " + tenantId);
+        }
+        Tenant tenant = tenants.get(tenantId);
+        if (tenant == null) {
+            tenant = new Tenant(tenantId, directory.resolve(tenantId + ".tree"));
+            tenants.put(tenantId, tenant);
+        }
+
+        if (tenant.tree != null) {
+            hits++;
+        } else {
+            misses++;
+            load(tenant);
+            clock.add(tenant);
+        }
+        tenant.referenced = true;
+        Lease lease = new Lease(tenant);
+        tenant.pins++;
+        evictOverBudget();
+        return lease;
+    }
+
+    private synchronized void release(Tenant tenant) {
+        tenant.pins--;
+        // The tree may have grown while leased
+        long footprint = tenant.tree.estimatedBytes();
+        memoryInUse += footprint - tenant.footprint;
+        tenant.footprint = footprint;
+        evictOverBudget();
+    }
+
+    private void load(Tenant tenant) {
+        long start = System.nanoTime();
+        if (Files.exists(tenant.file)) {
+            try (InputStream in = Files.newInputStream(tenant.file)) {
+                tenant.tree = TreeCodec.read(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot load tenant " + tenant.id, e);
+            }
+        } else {
+            tenant.tree = new FamilyTree();
+        }
+        loadNanos += System.nanoTime() - start;
+
+        tenant.savedSequence = tenant.tree.changes().lastSequence();
+        tenant.footprint = tenant.tree.estimatedBytes();
+        memoryInUse += tenant.footprint;
+    }
+
+    /**
+     * Clock sweep: a referenced tree gets a second chance, an unreferenced unpinned one is evicted.
+     * Two full turns visit every tree at least once with its bit cleared, so the sweep terminates.
+     */
+    private void evictOverBudget() {
+        int steps = 0;
+        while (memoryInUse > memoryBudget && !clock.isEmpty() && steps < 2 * clock.size()) {
+            if (hand >= clock.size()) {
+                hand = 0;
+            }
+            Tenant tenant = clock.get(hand);
+            steps++;
+            if (tenant.pins > 0) {
+                hand++;
+            } else if (tenant.referenced) {
+                tenant.referenced = false;
+                hand++;
+            } else if (evict(tenant)) {
+                clock.remove(hand);
+            } else {
+                hand++;
+            }
+        }
+    }
+
+    /**
+     * Save if needed and drop the tree; returns false, keeping the tree, if it cannot be saved.
+     */
+    private boolean evict(Tenant tenant) {
+        try {
+            if (tenant.dirty()) {
+                save(tenant);
+            }
+        } catch (IOException e) {
+            // Keep the tree in memory rather than lose it
+            evictionFailures++;
+            lastEvictionFailure = e;
+            return false;
+        }
+        memoryInUse -= tenant.footprint;
+        tenant.tree = null;
+        tenant.footprint = 0;
+        evictions++;
+        return true;
+    }
+
+    private void save(Tenant tenant) throws IOException {
+        // Write then rename so a crash never leaves a half-written tree
+        Path tmp = tenant.file.resolveSibling(tenant.file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            TreeCodec.write(tenant.tree, out);
+        }
+        Files.move(tmp, tenant.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        tenant.savedSequence = tenant.tree.changes().lastSequence();
+    }
+
+    /**
+     * Write every changed hot tree to disk (trees stay in memory).
+     */
+    public synchronized void flush() throws IOException {
+        for (Tenant tenant : clock) {
+            if (tenant.dirty()) {
+                save(tenant);
+            }
+        }
+    }
+
+    public synchronized boolean isResident(String tenantId) {
+        Tenant tenant = tenants.get(tenantId);
+        return tenant != null && tenant.tree != null;
+    }
+
+    public synchronized long memoryInUse() {
+        return memoryInUse;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Evictions abandoned because the tree could not be saved.
+     */
+    public synchronized long evictionFailures() {
+        return evictionFailures;
+    }
+
+    /**
+     * Why the most recent failed eviction could not save its tree, or null.
+     */
+    public synchronized IOException lastEvictionFailure() {
+        return lastEvictionFailure;
+    }
+
+    /**
+     * Fraction of acquisitions served from memory.
+     */
+    public synchronized double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Mean time to load (or create) a tree on a miss, in milliseconds.
+     */
+    public synchronized double averageLoadMillis() {
+        return misses == 0 ? 0 : loadNanos / 1e6 / misses;
+    }
+
+    /**
+     * Estimated heap bytes of each resident tree, as of its last release.
+     */
+    public synchronized Map<String, Long> footprints() {
+        Map<String, Long> footprints = new LinkedHashMap<>();
+        for (Tenant tenant : clock) {
+            footprints.put(tenant.id, tenant.footprint);
+        }
+        return footprints;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d tenants, %d resident, %d/%d bytes, hit rate %.1f%%, avg load %.2f ms, %d evictions",
+                tenants.size(), clock.size(), memoryInUse, memoryBudget, hitRate() * 100,
+                averageLoadMillis(), evictions);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
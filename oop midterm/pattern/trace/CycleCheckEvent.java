@@ -0,0 +1,17 @@
+package trace;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The ancestor search that keeps a new parent-child link from creating a cycle.
+ */
+@Name("familytree.CycleCheck")
+@Label("Cycle Check")
+public class CycleCheckEvent extends TreeOperationEvent {
+    @Label("Ancestor ID")
+    public String ancestorId;
+
+    @Label("Is Ancestor")
+    public boolean found;
+}
@@ -0,0 +1,16 @@
+package trace;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A change to the tree: adding, linking, marrying, renaming or merging people.
+ */
+@Name("familytree.Mutation")
+@Label("Tree Mutation")
+@Threshold("1 ms")
+public class MutationEvent extends TreeOperationEvent {
+    @Label("Other Person ID")
+    public String otherId;
+}
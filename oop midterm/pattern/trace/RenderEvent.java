@@ -0,0 +1,14 @@
+package trace;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One call to a text renderer; cache hits count reused subtree fragments.
+ */
+@Name("familytree.Render")
+@Label("Tree Render")
+public class RenderEvent extends TreeOperationEvent {
+    @Label("Renderer")
+    public String renderer;
+}
@@ -0,0 +1,80 @@
+package trace;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Starts and dumps an in-process Flight Recorder recording of the family tree events.
+ * A threshold of zero records every operation; otherwise only slower ones are kept.
+ */
+public class TraceRecorder implements AutoCloseable {
+    private static final List<Class<? extends TreeOperationEvent>> EVENTS = List.of(
+            TraversalEvent.class, MutationEvent.class, CycleCheckEvent.class,
+            TreeBuildEvent.class, RenderEvent.class);
+
+    private Recording recording;
+
+    /**
+     * Start recording, replacing any recording this recorder already runs.
+     */
+    public synchronized void start(Duration threshold) {
+        if (threshold.isNegative()) {
+            throw new IllegalArgumentException("Threshold cannot be negative");
+        }
+        stop();
+        recording = new Recording();
+        recording.setName("family-tree");
+        for (Class<? extends TreeOperationEvent> event : EVENTS) {
+            recording.enable(event).withThreshold(threshold);
+        }
+        recording.start();
+    }
+
+    public synchronized boolean isRunning() {
+        return recording != null;
+    }
+
+    /**
+     * Write what has been recorded so far to a .jfr file; recording continues.
+     */
+    public synchronized void dump(Path file) throws IOException {
+        if (recording == null) {
+            throw new IllegalStateException("No recording is running");
+        }
+        recording.dump(file);
+    }
+
+    public synchronized void stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    /**
+     * Count the family tree events in a dump, by event name.
+     */
+    public static Map<String, Long> summarize(Path file) throws IOException {
+        Map<String, Long> counts = new TreeMap<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            String name = event.getEventType().getName();
+            if (name.startsWith("familytree.")) {
+                counts.merge(name, 1L, Long::sum);
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,12 @@
+package trace;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An ancestor or descendant traversal run by FamilyTree.
+ */
+@Name("familytree.Traversal")
+@Label("Tree Traversal")
+public class TraversalEvent extends TreeOperationEvent {
+}
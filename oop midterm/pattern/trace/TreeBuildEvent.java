@@ -0,0 +1,12 @@
+package trace;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Building a PersonNode tree of ancestors or descendants.
+ */
+@Name("familytree.TreeBuild")
+@Label("Person Tree Build")
+public class TreeBuildEvent extends TreeOperationEvent {
+}
@@ -0,0 +1,81 @@
+package trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Fields shared by the family tree's Flight Recorder events.
+ * Events are meant to stay enabled in production: callers count with plain ints while
+ * they work and fill fields in only when shouldCommit() says the event will be kept,
+ * stack traces are off, and by default only operations slower than 10 ms are recorded.
+ */
+@Category("Family Tree")
+@StackTrace(false)
+@Threshold("10 ms")
+public abstract class TreeOperationEvent extends Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Person ID")
+    public String personId;
+
+    @Label("Generations")
+    @Description("Generations requested, or -1 when not a traversal")
+    public int generations = -1;
+
+    @Label("Nodes Visited")
+    public long nodesVisited;
+
+    @Label("Maximum Frontier")
+    @Description("Most people waiting to be expanded at once: queue size breadth-first, depth depth-first")
+    public int maxFrontier;
+
+    @Label("Cache Hits")
+    public long cacheHits;
+
+    @Label("Output Size")
+    @DataAmount
+    public long outputBytes;
+
+    /**
+     * End the event and, if it passes its threshold, fill in the common fields and commit.
+     * Subclass fields that are cheap to set can be assigned before calling this.
+     */
+    public void complete(String operation, String personId, int generations, long nodesVisited, int maxFrontier) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.personId = personId;
+            this.generations = generations;
+            this.nodesVisited = nodesVisited;
+            this.maxFrontier = maxFrontier;
+            commit();
+        }
+    }
+
+    /**
+     * UTF-8 length without encoding the text.
+     */
+    public static long utf8Length(CharSequence text) {
+        long bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
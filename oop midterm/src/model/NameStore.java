@@ -0,0 +1,310 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deduplicated storage for people's names.
+ * A name is split into a given-name token and a surname token (its last word); each
+ * distinct token is stored once as UTF-8 in a shared byte pool, so a person keeps two
+ * ints instead of its own String and getFullName() rebuilds the name on demand.
+ * Every surname token also has a posting list of the people carrying it, which answers
+ * surname queries without scanning. Each person remembers its slot in that list, so
+ * removal leaves a hole in O(1); holes are squeezed out once they make up half a list.
+ * Names that would not survive the split unchanged (surrounding or repeated whitespace
+ * before the surname) keep their String as well. A person belongs to at most one store.
+ * Tokens are never freed; they are expected to number in the thousands. Not thread-safe.
+ */
+public class NameStore {
+    static final int NONE = -1;
+    // Header, fields and array of a compact String, as in core.MemoryAccounting
+    private static final long STRING_BYTES = 40;
+
+    private byte[] pool;
+    private int poolSize;
+    // Token t occupies pool[offsets[t] .. offsets[t + 1])
+    private int[] offsets;
+    private int tokenCount;
+    // Open addressing over token + 1 (0 = empty), kept at most half full
+    private int[] slots;
+    private Person[][] postings;
+    // Slots used in each posting list, holes included
+    private int[] postingSizes;
+    private int[] liveCounts;
+    private int people;
+    private long keptStringBytes;
+
+    public NameStore() {
+        this.pool = new byte[1024];
+        this.offsets = new int[65];
+        this.slots = new int[128];
+        this.postings = new Person[64][];
+        this.postingSizes = new int[64];
+        this.liveCounts = new int[64];
+    }
+
+    /**
+     * Store a person's name; a person already held by another store is rejected.
+     */
+    public void add(Person person) {
+        if (person.nameStore() == this) {
+            return;
+        }
+        if (person.nameStore() != null) {
+            throw new IllegalArgumentException("Person " + person.getId() + " already belongs to another name store");
+        }
+        store(person, person.getFullName());
+        people++;
+    }
+
+    /**
+     * Take a person out of the store; the person keeps its name as a plain String.
+     */
+    public void remove(Person person) {
+        if (person.nameStore() != this) {
+            return;
+        }
+        String name = person.getFullName();
+        unlist(person);
+        forget(person);
+        person.attachName(null, NONE, NONE, name);
+        people--;
+    }
+
+    /**
+     * Called by Person.setFullName for stored people.
+     */
+    void rename(Person person, String name) {
+        unlist(person);
+        forget(person);
+        store(person, name);
+    }
+
+    private void store(Person person, String name) {
+        String trimmed = name.trim();
+        int split = trimmed.length() - 1;
+        while (split >= 0 && !Character.isWhitespace(trimmed.charAt(split))) {
+            split--;
+        }
+        int surname = intern(trimmed.substring(split + 1));
+        int given = NONE;
+        boolean exact = split < 0 && trimmed.length() == name.length();
+        if (split >= 0) {
+            String givenName = trimmed.substring(0, split);
+            given = intern(givenName);
+            exact = trimmed.length() == name.length() && trimmed.charAt(split) == ' '
+                    && givenName.equals(givenName.stripTrailing());
+        }
+        person.attachName(this, given, surname, exact ? null : name);
+        if (!exact) {
+            keptStringBytes += STRING_BYTES + name.length();
+        }
+        list(surname, person);
+    }
+
+    private void forget(Person person) {
+        if (person.keptName() != null) {
+            keptStringBytes -= STRING_BYTES + person.keptName().length();
+        }
+    }
+
+    /**
+     * Rebuild a full name from its tokens.
+     */
+    String fullName(int given, int surname) {
+        if (given == NONE) {
+            return token(surname);
+        }
+        byte[] joined = new byte[length(given) + 1 + length(surname)];
+        System.arraycopy(pool, offsets[given], joined, 0, length(given));
+        joined[length(given)] = ' ';
+        System.arraycopy(pool, offsets[surname], joined, length(given) + 1, length(surname));
+        return new String(joined, StandardCharsets.UTF_8);
+    }
+
+    String token(int token) {
+        return new String(pool, offsets[token], length(token), StandardCharsets.UTF_8);
+    }
+
+    private int length(int token) {
+        return offsets[token + 1] - offsets[token];
+    }
+
+    /**
+     * Token for a string, adding it to the pool the first time it is seen.
+     */
+    private int intern(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int found = find(bytes);
+        if (found != NONE) {
+            return found;
+        }
+
+        while (poolSize + bytes.length > pool.length) {
+            pool = Arrays.copyOf(pool, pool.length * 2);
+        }
+        if (tokenCount == postings.length) {
+            offsets = Arrays.copyOf(offsets, postings.length * 2 + 1);
+            postings = Arrays.copyOf(postings, postings.length * 2);
+            postingSizes = Arrays.copyOf(postingSizes, postingSizes.length * 2);
+            liveCounts = Arrays.copyOf(liveCounts, liveCounts.length * 2);
+        }
+        System.arraycopy(bytes, 0, pool, poolSize, bytes.length);
+        poolSize += bytes.length;
+        int token = tokenCount++;
+        offsets[token + 1] = poolSize;
+
+        if (tokenCount * 2 > slots.length) {
+            slots = new int[slots.length * 2];
+            for (int t = 0; t < tokenCount - 1; t++) {
+                slots[freeSlot(hash(pool, offsets[t], offsets[t + 1]))] = t + 1;
+            }
+        }
+        slots[freeSlot(hash(bytes, 0, bytes.length))] = token + 1;
+        return token;
+    }
+
+    private int find(byte[] bytes) {
+        int mask = slots.length - 1;
+        for (int slot = hash(bytes, 0, bytes.length) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int token = slots[slot] - 1;
+            if (Arrays.equals(pool, offsets[token], offsets[token + 1], bytes, 0, bytes.length)) {
+                return token;
+            }
+        }
+        return NONE;
+    }
+
+    private int freeSlot(int hash) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(byte[] bytes, int from, int to) {
+        int h = 0x811c9dc5;
+        for (int i = from; i < to; i++) {
+            h = (h ^ bytes[i]) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private void list(int surname, Person person) {
+        Person[] posting = postings[surname];
+        if (posting == null) {
+            posting = new Person[4];
+        } else if (postingSizes[surname] == posting.length) {
+            posting = Arrays.copyOf(posting, posting.length * 2);
+        }
+        person.postingSlot(postingSizes[surname]);
+        posting[postingSizes[surname]++] = person;
+        postings[surname] = posting;
+        liveCounts[surname]++;
+    }
+
+    /**
+     * Leave a hole at the person's slot; the rest keep their insertion order.
+     */
+    private void unlist(Person person) {
+        int surname = person.surnameToken();
+        postings[surname][person.postingSlot()] = null;
+        liveCounts[surname]--;
+        if (liveCounts[surname] * 2 < postingSizes[surname]) {
+            compact(surname);
+        }
+    }
+
+    private void compact(int surname) {
+        Person[] posting = postings[surname];
+        int size = 0;
+        for (int i = 0; i < postingSizes[surname]; i++) {
+            if (posting[i] != null) {
+                posting[i].postingSlot(size);
+                posting[size++] = posting[i];
+            }
+        }
+        Arrays.fill(posting, size, postingSizes[surname], null);
+        postingSizes[surname] = size;
+    }
+
+    /**
+     * Everyone whose last name word is exactly this surname, in the order they were added.
+     */
+    public List<Person> withSurname(String surname) {
+        int token = find(surname.getBytes(StandardCharsets.UTF_8));
+        if (token == NONE || liveCounts[token] == 0) {
+            return Collections.emptyList();
+        }
+        Person[] live = new Person[liveCounts[token]];
+        int n = 0;
+        for (int i = 0; i < postingSizes[token]; i++) {
+            if (postings[token][i] != null) {
+                live[n++] = postings[token][i];
+            }
+        }
+        return Collections.unmodifiableList(Arrays.asList(live));
+    }
+
+    public int surnameCount(String surname) {
+        int token = find(surname.getBytes(StandardCharsets.UTF_8));
+        return token == NONE ? 0 : liveCounts[token];
+    }
+
+    /**
+     * The most frequent surnames with how many people carry each, largest first.
+     */
+    public List<Map.Entry<String, Integer>> commonSurnames(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        List<Integer> tokens = new ArrayList<>();
+        for (int token = 0; token < tokenCount; token++) {
+            if (liveCounts[token] > 0) {
+                tokens.add(token);
+            }
+        }
+        tokens.sort((a, b) -> liveCounts[b] != liveCounts[a]
+                ? Integer.compare(liveCounts[b], liveCounts[a])
+                : token(a).compareTo(token(b)));
+        List<Map.Entry<String, Integer>> result = new ArrayList<>();
+        for (int token : tokens.subList(0, Math.min(limit, tokens.size()))) {
+            result.add(new AbstractMap.SimpleImmutableEntry<>(token(token), liveCounts[token]));
+        }
+        return result;
+    }
+
+    public int size() {
+        return people;
+    }
+
+    public int tokenCount() {
+        return tokenCount;
+    }
+
+    public int poolBytes() {
+        return poolSize;
+    }
+
+    /**
+     * Estimated heap bytes: pool, offsets, hash slots, posting lists and the Strings kept
+     * for names that could not be stored as tokens alone.
+     */
+    public long footprint() {
+        long bytes = 16L + pool.length + 4L * offsets.length + 4L * slots.length
+                + 4L * postings.length + 4L * postingSizes.length + 4L * liveCounts.length + keptStringBytes;
+        for (int token = 0; token < tokenCount; token++) {
+            if (postings[token] != null) {
+                bytes += 16L + 4L * postings[token].length;
+            }
+        }
+        return bytes;
+    }
+}
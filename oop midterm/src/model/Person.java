@@ -9,7 +9,12 @@ import java.util.List;
  */
 public abstract class Person {
     private final String id;
+    // Null while the name is held as tokens in a NameStore
     private String fullName;
+    private NameStore names;
+    private int givenToken;
+    private int surnameToken;
+    private int postingSlot;
     private Gender gender;
     private int birthYear;
     private Integer deathYear;
@@ -55,7 +60,7 @@ public abstract class Person {
     }
 
     public String getFullName() {
-        return fullName;
+        return fullName != null ? fullName : names.fullName(givenToken, surnameToken);
     }
 
     public Gender getGender() {
@@ -82,6 +87,10 @@ public abstract class Person {
         return new ArrayList<>(children);
     }
 
+    public int getChildCount() {
+        return children.size();
+    }
+
     public Person getSpouse() {
         return spouse;
     }
@@ -97,7 +106,11 @@ public abstract class Person {
     // Setters with validation
     public void setFullName(String fullName) {
         validateName(fullName);
-        this.fullName = fullName;
+        if (names != null) {
+            names.rename(this, fullName);
+        } else {
+            this.fullName = fullName;
+        }
     }
 
     public void setDeathYear(Integer deathYear) {
@@ -144,14 +157,89 @@ public abstract class Person {
         this.divorceYear = null;
     }
 
+    public void setDivorceYear(Integer divorceYear) {
+        if (divorceYear != null && (spouse == null || divorceYear < marriageYear)) {
+            throw new IllegalArgumentException("Divorce must follow a marriage");
+        }
+        this.divorceYear = divorceYear;
+    }
+
     public void removeSpouse() {
         this.spouse = null;
     }
 
+    public void removeParent(Person parent) {
+        if (parent.equals(parent1)) {
+            parent1 = parent2;
+            parent2 = null;
+        } else if (parent.equals(parent2)) {
+            parent2 = null;
+        }
+    }
+
+    public void removeChild(Person child) {
+        children.remove(child);
+    }
+
+    // Swap a merged-away relative in place, keeping parent slot and children order
+    public void replaceParent(Person parent, Person replacement) {
+        if (hasParent(replacement)) {
+            removeParent(parent);
+        } else if (parent.equals(parent1)) {
+            parent1 = replacement;
+        } else if (parent.equals(parent2)) {
+            parent2 = replacement;
+        }
+    }
+
+    public void replaceChild(Person child, Person replacement) {
+        int index = children.indexOf(child);
+        if (index < 0) {
+            return;
+        }
+        if (children.contains(replacement)) {
+            children.remove(index);
+        } else {
+            children.set(index, replacement);
+        }
+    }
+
     public boolean hasParent(Person person) {
         return person.equals(parent1) || person.equals(parent2);
     }
 
+    public boolean hasChild(Person person) {
+        return children.contains(person);
+    }
+
+    // Name storage, managed by NameStore
+    NameStore nameStore() {
+        return names;
+    }
+
+    int surnameToken() {
+        return surnameToken;
+    }
+
+    int postingSlot() {
+        return postingSlot;
+    }
+
+    void postingSlot(int slot) {
+        this.postingSlot = slot;
+    }
+
+    String keptName() {
+        return names == null ? null : fullName;
+    }
+
+    void attachName(NameStore names, int givenToken, int surnameToken, String keptName) {
+        this.names = names;
+        this.givenToken = givenToken;
+        this.surnameToken = surnameToken;
+        this.fullName = keptName;
+    }
+
     // Abstract method for polymorphism
     public abstract String getPersonType();
 
@@ -159,7 +247,7 @@ public abstract class Person {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append(id).append(" | ")
-                .append(fullName).append(" | ")
+                .append(getFullName()).append(" | ")
                 .append(gender).append(" | ")
                 .append("b.").append(birthYear);
 
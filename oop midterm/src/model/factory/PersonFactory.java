@@ -20,9 +20,14 @@ public final class PersonFactory {
      * Creates a Person (Adult or Minor based on age) with auto-generated ID.
      */
     public static Person createPerson(String fullName, Gender gender, int birthYear, Integer deathYear) {
-        String id = IdGenerator.generateId();
-        int currentYear = 2025;
+        return createPerson(IdGenerator.generateId(), fullName, gender, birthYear, deathYear);
+    }
 
+    /**
+     * Creates a Person with a known ID (used when rebuilding people from another tree).
+     */
+    public static Person createPerson(String id, String fullName, Gender gender, int birthYear, Integer deathYear) {
+        int currentYear = 2025;
         // Determine if person is/was a minor
         if (deathYear == null) {
             // Person is alive
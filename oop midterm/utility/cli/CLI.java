@@ -1,11 +1,32 @@
 package cli;
 
+import analytics.TreeStatistics;
 import core.FamilyTree;
 import factory.PersonFactory;
 import model.Gender;
 import model.Person;
-
+import query.QueryParser;
+import query.QueryPlan;
+import bulk.CsvBulkImporter;
+import gedcom.GedcomReader;
+import gedcom.GedcomWriter;
+import query.QueryPlanner;
+import strategy.DotRenderer;
+import strategy.GraphRenderer;
+import strategy.JsonGraphRenderer;
+import trace.TraceRecorder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -14,10 +35,12 @@ import java.util.Scanner;
 public class CLI {
     private final FamilyTree familyTree;
     private final Scanner scanner;
+    private final TraceRecorder recorder;
 
     public CLI() {
         this.familyTree = new FamilyTree();
         this.scanner = new Scanner(System.in);
+        this.recorder = new TraceRecorder();
     }
 
     public void run() {
@@ -35,6 +58,7 @@ public class CLI {
                 }
 
                 if (input.equalsIgnoreCase("EXIT")) {
+                    recorder.stop();
                     System.out.println("Goodbye!");
                     break;
                 }
@@ -75,9 +99,40 @@ public class CLI {
             case "SIBLINGS":
                 handleSiblings(parts);
                 break;
+            case "COUSINS":
+                handleCousins(parts);
+                break;
+            case "SURNAME":
+                handleSurname(parts);
+                break;
             case "SHOW":
                 handleShow(parts);
                 break;
+            case "VALIDATE":
+                handleValidate(parts);
+                break;
+            case "IMPORT":
+                handleImport(parts);
+                break;
+            case "IMPORT_CSV":
+                handleImportCsv(parts);
+                break;
+            case "EXPORT":
+                handleExport(parts);
+                break;
+            case "TRACE":
+                handleTrace(parts);
+                break;
+            case "MEMORY":
+                System.out.println(familyTree.memoryReport());
+                break;
+            case "STATS":
+                System.out.println(TreeStatistics.compute(familyTree));
+                break;
+            case "QUERY":
+            case "EXPLAIN":
+                handleQuery(command, input.substring(parts[0].length()).trim());
+                break;
             default:
                 System.out.println("Unknown command: " + command);
                 System.out.println("Type 'HELP' for available commands");
@@ -186,6 +241,44 @@ public class CLI {
         }
     }
 
+    private void handleSurname(String[] parts) {
+        if (parts.length < 2) {
+            for (Map.Entry<String, Integer> entry : familyTree.commonSurnames(10)) {
+                System.out.println(entry.getKey() + ": " + entry.getValue());
+            }
+            return;
+        }
+
+        List<Person> people = familyTree.withSurname(parts[1]);
+
+        if (people.isEmpty()) {
+            System.out.println("<none>");
+        } else {
+            for (Person person : people) {
+                System.out.println(person.getId() + " - " + person.getFullName());
+            }
+        }
+    }
+
+    private void handleCousins(String[] parts) {
+        if (parts.length < 3) {
+            System.out.println("Usage: COUSINS <personId> <degree> [removal]");
+            return;
+        }
+
+        int degree = Integer.parseInt(parts[2]);
+        int removal = parts.length > 3 ? Integer.parseInt(parts[3]) : 0;
+        List<Person> cousins = familyTree.cousinsOf(parts[1], degree, removal);
+
+        if (cousins.isEmpty()) {
+            System.out.println("<none>");
+        } else {
+            for (Person cousin : cousins) {
+                System.out.println(cousin.getId() + " - " + cousin.getFullName());
+            }
+        }
+    }
+
     private void handleShow(String[] parts) {
         if (parts.length < 2) {
             System.out.println("Usage: SHOW <personId>");
@@ -196,6 +289,135 @@ public class CLI {
         System.out.println(person.toString());
     }
 
+    private void handleValidate(String[] parts) {
+        boolean full = parts.length > 1 && parts[1].equalsIgnoreCase("FULL");
+        System.out.println(full ? familyTree.validate() : familyTree.revalidate());
+    }
+
+    private void handleExport(String[] parts) {
+        if (parts.length < 2) {
+            System.out.println("Usage: EXPORT <DOT|JSON|GEDCOM> [file]");
+            return;
+        }
+
+        GraphRenderer renderer;
+        switch (parts[1].toUpperCase()) {
+            case "GEDCOM":
+                renderer = null;
+                break;
+            case "DOT":
+                renderer = new DotRenderer();
+                break;
+            case "JSON":
+                renderer = new JsonGraphRenderer();
+                break;
+            default:
+                System.out.println("Unknown format: " + parts[1]);
+                return;
+        }
+
+        try {
+            if (parts.length > 2) {
+                try (Writer writer = Files.newBufferedWriter(Paths.get(parts[2]), StandardCharsets.UTF_8)) {
+                    export(renderer, writer);
+                }
+                System.out.println("OK");
+            } else {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+                export(renderer, writer);
+                writer.flush();
+            }
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    private void handleTrace(String[] parts) {
+        String action = parts.length > 1 ? parts[1].toUpperCase() : "";
+        if (action.equals("START")) {
+            long thresholdMillis = parts.length > 2 ? Long.parseLong(parts[2]) : 0;
+            recorder.start(Duration.ofMillis(thresholdMillis));
+            System.out.println("Recording operations taking at least " + thresholdMillis + " ms");
+        } else if (action.equals("DUMP") && parts.length > 2) {
+            try {
+                recorder.dump(Paths.get(parts[2]));
+                for (Map.Entry<String, Long> entry : TraceRecorder.summarize(Paths.get(parts[2])).entrySet()) {
+                    System.out.println(entry.getKey() + ": " + entry.getValue());
+                }
+                System.out.println("OK");
+            } catch (IOException e) {
+                System.out.println("Error: " + e.getMessage());
+            }
+        } else if (action.equals("STOP")) {
+            recorder.stop();
+            System.out.println("OK");
+        } else {
+            System.out.println("Usage: TRACE START [thresholdMs] | TRACE DUMP <file.jfr> | TRACE STOP");
+        }
+    }
+
+    private void export(GraphRenderer renderer, Writer writer) throws IOException {
+        if (renderer == null) {
+            new GedcomWriter(writer).write(familyTree.people());
+        } else {
+            familyTree.exportAll(renderer, writer);
+        }
+    }
+
+    private void handleImport(String[] parts) {
+        if (parts.length < 2) {
+            System.out.println("Usage: IMPORT <gedcom-file>");
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(Paths.get(parts[1]), StandardCharsets.UTF_8)) {
+            System.out.println(new GedcomReader(familyTree, 1000).read(reader));
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    private void handleImportCsv(String[] parts) {
+        if (parts.length < 3) {
+            System.out.println("Usage: IMPORT_CSV <people.csv> <relations.csv>");
+            return;
+        }
+
+        try {
+            CsvBulkImporter.Result result = new CsvBulkImporter(familyTree)
+                    .importFiles(Paths.get(parts[1]), Paths.get(parts[2]));
+            for (CsvBulkImporter.RowError error : result.getErrors()) {
+                System.out.println(error);
+            }
+            System.out.println(result);
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    private void handleQuery(String command, String text) {
+        if (text.isEmpty()) {
+            System.out.println("Usage: " + command + " <query>");
+            System.out.println("  e.g. DESCENDANTS OF P001 WITHIN 5 WHERE gender = FEMALE AND born BETWEEN 1900 AND 1950 AND alive");
+            return;
+        }
+
+        QueryPlan plan = QueryPlanner.plan(familyTree, QueryParser.parse(text));
+        if (command.equals("EXPLAIN")) {
+            System.out.println(plan.explain());
+            return;
+        }
+
+        long[] count = {0};
+        plan.stream().forEach(person -> {
+            System.out.println(person.getId() + " - " + person.getFullName());
+            count[0]++;
+        });
+        if (count[0] == 0) {
+            System.out.println("<none>");
+        }
+    }
+
     private void printHelp() {
         System.out.println("Available commands:");
         System.out.println("  ADD_PERSON \"<Full Name>\" <Gender> <BirthYear> [DeathYear]");
@@ -205,7 +427,21 @@ public class CLI {
         System.out.println("  ANCESTORS <personId> <generations>");
         System.out.println("  DESCENDANTS <personId> <generations>");
         System.out.println("  SIBLINGS <personId>");
+        System.out.println("  COUSINS <personId> <degree> [removal]");
+        System.out.println("  SURNAME [surname]   (people with the surname, or the most common surnames)");
         System.out.println("  SHOW <personId>");
+        System.out.println("  VALIDATE [FULL]");
+        System.out.println("  IMPORT <gedcom-file>");
+        System.out.println("  IMPORT_CSV <people.csv> <relations.csv>");
+        System.out.println("  EXPORT <DOT|JSON|GEDCOM> [file]");
+        System.out.println("  STATS");
+        System.out.println("  MEMORY");
+        System.out.println("  TRACE START [thresholdMs] | TRACE DUMP <file.jfr> | TRACE STOP");
+        System.out.println("  QUERY <query>   (ALL | DESCENDANTS OF id | ANCESTORS OF id | SIBLINGS OF id");
+        System.out.println("                   [WITHIN n] [WHERE cond AND ...] [LIMIT n])");
+        System.out.println("    cond: gender = G, type = Adult|Minor, alive, deceased,");
+        System.out.println("          born between Y AND Y, born before Y, born after Y, related to id");
+        System.out.println("  EXPLAIN <query>");
         System.out.println("  EXIT");
     }
 }
\ No newline at end of file